@@ -1,9 +1,13 @@
 ﻿import os
-from typing import List, Optional
+import re
+import threading
+import time
+from collections import OrderedDict
+from typing import Dict, List, Optional, Tuple
 
 import psycopg2
-from psycopg2 import pool
-from fastapi import FastAPI, HTTPException, Query
+from psycopg2 import errors, pool
+from fastapi import FastAPI, HTTPException, Query, Response
 from pydantic import BaseModel, Field
 from sentence_transformers import SentenceTransformer
 
@@ -18,12 +22,27 @@ TOP_K_DEFAULT = int(os.getenv("TOP_K_DEFAULT", "10"))
 TOP_K_MAX = int(os.getenv("TOP_K_MAX", "50"))
 EF_SEARCH_DEFAULT = int(os.getenv("EF_SEARCH_DEFAULT", "64"))
 EF_SEARCH_MAX = int(os.getenv("EF_SEARCH_MAX", "256"))
+EMBED_BATCH_MAX = int(os.getenv("EMBED_BATCH_MAX", "256"))
+# How long a resolved model_version is trusted; versions can be demoted or deleted (their table dropped).
+VERSION_CACHE_TTL_SECONDS = float(os.getenv("VERSION_CACHE_TTL_SECONDS", "30"))
+# Models /embed accepts besides MODEL_NAME and the models of embedding versions that have not FAILED (comma separated).
+ALLOWED_MODELS = {m.strip() for m in os.getenv("ALLOWED_MODELS", "").split(",") if m.strip()}
+# Models other than MODEL_NAME kept loaded at once; the least recently used one is unloaded first.
+MODEL_CACHE_MAX = int(os.getenv("MODEL_CACHE_MAX", "2"))
+# Milliseconds /search spent in the vector query itself.
+VECTOR_TIME_HEADER = "X-Vector-Query-Ms"
 
 app = FastAPI(title="SmartLib AI Service", version="0.1.0")
 
 _model = SentenceTransformer(MODEL_NAME)
+_models: "OrderedDict[str, SentenceTransformer]" = OrderedDict()
+_models_lock = threading.Lock()
+_versions: Dict[str, Tuple[str, str, float]] = {}
+_registered_models: Dict[str, float] = {}
 _db_pool: Optional[pool.SimpleConnectionPool] = None
 
+EMBEDDING_TABLE_RE = re.compile(r"^book_embeddings_[a-z0-9_]{1,40}$")
+
 
 def get_pool() -> pool.SimpleConnectionPool:
     global _db_pool
@@ -40,6 +59,70 @@ def get_pool() -> pool.SimpleConnectionPool:
     return _db_pool
 
 
+def get_model(name: Optional[str]) -> SentenceTransformer:
+    if not name or name == MODEL_NAME:
+        return _model
+    if name not in ALLOWED_MODELS and not model_registered(name):
+        raise HTTPException(status_code=400, detail=f"unknown model '{name}'")
+    with _models_lock:
+        model = _models.get(name)
+        if model is None:
+            model = SentenceTransformer(name)
+            _models[name] = model
+            while len(_models) > MODEL_CACHE_MAX:
+                _models.popitem(last=False)
+        else:
+            _models.move_to_end(name)
+        return model
+
+
+def model_registered(name: str) -> bool:
+    """Whether an embedding version that has not FAILED uses the model; a yes is cached for VERSION_CACHE_TTL_SECONDS."""
+    until = _registered_models.get(name)
+    if until and until > time.monotonic():
+        return True
+    pool_obj = get_pool()
+    conn = pool_obj.getconn()
+    try:
+        with conn.cursor() as cur:
+            cur.execute(
+                "SELECT 1 FROM embedding_versions WHERE model_name = %s AND status <> 'FAILED' LIMIT 1",
+                (name,),
+            )
+            row = cur.fetchone()
+    finally:
+        pool_obj.putconn(conn)
+    if not row:
+        _registered_models.pop(name, None)
+        return False
+    _registered_models[name] = time.monotonic() + VERSION_CACHE_TTL_SECONDS
+    return True
+
+
+def resolve_version(version: str) -> Tuple[str, str]:
+    """Map a READY or ACTIVE embedding version to (model_name, table_name), cached for VERSION_CACHE_TTL_SECONDS."""
+    cached = _versions.get(version)
+    if cached and cached[2] > time.monotonic():
+        return cached[0], cached[1]
+    pool_obj = get_pool()
+    conn = pool_obj.getconn()
+    try:
+        with conn.cursor() as cur:
+            cur.execute(
+                "SELECT model_name, table_name FROM embedding_versions "
+                "WHERE version = %s AND status IN ('READY', 'ACTIVE')",
+                (version,),
+            )
+            row = cur.fetchone()
+    finally:
+        pool_obj.putconn(conn)
+    if not row or not EMBEDDING_TABLE_RE.match(row[1]):
+        _versions.pop(version, None)
+        raise HTTPException(status_code=400, detail=f"unknown model_version '{version}'")
+    _versions[version] = (row[0], row[1], time.monotonic() + VERSION_CACHE_TTL_SECONDS)
+    return row[0], row[1]
+
+
 def to_pgvector(vec: List[float]) -> str:
     # Convert Python list to pgvector literal
     return "[" + ",".join(f"{x:.6f}" for x in vec) + "]"
@@ -49,6 +132,12 @@ class SearchRequest(BaseModel):
     query: str = Field(..., min_length=1, description="Natural language query")
     top_k: int = Field(default=TOP_K_DEFAULT, ge=1, le=TOP_K_MAX)
     ef_search: Optional[int] = Field(default=None, ge=8, le=EF_SEARCH_MAX)
+    model_version: Optional[str] = None
+
+
+class EmbedRequest(BaseModel):
+    texts: List[str] = Field(..., min_items=1, max_items=EMBED_BATCH_MAX)
+    model: Optional[str] = None
 
 
 class SearchResult(BaseModel):
@@ -80,12 +169,16 @@ def health():
 
 
 @app.post("/search", response_model=List[SearchResult])
-def search_books(payload: SearchRequest):
+def search_books(payload: SearchRequest, response: Response):
     query = payload.query.strip()
     if not query:
         raise HTTPException(status_code=400, detail="query is empty")
 
-    embedding = _model.encode(query, normalize_embeddings=True).tolist()
+    model_name, table_name = (None, None)
+    if payload.model_version:
+        model_name, table_name = resolve_version(payload.model_version)
+
+    embedding = get_model(model_name).encode(query, normalize_embeddings=True).tolist()
     vec_literal = to_pgvector(embedding)
     ef_search = payload.ef_search
     if ef_search is None:
@@ -109,16 +202,44 @@ def search_books(payload: SearchRequest):
         ORDER BY embedding <=> %s::vector
         LIMIT %s;
     """
+    if table_name:
+        # Versioned embeddings live in their own table with their own HNSW index (blue/green re-index).
+        sql = f"""
+            SELECT
+                b.id,
+                b.google_books_id,
+                b.title,
+                b.author,
+                b.description,
+                b.image_url,
+                b.published_date,
+                1.0 / (1.0 + (e.embedding <=> %s::vector)) AS score
+            FROM {table_name} e
+            JOIN books b ON b.id = e.book_id
+            ORDER BY e.embedding <=> %s::vector
+            LIMIT %s;
+        """
 
     pool_obj = get_pool()
     conn = pool_obj.getconn()
     try:
         with conn.cursor() as cur:
+            started = time.perf_counter()
             # ef_search higher = better recall, slower. Keep bounded for safety.
             cur.execute("SET LOCAL hnsw.ef_search = %s;", (ef_search,))
             cur.execute(sql, (vec_literal, vec_literal, payload.top_k))
             rows = cur.fetchall()
+            # The backend tunes ef_search on this, not on its round trip (HTTP, embedding and pool wait included).
+            response.headers[VECTOR_TIME_HEADER] = f"{(time.perf_counter() - started) * 1000:.3f}"
+    except errors.UndefinedTable:
+        if not table_name:
+            raise
+        # Deleted since it was cached: forget it, the next lookup reports it as unknown.
+        _versions.pop(payload.model_version, None)
+        raise HTTPException(status_code=400, detail=f"unknown model_version '{payload.model_version}'")
     finally:
+        # Ends the read transaction (and SET LOCAL) before the connection goes back to the pool.
+        conn.rollback()
         pool_obj.putconn(conn)
 
     results = [
@@ -137,6 +258,14 @@ def search_books(payload: SearchRequest):
     return results
 
 
+@app.post("/embed", response_model=List[List[float]])
+def embed_texts(payload: EmbedRequest):
+    # Batch encode for the backend ingestion pipeline; one forward pass per request.
+    model = get_model(payload.model)
+    vectors = model.encode(payload.texts, normalize_embeddings=True, batch_size=len(payload.texts))
+    return vectors.tolist()
+
+
 @app.get("/config")
 def config_info():
     return {
@@ -147,4 +276,7 @@ def config_info():
         "top_k_max": TOP_K_MAX,
         "ef_search_default": EF_SEARCH_DEFAULT,
         "ef_search_max": EF_SEARCH_MAX,
+        "embed_batch_max": EMBED_BATCH_MAX,
+        "allowed_models": sorted(ALLOWED_MODELS),
+        "model_cache_max": MODEL_CACHE_MAX,
     }
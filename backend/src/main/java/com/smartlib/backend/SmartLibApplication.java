@@ -2,8 +2,10 @@ package com.smartlib.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SmartLibApplication {
     public static void main(String[] args) {
         SpringApplication.run(SmartLibApplication.class, args);
@@ -0,0 +1,48 @@
+package com.smartlib.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private int stripes = 64;
+    private int maxKeysPerStripe = 4096;
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getStripes() { return stripes; }
+    public void setStripes(int stripes) { this.stripes = stripes; }
+
+    public int getMaxKeysPerStripe() { return maxKeysPerStripe; }
+    public void setMaxKeysPerStripe(int maxKeysPerStripe) { this.maxKeysPerStripe = maxKeysPerStripe; }
+
+    public Map<String, Route> getRoutes() { return routes; }
+    public void setRoutes(Map<String, Route> routes) { this.routes = routes; }
+
+    public static class Route {
+        private String path;
+        private List<String> methods = new ArrayList<>();
+        private int capacity;
+        private Duration refillPeriod = Duration.ofMinutes(1);
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public List<String> getMethods() { return methods; }
+        public void setMethods(List<String> methods) { this.methods = methods; }
+
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+
+        public Duration getRefillPeriod() { return refillPeriod; }
+        public void setRefillPeriod(Duration refillPeriod) { this.refillPeriod = refillPeriod; }
+    }
+}
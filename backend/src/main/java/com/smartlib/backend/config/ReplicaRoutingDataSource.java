@@ -0,0 +1,137 @@
+package com.smartlib.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only service transactions to a replica whose replay lag is within the configured bound and
+ * everything else to the primary. Spring Data's implicit read-only repository transactions stay on the primary:
+ * they back authentication and other lookups that must see a write the same client just made.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+    private static final String SPRING_DATA_TX_PREFIX = "org.springframework.data.";
+    private static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_lsn()::text";
+    // Replay lag in seconds, against the primary's WAL position read just before. A replica that has replayed up
+    // to it is current however old its last transaction is. One that is behind without a streaming WAL receiver
+    // only gets older, so it is infinitely behind; receive = replay alone cannot tell that apart from caught up.
+    private static final String LAG_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) THEN 0
+                WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming')
+                    THEN CAST('Infinity' AS float8)
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+
+    private final HikariDataSource primary;
+    private final Map<String, HikariDataSource> replicas;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, Map<String, HikariDataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        String txName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (txName != null && txName.startsWith(SPRING_DATA_TX_PREFIX)) {
+            return PRIMARY;
+        }
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.check-interval-ms:2000}")
+    public void checkReplicas() {
+        String primaryLsn = primaryLsn();
+        List<String> ok = new ArrayList<>();
+        for (Map.Entry<String, HikariDataSource> e : replicas.entrySet()) {
+            try (Connection c = e.getValue().getConnection();
+                 PreparedStatement st = c.prepareStatement(LAG_SQL)) {
+                st.setString(1, primaryLsn);
+                double lag;
+                try (ResultSet rs = st.executeQuery()) {
+                    lag = rs.next() ? rs.getDouble(1) : Double.MAX_VALUE;
+                }
+                if (lag <= maxLagSeconds) {
+                    ok.add(e.getKey());
+                } else if (healthy.contains(e.getKey()) && Double.isInfinite(lag)) {
+                    log.warn("Replica {} is behind and not streaming from the primary; routing its reads to the primary",
+                            e.getKey());
+                } else if (healthy.contains(e.getKey())) {
+                    log.warn("Replica {} is {}s behind; routing its reads to the primary", e.getKey(), lag);
+                }
+            } catch (Exception ex) {
+                if (healthy.contains(e.getKey())) {
+                    log.warn("Replica {} is unreachable; routing its reads to the primary: {}", e.getKey(), ex.getMessage());
+                }
+            }
+        }
+        for (String key : ok) {
+            if (!healthy.contains(key)) {
+                log.info("Replica {} is serving read-only transactions", key);
+            }
+        }
+        healthy = List.copyOf(ok);
+    }
+
+    /** The primary's current WAL position, or null when it cannot be read (then only streaming replicas qualify). */
+    private String primaryLsn() {
+        try (Connection c = primary.getConnection();
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery(PRIMARY_LSN_SQL)) {
+            return rs.next() ? rs.getString(1) : null;
+        } catch (Exception ex) {
+            log.debug("Could not read the primary WAL position: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    public List<String> healthyReplicas() {
+        return healthy;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
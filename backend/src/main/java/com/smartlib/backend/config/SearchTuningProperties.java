@@ -0,0 +1,73 @@
+package com.smartlib.backend.config;
+
+import com.smartlib.backend.dto.SearchLatencyClass;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "search.tuning")
+public class SearchTuningProperties {
+    private int efMax = 256;
+    private int adjustEvery = 20;
+    private double ewmaAlpha = 0.2;
+    private double headroom = 0.6;
+    private int increaseStep = 8;
+    private double decreaseFactor = 0.75;
+    private Map<SearchLatencyClass, ClassBudget> classes = new EnumMap<>(SearchLatencyClass.class);
+
+    public SearchTuningProperties() {
+        classes.put(SearchLatencyClass.INTERACTIVE, new ClassBudget(150, 16, 128, 64));
+        classes.put(SearchLatencyClass.RECOMMENDATION, new ClassBudget(400, 16, 192, 64));
+        classes.put(SearchLatencyClass.BATCH, new ClassBudget(2000, 64, 256, 128));
+    }
+
+    public int getEfMax() { return efMax; }
+    public void setEfMax(int efMax) { this.efMax = efMax; }
+
+    public int getAdjustEvery() { return adjustEvery; }
+    public void setAdjustEvery(int adjustEvery) { this.adjustEvery = adjustEvery; }
+
+    public double getEwmaAlpha() { return ewmaAlpha; }
+    public void setEwmaAlpha(double ewmaAlpha) { this.ewmaAlpha = ewmaAlpha; }
+
+    public double getHeadroom() { return headroom; }
+    public void setHeadroom(double headroom) { this.headroom = headroom; }
+
+    public int getIncreaseStep() { return increaseStep; }
+    public void setIncreaseStep(int increaseStep) { this.increaseStep = increaseStep; }
+
+    public double getDecreaseFactor() { return decreaseFactor; }
+    public void setDecreaseFactor(double decreaseFactor) { this.decreaseFactor = decreaseFactor; }
+
+    public Map<SearchLatencyClass, ClassBudget> getClasses() { return classes; }
+    public void setClasses(Map<SearchLatencyClass, ClassBudget> classes) { this.classes = classes; }
+
+    public static class ClassBudget {
+        private long budgetMs;
+        private int minEf;
+        private int maxEf;
+        private int initialEf;
+
+        public ClassBudget() {}
+
+        public ClassBudget(long budgetMs, int minEf, int maxEf, int initialEf) {
+            this.budgetMs = budgetMs;
+            this.minEf = minEf;
+            this.maxEf = maxEf;
+            this.initialEf = initialEf;
+        }
+
+        public long getBudgetMs() { return budgetMs; }
+        public void setBudgetMs(long budgetMs) { this.budgetMs = budgetMs; }
+
+        public int getMinEf() { return minEf; }
+        public void setMinEf(int minEf) { this.minEf = minEf; }
+
+        public int getMaxEf() { return maxEf; }
+        public void setMaxEf(int maxEf) { this.maxEf = maxEf; }
+
+        public int getInitialEf() { return initialEf; }
+        public void setInitialEf(int initialEf) { this.initialEf = initialEf; }
+    }
+}
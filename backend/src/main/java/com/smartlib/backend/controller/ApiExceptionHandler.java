@@ -1,5 +1,7 @@
 package com.smartlib.backend.controller;
 
+import com.smartlib.backend.security.ThrottledException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -34,6 +36,14 @@ public class ApiExceptionHandler {
                 .body(Map.of("error", "conflict", "message", ex.getMessage()));
     }
 
+    @ExceptionHandler(ThrottledException.class)
+    public ResponseEntity<Map<String, Object>> handleThrottled(ThrottledException ex) {
+        String error = ex.getStatus() == HttpStatus.TOO_MANY_REQUESTS ? "too_many_requests" : "unavailable";
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", error, "message", ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
         Map<String, String> fieldErrors = ex.getBindingResult()
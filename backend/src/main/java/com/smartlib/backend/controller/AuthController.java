@@ -6,44 +6,88 @@ import com.smartlib.backend.dto.UserCreateRequest;
 import com.smartlib.backend.entity.User;
 import com.smartlib.backend.repository.UserRepository;
 import com.smartlib.backend.security.JwtService;
+import com.smartlib.backend.security.LoginThrottle;
+import com.smartlib.backend.security.PasswordHashing;
+import com.smartlib.backend.security.ThrottledException;
 import com.smartlib.backend.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
     private final UserService userService;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashing passwordHashing;
+    private final LoginThrottle loginThrottle;
     private final JwtService jwtService;
+    private final Executor completionExecutor;
 
+    /**
+     * The hashing pool only hashes: the insert and the JWT signing after it finish on the MVC async executor, so
+     * they do not hold the few BCrypt threads.
+     */
     public AuthController(UserService userService, UserRepository userRepository,
-                          PasswordEncoder passwordEncoder, JwtService jwtService) {
+                          PasswordHashing passwordHashing, LoginThrottle loginThrottle, JwtService jwtService,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                          Executor completionExecutor) {
         this.userService = userService;
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
+        this.loginThrottle = loginThrottle;
         this.jwtService = jwtService;
+        this.completionExecutor = completionExecutor;
     }
 
     @PostMapping("/register")
-    public AuthResponse register(@Valid @RequestBody UserCreateRequest req) {
-        User user = userService.create(req);
-        String token = jwtService.generateToken(user.getUsername(), Map.of("role", user.getRole().name()));
-        return new AuthResponse(token);
+    public CompletableFuture<AuthResponse> register(@Valid @RequestBody UserCreateRequest req, HttpServletRequest request) {
+        loginThrottle.acquire(req.getUsername(), request.getRemoteAddr());
+        userService.ensureAvailable(req);
+        return hash(req.getUsername(), () -> passwordHashing.encode(req.getPassword()))
+                .thenApplyAsync(hash -> {
+                    AuthResponse response = new AuthResponse(token(userService.create(req, hash)));
+                    loginThrottle.refund(req.getUsername());
+                    return response;
+                }, completionExecutor);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest req) {
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody AuthRequest req, HttpServletRequest request) {
+        loginThrottle.acquire(req.getUsername(), request.getRemoteAddr());
         User user = userRepository.findByUsername(req.getUsername()).orElse(null);
-        if (user == null || !passwordEncoder.matches(req.getPassword(), user.getPasswordHash())) {
-            return ResponseEntity.status(401).build();
+        if (user == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).build());
         }
-        String token = jwtService.generateToken(user.getUsername(), Map.of("role", user.getRole().name()));
-        return ResponseEntity.ok(new AuthResponse(token));
+        return hash(req.getUsername(), () -> passwordHashing.matches(req.getPassword(), user.getPasswordHash()))
+                .thenApplyAsync(ok -> {
+                    if (!ok) {
+                        return ResponseEntity.status(401).<AuthResponse>build();
+                    }
+                    loginThrottle.refund(req.getUsername());
+                    return ResponseEntity.ok(new AuthResponse(token(user)));
+                }, completionExecutor);
+    }
+
+    /** An attempt the hashing pool turns away checked no password, so it keeps no username token either. */
+    private <T> CompletableFuture<T> hash(String username, Supplier<CompletableFuture<T>> submit) {
+        try {
+            return submit.get();
+        } catch (ThrottledException e) {
+            loginThrottle.refund(username);
+            throw e;
+        }
+    }
+
+    private String token(User user) {
+        return jwtService.generateToken(user.getUsername(), Map.of("role", user.getRole().name()));
     }
 }
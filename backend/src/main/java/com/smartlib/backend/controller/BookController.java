@@ -1,41 +1,135 @@
 package com.smartlib.backend.controller;
 
+import com.smartlib.backend.dto.TrendingBookResponse;
 import com.smartlib.backend.entity.Book;
 import com.smartlib.backend.service.BookService;
+import com.smartlib.backend.service.CatalogVersion;
+import com.smartlib.backend.service.CoverCache;
+import com.smartlib.backend.service.TrendingBooks;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final BookService bookService;
+    private final CatalogVersion catalogVersion;
+    private final TrendingBooks trendingBooks;
+    private final CoverCache coverCache;
+    private final CacheControl cacheControl;
+    private final CacheControl trendingCacheControl;
+    private final CacheControl coverCacheControl;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, CatalogVersion catalogVersion, TrendingBooks trendingBooks,
+                          CoverCache coverCache,
+                          @Value("${catalog.cache-max-age:60s}") Duration cacheMaxAge,
+                          @Value("${trending.refresh-ms:10000}") long trendingRefreshMs,
+                          @Value("${covers.max-age:7d}") Duration coverMaxAge) {
         this.bookService = bookService;
+        this.catalogVersion = catalogVersion;
+        this.trendingBooks = trendingBooks;
+        this.coverCache = coverCache;
+        // Shared caches must keep JSON, CBOR and Smile apart, hence Vary: Accept on every cacheable response.
+        this.cacheControl = CacheControl.maxAge(cacheMaxAge).cachePublic().mustRevalidate();
+        // The ranking only changes on refresh, so caches may keep it that long.
+        this.trendingCacheControl = CacheControl.maxAge(Duration.ofMillis(trendingRefreshMs)).cachePublic();
+        // A changed cover URL changes the ETag, so a stale copy is fixed by the next revalidation.
+        this.coverCacheControl = CacheControl.maxAge(coverMaxAge).cachePublic();
     }
 
     @GetMapping
-    public Page<Book> list(
+    public ResponseEntity<Page<Book>> list(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) Boolean available,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request
     ) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified();
+        }
         Pageable pageable = PageRequest.of(page, size);
-        return bookService.search(q, available, pageable);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT)
+                .body(bookService.search(q, available, pageable));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingBookResponse>> trending(@RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return ResponseEntity.ok().cacheControl(trendingCacheControl).varyBy(HttpHeaders.ACCEPT).body(trendingBooks.top(limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Book> get(@PathVariable Long id) {
+    public ResponseEntity<Book> get(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified();
+        }
         return bookService.findById(id)
-                .map(ResponseEntity::ok)
+                .map(book -> ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT).body(book))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/cover")
+    public void cover(@PathVariable Long id, @RequestParam(defaultValue = "medium") String size,
+                      WebRequest webRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        CoverCache.Cover cover = coverCache.get(id, CoverCache.size(size));
+        if (!cover.cached()) {
+            // The origin could not be used; let the client try it directly (get() only returns public URLs).
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            response.sendRedirect(cover.originUrl());
+            return;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, coverCacheControl.getHeaderValue());
+        if (webRequest.checkNotModified(cover.etag())) {
+            return;
+        }
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLengthLong(cover.length());
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file with sendfile(2) after the handler returns.
+            request.setAttribute(SENDFILE_FILENAME, cover.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, cover.length());
+            return;
+        }
+        try (FileChannel file = FileChannel.open(cover.file(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long sent = 0; sent < cover.length(); ) {
+                sent += file.transferTo(sent, cover.length() - sent, out);
+            }
+        }
+    }
+
     @PostMapping
     public Book create(@Valid @RequestBody Book book) {
         return bookService.create(book);
@@ -51,4 +145,8 @@ public class BookController {
         bookService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT).build();
+    }
 }
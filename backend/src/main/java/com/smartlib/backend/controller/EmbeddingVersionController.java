@@ -0,0 +1,48 @@
+package com.smartlib.backend.controller;
+
+import com.smartlib.backend.dto.EmbeddingVersionCreateRequest;
+import com.smartlib.backend.entity.EmbeddingVersion;
+import com.smartlib.backend.service.EmbeddingVersionService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/embeddings")
+@PreAuthorize("hasRole('ADMIN')")
+public class EmbeddingVersionController {
+    private final EmbeddingVersionService embeddingVersionService;
+
+    public EmbeddingVersionController(EmbeddingVersionService embeddingVersionService) {
+        this.embeddingVersionService = embeddingVersionService;
+    }
+
+    @GetMapping
+    public List<EmbeddingVersion> list() {
+        return embeddingVersionService.list();
+    }
+
+    @PostMapping
+    public ResponseEntity<EmbeddingVersion> create(@Valid @RequestBody EmbeddingVersionCreateRequest req) {
+        return ResponseEntity.accepted().body(embeddingVersionService.create(req));
+    }
+
+    @PostMapping("/{version}/activate")
+    public EmbeddingVersion activate(@PathVariable String version) {
+        return embeddingVersionService.activate(version);
+    }
+
+    @PostMapping("/{version}/sync")
+    public ResponseEntity<EmbeddingVersion> sync(@PathVariable String version) {
+        return ResponseEntity.accepted().body(embeddingVersionService.sync(version));
+    }
+
+    @DeleteMapping("/{version}")
+    public ResponseEntity<Void> delete(@PathVariable String version) {
+        embeddingVersionService.delete(version);
+        return ResponseEntity.noContent().build();
+    }
+}
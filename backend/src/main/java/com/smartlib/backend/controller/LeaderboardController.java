@@ -0,0 +1,40 @@
+package com.smartlib.backend.controller;
+
+import com.smartlib.backend.dto.LeaderboardResponse;
+import com.smartlib.backend.entity.User;
+import com.smartlib.backend.service.Leaderboards;
+import com.smartlib.backend.service.UserService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+
+@RestController
+@RequestMapping("/api/leaderboards")
+public class LeaderboardController {
+    static final int MAX_LIMIT = 100;
+
+    private final Leaderboards leaderboards;
+    private final UserService userService;
+
+    public LeaderboardController(Leaderboards leaderboards, UserService userService) {
+        this.leaderboards = leaderboards;
+        this.userService = userService;
+    }
+
+    @GetMapping
+    public LeaderboardResponse get(
+            Principal principal,
+            @RequestParam(defaultValue = "minutes") String metric,
+            @RequestParam(defaultValue = "week") String period,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        User user = userService.findByUsername(principal.getName());
+        return leaderboards.get(Leaderboards.metric(metric), Leaderboards.period(period), limit, user.getId());
+    }
+}
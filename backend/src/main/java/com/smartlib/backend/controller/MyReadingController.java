@@ -1,12 +1,22 @@
 package com.smartlib.backend.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.smartlib.backend.dto.*;
 import com.smartlib.backend.entity.ReadingStatus;
 import com.smartlib.backend.entity.User;
+import com.smartlib.backend.service.DashboardStreams;
+import com.smartlib.backend.service.IdempotencyStore;
 import com.smartlib.backend.service.MyReadingService;
 import com.smartlib.backend.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.security.Principal;
 import java.time.LocalDate;
@@ -15,43 +25,75 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/my")
 public class MyReadingController {
+    static final String CHANGE_VERSION_HEADER = "X-Change-Version";
+
     private final MyReadingService myReadingService;
     private final UserService userService;
+    private final IdempotencyStore idempotencyStore;
+    private final DashboardStreams dashboardStreams;
 
-    public MyReadingController(MyReadingService myReadingService, UserService userService) {
+    public MyReadingController(MyReadingService myReadingService, UserService userService,
+                               IdempotencyStore idempotencyStore, DashboardStreams dashboardStreams) {
         this.myReadingService = myReadingService;
         this.userService = userService;
+        this.idempotencyStore = idempotencyStore;
+        this.dashboardStreams = dashboardStreams;
     }
 
     @GetMapping("/books")
-    public List<MyBookResponse> listMyBooks(
+    public ResponseEntity<List<MyBookResponse>> listMyBooks(
+            Principal principal,
+            @RequestParam(required = false) ReadingStatus status,
+            WebRequest request
+    ) {
+        User user = userService.findByUsername(principal.getName());
+        String tag = versionTag(myReadingService.currentVersion(user));
+        if (request.checkNotModified(tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        // Read the version again with the rows: a replica serving them may be behind the one that answered above.
+        Versioned<List<MyBookResponse>> books = myReadingService.listMyBooks(user, status);
+        return ResponseEntity.ok()
+                .eTag(versionTag(books.getVersion()))
+                .varyBy(HttpHeaders.ACCEPT)
+                .header(CHANGE_VERSION_HEADER, Long.toString(books.getVersion()))
+                .body(books.getBody());
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<MyChangesResponse> changes(
             Principal principal,
-            @RequestParam(required = false) ReadingStatus status
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "false") boolean dashboard
     ) {
         User user = userService.findByUsername(principal.getName());
-        return myReadingService.listMyBooks(user, status);
+        return myReadingService.getChanges(user, since, dashboard)
+                .map(out -> ResponseEntity.ok().eTag(versionTag(out.getVersion())).varyBy(HttpHeaders.ACCEPT).body(out))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(versionTag(since))
+                        .varyBy(HttpHeaders.ACCEPT).build());
     }
 
     @PostMapping("/books")
-    public MyBookResponse addMyBook(Principal principal, @Valid @RequestBody MyBookCreateRequest req) {
+    public ResponseEntity<MyBookResponse> addMyBook(Principal principal, @Valid @RequestBody MyBookCreateRequest req) {
         User user = userService.findByUsername(principal.getName());
-        return myReadingService.addMyBook(user, req);
+        return withVersion(myReadingService.addMyBook(user, req));
     }
 
     @PatchMapping("/books/{id}")
-    public MyBookResponse updateMyBook(
+    public ResponseEntity<MyBookResponse> updateMyBook(
             Principal principal,
             @PathVariable Long id,
             @Valid @RequestBody MyBookUpdateRequest req
     ) {
         User user = userService.findByUsername(principal.getName());
-        return myReadingService.updateMyBook(user, id, req);
+        return withVersion(myReadingService.updateMyBook(user, id, req));
     }
 
     @DeleteMapping("/books/{id}")
-    public void deleteMyBook(Principal principal, @PathVariable Long id) {
+    public ResponseEntity<Void> deleteMyBook(Principal principal, @PathVariable Long id) {
         User user = userService.findByUsername(principal.getName());
-        myReadingService.deleteMyBook(user, id);
+        long version = myReadingService.deleteMyBook(user, id);
+        return ResponseEntity.ok().header(CHANGE_VERSION_HEADER, Long.toString(version)).build();
     }
 
     @GetMapping("/sessions")
@@ -67,12 +109,18 @@ public class MyReadingController {
     }
 
     @PostMapping("/sessions")
-    public ReadingSessionResponse createSession(
+    public ResponseEntity<ReadingSessionResponse> createSession(
             Principal principal,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody ReadingSessionCreateRequest req
     ) {
-        User user = userService.findByUsername(principal.getName());
-        return myReadingService.createSession(user, req);
+        if (idempotencyKey == null) {
+            User user = userService.findByUsername(principal.getName());
+            return withVersion(myReadingService.createSession(user, req));
+        }
+        return withVersion(idempotencyStore.execute("sessions:" + principal.getName(), idempotencyKey, req,
+                new TypeReference<Versioned<ReadingSessionResponse>>() {}, () ->
+                        myReadingService.createSession(userService.findByUsername(principal.getName()), req)));
     }
 
     @GetMapping("/goals")
@@ -82,12 +130,18 @@ public class MyReadingController {
     }
 
     @PutMapping("/goals")
-    public UserGoalResponse updateGoals(
+    public ResponseEntity<UserGoalResponse> updateGoals(
             Principal principal,
             @Valid @RequestBody UserGoalUpdateRequest req
     ) {
         User user = userService.findByUsername(principal.getName());
-        return myReadingService.updateGoals(user, req);
+        return withVersion(myReadingService.updateGoals(user, req));
+    }
+
+    @GetMapping("/home")
+    public MyHomeResponse getHome(Principal principal) {
+        User user = userService.findByUsername(principal.getName());
+        return myReadingService.getHome(user);
     }
 
     @GetMapping("/dashboard")
@@ -95,4 +149,30 @@ public class MyReadingController {
         User user = userService.findByUsername(principal.getName());
         return myReadingService.getDashboard(user);
     }
+
+    @GetMapping("/analytics")
+    public ReadingAnalyticsResponse getAnalytics(Principal principal) {
+        User user = userService.findByUsername(principal.getName());
+        return myReadingService.getAnalytics(user);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Principal principal, HttpServletResponse response) {
+        User user = userService.findByUsername(principal.getName());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        // Tells nginx-style proxies not to buffer the event stream.
+        response.setHeader("X-Accel-Buffering", "no");
+        return dashboardStreams.subscribe(user.getId());
+    }
+
+    private static <T> ResponseEntity<T> withVersion(Versioned<T> result) {
+        return ResponseEntity.ok()
+                .header(CHANGE_VERSION_HEADER, Long.toString(result.getVersion()))
+                .body(result.getBody());
+    }
+
+    /** Weak, like the catalog's: one version covers every format and encoding, and Tomcat only gzips weak tags. */
+    private static String versionTag(long version) {
+        return "W/\"" + version + "\"";
+    }
 }
@@ -0,0 +1,30 @@
+package com.smartlib.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AiSearchRequest {
+    private String query;
+
+    @JsonProperty("top_k")
+    private int topK;
+
+    @JsonProperty("ef_search")
+    private Integer efSearch;
+
+    @JsonProperty("model_version")
+    private String modelVersion;
+
+    public String getQuery() { return query; }
+    public void setQuery(String query) { this.query = query; }
+
+    public int getTopK() { return topK; }
+    public void setTopK(int topK) { this.topK = topK; }
+
+    public Integer getEfSearch() { return efSearch; }
+    public void setEfSearch(Integer efSearch) { this.efSearch = efSearch; }
+
+    public String getModelVersion() { return modelVersion; }
+    public void setModelVersion(String modelVersion) { this.modelVersion = modelVersion; }
+}
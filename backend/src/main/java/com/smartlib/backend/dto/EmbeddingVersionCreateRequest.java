@@ -0,0 +1,28 @@
+package com.smartlib.backend.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public class EmbeddingVersionCreateRequest {
+    @NotBlank
+    private String version;
+
+    @NotBlank
+    private String modelName;
+
+    @NotNull
+    @Min(1)
+    @Max(2000)
+    private Integer dimensions;
+
+    public String getVersion() { return version; }
+    public void setVersion(String version) { this.version = version; }
+
+    public String getModelName() { return modelName; }
+    public void setModelName(String modelName) { this.modelName = modelName; }
+
+    public Integer getDimensions() { return dimensions; }
+    public void setDimensions(Integer dimensions) { this.dimensions = dimensions; }
+}
@@ -0,0 +1,58 @@
+package com.smartlib.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LeaderboardResponse {
+    private String metric;
+    private String period;
+    private String periodStart;
+    private String periodEnd;
+    private long participants;
+    private List<Entry> entries = new ArrayList<>();
+    private Entry me;
+
+    public String getMetric() { return metric; }
+    public void setMetric(String metric) { this.metric = metric; }
+
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+
+    public String getPeriodStart() { return periodStart; }
+    public void setPeriodStart(String periodStart) { this.periodStart = periodStart; }
+
+    public String getPeriodEnd() { return periodEnd; }
+    public void setPeriodEnd(String periodEnd) { this.periodEnd = periodEnd; }
+
+    public long getParticipants() { return participants; }
+    public void setParticipants(long participants) { this.participants = participants; }
+
+    public List<Entry> getEntries() { return entries; }
+    public void setEntries(List<Entry> entries) { this.entries = entries; }
+
+    public Entry getMe() { return me; }
+    public void setMe(Entry me) { this.me = me; }
+
+    public static class Entry {
+        private long rank;
+        private String username;
+        private long score;
+
+        public Entry() {}
+
+        public Entry(long rank, String username, long score) {
+            this.rank = rank;
+            this.username = username;
+            this.score = score;
+        }
+
+        public long getRank() { return rank; }
+        public void setRank(long rank) { this.rank = rank; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public long getScore() { return score; }
+        public void setScore(long score) { this.score = score; }
+    }
+}
@@ -13,6 +13,10 @@ public class MyBookResponse {
     private Integer progressPercent;
     private String startedAt;
     private String finishedAt;
+    private int totalMinutesRead;
+    private int totalPagesRead;
+    private String lastSessionDate;
+    private Long changeVersion;
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -43,4 +47,16 @@ public class MyBookResponse {
 
     public String getFinishedAt() { return finishedAt; }
     public void setFinishedAt(String finishedAt) { this.finishedAt = finishedAt; }
+
+    public int getTotalMinutesRead() { return totalMinutesRead; }
+    public void setTotalMinutesRead(int totalMinutesRead) { this.totalMinutesRead = totalMinutesRead; }
+
+    public int getTotalPagesRead() { return totalPagesRead; }
+    public void setTotalPagesRead(int totalPagesRead) { this.totalPagesRead = totalPagesRead; }
+
+    public String getLastSessionDate() { return lastSessionDate; }
+    public void setLastSessionDate(String lastSessionDate) { this.lastSessionDate = lastSessionDate; }
+
+    public Long getChangeVersion() { return changeVersion; }
+    public void setChangeVersion(Long changeVersion) { this.changeVersion = changeVersion; }
 }
@@ -0,0 +1,27 @@
+package com.smartlib.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MyChangesResponse {
+    private long version;
+    private boolean reset;
+    private List<MyBookResponse> books = new ArrayList<>();
+    private List<Long> deletedIds = new ArrayList<>();
+    private MyDashboardResponse dashboard;
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+
+    public List<MyBookResponse> getBooks() { return books; }
+    public void setBooks(List<MyBookResponse> books) { this.books = books; }
+
+    public List<Long> getDeletedIds() { return deletedIds; }
+    public void setDeletedIds(List<Long> deletedIds) { this.deletedIds = deletedIds; }
+
+    public MyDashboardResponse getDashboard() { return dashboard; }
+    public void setDashboard(MyDashboardResponse dashboard) { this.dashboard = dashboard; }
+}
@@ -0,0 +1,81 @@
+package com.smartlib.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Objects;
+
+/** Fields of {@link MyDashboardResponse} that changed since the last event on a stream; unchanged ones are omitted. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MyDashboardDelta {
+    private long version;
+    private Long totalBooks;
+    private Long toReadBooks;
+    private Long readingBooks;
+    private Long finishedBooks;
+    private Integer minutesReadThisMonth;
+    private Integer minutesReadToday;
+    private Integer booksPerMonthGoal;
+    private Integer minutesPerDayGoal;
+    private List<MyDashboardResponse.MonthlyCount> monthlyFinished;
+    private List<MyDashboardResponse.RecentSession> recentSessions;
+
+    public static MyDashboardDelta between(MyDashboardResponse before, MyDashboardResponse after, long version) {
+        MyDashboardDelta d = new MyDashboardDelta();
+        d.version = version;
+        d.totalBooks = changed(before.getTotalBooks(), after.getTotalBooks());
+        d.toReadBooks = changed(before.getToReadBooks(), after.getToReadBooks());
+        d.readingBooks = changed(before.getReadingBooks(), after.getReadingBooks());
+        d.finishedBooks = changed(before.getFinishedBooks(), after.getFinishedBooks());
+        d.minutesReadThisMonth = changed(before.getMinutesReadThisMonth(), after.getMinutesReadThisMonth());
+        d.minutesReadToday = changed(before.getMinutesReadToday(), after.getMinutesReadToday());
+        d.booksPerMonthGoal = changed(before.getBooksPerMonthGoal(), after.getBooksPerMonthGoal());
+        d.minutesPerDayGoal = changed(before.getMinutesPerDayGoal(), after.getMinutesPerDayGoal());
+        d.monthlyFinished = changed(before.getMonthlyFinished(), after.getMonthlyFinished());
+        d.recentSessions = changed(before.getRecentSessions(), after.getRecentSessions());
+        return d;
+    }
+
+    private static <T> T changed(T before, T after) {
+        return Objects.equals(before, after) ? null : after;
+    }
+
+    public boolean hasChanges() {
+        return totalBooks != null || toReadBooks != null || readingBooks != null || finishedBooks != null
+                || minutesReadThisMonth != null || minutesReadToday != null || booksPerMonthGoal != null
+                || minutesPerDayGoal != null || monthlyFinished != null || recentSessions != null;
+    }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public Long getTotalBooks() { return totalBooks; }
+    public void setTotalBooks(Long totalBooks) { this.totalBooks = totalBooks; }
+
+    public Long getToReadBooks() { return toReadBooks; }
+    public void setToReadBooks(Long toReadBooks) { this.toReadBooks = toReadBooks; }
+
+    public Long getReadingBooks() { return readingBooks; }
+    public void setReadingBooks(Long readingBooks) { this.readingBooks = readingBooks; }
+
+    public Long getFinishedBooks() { return finishedBooks; }
+    public void setFinishedBooks(Long finishedBooks) { this.finishedBooks = finishedBooks; }
+
+    public Integer getMinutesReadThisMonth() { return minutesReadThisMonth; }
+    public void setMinutesReadThisMonth(Integer minutesReadThisMonth) { this.minutesReadThisMonth = minutesReadThisMonth; }
+
+    public Integer getMinutesReadToday() { return minutesReadToday; }
+    public void setMinutesReadToday(Integer minutesReadToday) { this.minutesReadToday = minutesReadToday; }
+
+    public Integer getBooksPerMonthGoal() { return booksPerMonthGoal; }
+    public void setBooksPerMonthGoal(Integer booksPerMonthGoal) { this.booksPerMonthGoal = booksPerMonthGoal; }
+
+    public Integer getMinutesPerDayGoal() { return minutesPerDayGoal; }
+    public void setMinutesPerDayGoal(Integer minutesPerDayGoal) { this.minutesPerDayGoal = minutesPerDayGoal; }
+
+    public List<MyDashboardResponse.MonthlyCount> getMonthlyFinished() { return monthlyFinished; }
+    public void setMonthlyFinished(List<MyDashboardResponse.MonthlyCount> monthlyFinished) { this.monthlyFinished = monthlyFinished; }
+
+    public List<MyDashboardResponse.RecentSession> getRecentSessions() { return recentSessions; }
+    public void setRecentSessions(List<MyDashboardResponse.RecentSession> recentSessions) { this.recentSessions = recentSessions; }
+}
@@ -2,6 +2,7 @@ package com.smartlib.backend.dto;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class MyDashboardResponse {
     private long totalBooks;
@@ -61,6 +62,14 @@ public class MyDashboardResponse {
 
         public long getCount() { return count; }
         public void setCount(long count) { this.count = count; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MonthlyCount other && count == other.count && Objects.equals(month, other.month);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(month, count); }
     }
 
     public static class RecentSession {
@@ -99,5 +108,16 @@ public class MyDashboardResponse {
 
         public int getPagesRead() { return pagesRead; }
         public void setPagesRead(int pagesRead) { this.pagesRead = pagesRead; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RecentSession other && Objects.equals(id, other.id)
+                    && Objects.equals(bookId, other.bookId) && Objects.equals(bookTitle, other.bookTitle)
+                    && Objects.equals(sessionDate, other.sessionDate)
+                    && minutesRead == other.minutesRead && pagesRead == other.pagesRead;
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(id, bookId, sessionDate, minutesRead, pagesRead); }
     }
 }
@@ -0,0 +1,45 @@
+package com.smartlib.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MyHomeResponse {
+    private long version;
+    private Profile user;
+    private List<MyBookResponse> books = new ArrayList<>();
+    private MyDashboardResponse dashboard;
+    private UserGoalResponse goals;
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public Profile getUser() { return user; }
+    public void setUser(Profile user) { this.user = user; }
+
+    public List<MyBookResponse> getBooks() { return books; }
+    public void setBooks(List<MyBookResponse> books) { this.books = books; }
+
+    public MyDashboardResponse getDashboard() { return dashboard; }
+    public void setDashboard(MyDashboardResponse dashboard) { this.dashboard = dashboard; }
+
+    public UserGoalResponse getGoals() { return goals; }
+    public void setGoals(UserGoalResponse goals) { this.goals = goals; }
+
+    public static class Profile {
+        private String username;
+        private String email;
+
+        public Profile() {}
+
+        public Profile(String username, String email) {
+            this.username = username;
+            this.email = email;
+        }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+    }
+}
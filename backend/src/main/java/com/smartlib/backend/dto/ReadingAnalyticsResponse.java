@@ -0,0 +1,63 @@
+package com.smartlib.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReadingAnalyticsResponse {
+    private int currentStreak;
+    private int longestStreak;
+    private String longestStreakEnd;
+    private String heatmapStart;
+    private int[] heatmap;
+    private double pagesPerMinute;
+    private List<BookVelocity> books = new ArrayList<>();
+
+    public int getCurrentStreak() { return currentStreak; }
+    public void setCurrentStreak(int currentStreak) { this.currentStreak = currentStreak; }
+
+    public int getLongestStreak() { return longestStreak; }
+    public void setLongestStreak(int longestStreak) { this.longestStreak = longestStreak; }
+
+    public String getLongestStreakEnd() { return longestStreakEnd; }
+    public void setLongestStreakEnd(String longestStreakEnd) { this.longestStreakEnd = longestStreakEnd; }
+
+    public String getHeatmapStart() { return heatmapStart; }
+    public void setHeatmapStart(String heatmapStart) { this.heatmapStart = heatmapStart; }
+
+    public int[] getHeatmap() { return heatmap; }
+    public void setHeatmap(int[] heatmap) { this.heatmap = heatmap; }
+
+    public double getPagesPerMinute() { return pagesPerMinute; }
+    public void setPagesPerMinute(double pagesPerMinute) { this.pagesPerMinute = pagesPerMinute; }
+
+    public List<BookVelocity> getBooks() { return books; }
+    public void setBooks(List<BookVelocity> books) { this.books = books; }
+
+    public static class BookVelocity {
+        private Long bookId;
+        private long minutesRead;
+        private long pagesRead;
+        private double pagesPerMinute;
+
+        public BookVelocity() {}
+
+        public BookVelocity(Long bookId, long minutesRead, long pagesRead, double pagesPerMinute) {
+            this.bookId = bookId;
+            this.minutesRead = minutesRead;
+            this.pagesRead = pagesRead;
+            this.pagesPerMinute = pagesPerMinute;
+        }
+
+        public Long getBookId() { return bookId; }
+        public void setBookId(Long bookId) { this.bookId = bookId; }
+
+        public long getMinutesRead() { return minutesRead; }
+        public void setMinutesRead(long minutesRead) { this.minutesRead = minutesRead; }
+
+        public long getPagesRead() { return pagesRead; }
+        public void setPagesRead(long pagesRead) { this.pagesRead = pagesRead; }
+
+        public double getPagesPerMinute() { return pagesPerMinute; }
+        public void setPagesPerMinute(double pagesPerMinute) { this.pagesPerMinute = pagesPerMinute; }
+    }
+}
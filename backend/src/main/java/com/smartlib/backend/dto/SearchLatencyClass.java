@@ -0,0 +1,7 @@
+package com.smartlib.backend.dto;
+
+public enum SearchLatencyClass {
+    INTERACTIVE,
+    RECOMMENDATION,
+    BATCH
+}
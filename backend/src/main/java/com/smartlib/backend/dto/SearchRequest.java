@@ -14,9 +14,29 @@ public class SearchRequest {
     @Max(50)
     private int topK = 10;
 
+    @JsonProperty("model_version")
+    private String modelVersion;
+
+    @JsonProperty("latency_class")
+    private SearchLatencyClass latencyClass = SearchLatencyClass.INTERACTIVE;
+
+    @JsonProperty("ef_search")
+    @Min(8)
+    @Max(256)
+    private Integer efSearch;
+
     public String getQuery() { return query; }
     public void setQuery(String query) { this.query = query; }
 
     public int getTopK() { return topK; }
     public void setTopK(int topK) { this.topK = topK; }
+
+    public String getModelVersion() { return modelVersion; }
+    public void setModelVersion(String modelVersion) { this.modelVersion = modelVersion; }
+
+    public SearchLatencyClass getLatencyClass() { return latencyClass; }
+    public void setLatencyClass(SearchLatencyClass latencyClass) { this.latencyClass = latencyClass; }
+
+    public Integer getEfSearch() { return efSearch; }
+    public void setEfSearch(Integer efSearch) { this.efSearch = efSearch; }
 }
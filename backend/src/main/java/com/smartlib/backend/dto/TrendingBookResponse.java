@@ -0,0 +1,34 @@
+package com.smartlib.backend.dto;
+
+public class TrendingBookResponse {
+    private Long id;
+    private String title;
+    private String author;
+    private String imageUrl;
+    private long score;
+
+    public TrendingBookResponse() {}
+
+    public TrendingBookResponse(Long id, String title, String author, String imageUrl, long score) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.imageUrl = imageUrl;
+        this.score = score;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public long getScore() { return score; }
+    public void setScore(long score) { this.score = score; }
+}
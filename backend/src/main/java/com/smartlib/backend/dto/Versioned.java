@@ -0,0 +1,18 @@
+package com.smartlib.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class Versioned<T> {
+    private final T body;
+    private final long version;
+
+    @JsonCreator
+    public Versioned(@JsonProperty("body") T body, @JsonProperty("version") long version) {
+        this.body = body;
+        this.version = version;
+    }
+
+    public T getBody() { return body; }
+    public long getVersion() { return version; }
+}
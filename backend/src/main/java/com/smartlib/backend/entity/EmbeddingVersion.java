@@ -0,0 +1,81 @@
+package com.smartlib.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "embedding_versions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_embedding_version", columnNames = {"version"})
+})
+public class EmbeddingVersion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 40)
+    private String version;
+
+    @Column(nullable = false)
+    private String modelName;
+
+    @Column(nullable = false)
+    private Integer dimensions;
+
+    @Column(nullable = false)
+    private String tableName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmbeddingVersionStatus status = EmbeddingVersionStatus.BUILDING;
+
+    private Long builtRows;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime activatedAt;
+
+    private LocalDateTime heartbeatAt;
+
+    @PrePersist
+    public void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getVersion() { return version; }
+    public void setVersion(String version) { this.version = version; }
+
+    public String getModelName() { return modelName; }
+    public void setModelName(String modelName) { this.modelName = modelName; }
+
+    public Integer getDimensions() { return dimensions; }
+    public void setDimensions(Integer dimensions) { this.dimensions = dimensions; }
+
+    public String getTableName() { return tableName; }
+    public void setTableName(String tableName) { this.tableName = tableName; }
+
+    public EmbeddingVersionStatus getStatus() { return status; }
+    public void setStatus(EmbeddingVersionStatus status) { this.status = status; }
+
+    public Long getBuiltRows() { return builtRows; }
+    public void setBuiltRows(Long builtRows) { this.builtRows = builtRows; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getActivatedAt() { return activatedAt; }
+    public void setActivatedAt(LocalDateTime activatedAt) { this.activatedAt = activatedAt; }
+
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+}
@@ -0,0 +1,8 @@
+package com.smartlib.backend.entity;
+
+public enum EmbeddingVersionStatus {
+    BUILDING,
+    READY,
+    ACTIVE,
+    FAILED
+}
@@ -0,0 +1,40 @@
+package com.smartlib.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ingest_checkpoints")
+public class IngestCheckpoint {
+    @Id
+    @Column(length = 255)
+    private String keyword;
+
+    @Column(nullable = false)
+    private Integer nextStartIndex = 0;
+
+    @Column(nullable = false)
+    private Boolean completed = false;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void onWrite() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getKeyword() { return keyword; }
+    public void setKeyword(String keyword) { this.keyword = keyword; }
+
+    public Integer getNextStartIndex() { return nextStartIndex; }
+    public void setNextStartIndex(Integer nextStartIndex) { this.nextStartIndex = nextStartIndex; }
+
+    public Boolean getCompleted() { return completed; }
+    public void setCompleted(Boolean completed) { this.completed = completed; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
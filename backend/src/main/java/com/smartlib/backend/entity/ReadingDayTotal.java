@@ -0,0 +1,56 @@
+package com.smartlib.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Per-day, per-book rollup of reading sessions from months whose partitions were dropped (see V2 migration).
+ * Written only by the database; mapped so the schema is validated and analytics can read it.
+ */
+@Entity
+@Table(name = "reading_day_totals")
+@IdClass(ReadingDayTotal.Key.class)
+public class ReadingDayTotal {
+    @Id
+    private Long userId;
+
+    @Id
+    private LocalDate day;
+
+    @Id
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Integer sessions;
+
+    @Column(nullable = false)
+    private Integer minutesRead;
+
+    @Column(nullable = false)
+    private Integer pagesRead;
+
+    public Long getUserId() { return userId; }
+    public LocalDate getDay() { return day; }
+    public Long getBookId() { return bookId; }
+    public Integer getSessions() { return sessions; }
+    public Integer getMinutesRead() { return minutesRead; }
+    public Integer getPagesRead() { return pagesRead; }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate day;
+        private Long bookId;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Objects.equals(userId, other.userId)
+                    && Objects.equals(day, other.day) && Objects.equals(bookId, other.bookId);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(userId, day, bookId); }
+    }
+}
@@ -12,6 +12,9 @@ import java.time.LocalDateTime;
         name = "user_books",
         uniqueConstraints = {
                 @UniqueConstraint(name = "uk_user_book", columnNames = {"user_id", "book_id"})
+        },
+        indexes = {
+                @Index(name = "idx_user_books_user_change_version", columnList = "user_id, changeVersion")
         }
 )
 public class UserBook {
@@ -43,6 +46,12 @@ public class UserBook {
     private LocalDate startedAt;
     private LocalDate finishedAt;
 
+    private Integer totalMinutesRead = 0;
+    private Integer totalPagesRead = 0;
+    private LocalDate lastSessionDate;
+
+    private Long changeVersion;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -85,6 +94,18 @@ public class UserBook {
     public LocalDate getFinishedAt() { return finishedAt; }
     public void setFinishedAt(LocalDate finishedAt) { this.finishedAt = finishedAt; }
 
+    public Integer getTotalMinutesRead() { return totalMinutesRead; }
+    public void setTotalMinutesRead(Integer totalMinutesRead) { this.totalMinutesRead = totalMinutesRead; }
+
+    public Integer getTotalPagesRead() { return totalPagesRead; }
+    public void setTotalPagesRead(Integer totalPagesRead) { this.totalPagesRead = totalPagesRead; }
+
+    public LocalDate getLastSessionDate() { return lastSessionDate; }
+    public void setLastSessionDate(LocalDate lastSessionDate) { this.lastSessionDate = lastSessionDate; }
+
+    public Long getChangeVersion() { return changeVersion; }
+    public void setChangeVersion(Long changeVersion) { this.changeVersion = changeVersion; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -0,0 +1,47 @@
+package com.smartlib.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "user_book_tombstones",
+        indexes = {
+                @Index(name = "idx_user_book_tombstones_user_change_version", columnList = "userId, changeVersion")
+        }
+)
+public class UserBookTombstone {
+    @Id
+    private Long userBookId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long changeVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    public UserBookTombstone() {}
+
+    public UserBookTombstone(Long userBookId, Long userId, Long changeVersion) {
+        this.userBookId = userBookId;
+        this.userId = userId;
+        this.changeVersion = changeVersion;
+        this.deletedAt = LocalDateTime.now();
+    }
+
+    public Long getUserBookId() { return userBookId; }
+    public void setUserBookId(Long userBookId) { this.userBookId = userBookId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getChangeVersion() { return changeVersion; }
+    public void setChangeVersion(Long changeVersion) { this.changeVersion = changeVersion; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
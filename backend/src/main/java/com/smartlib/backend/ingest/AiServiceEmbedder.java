@@ -0,0 +1,53 @@
+package com.smartlib.backend.ingest;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AiServiceEmbedder implements Embedder {
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final String baseUrl;
+
+    public AiServiceEmbedder(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts, String model) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        Map<String, Object> body = new HashMap<>();
+        body.put("texts", texts);
+        if (model != null) {
+            body.put("model", model);
+        }
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+        List<List<Double>> vectors = restTemplate.exchange(
+                baseUrl + "/embed",
+                HttpMethod.POST,
+                entity,
+                new ParameterizedTypeReference<List<List<Double>>>() {}
+        ).getBody();
+        if (vectors == null || vectors.size() != texts.size()) {
+            throw new IllegalStateException("AI service returned " + (vectors == null ? 0 : vectors.size())
+                    + " embeddings for " + texts.size() + " texts");
+        }
+        List<float[]> out = new ArrayList<>(vectors.size());
+        for (List<Double> vector : vectors) {
+            float[] values = new float[vector.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = vector.get(i).floatValue();
+            }
+            out.add(values);
+        }
+        return out;
+    }
+}
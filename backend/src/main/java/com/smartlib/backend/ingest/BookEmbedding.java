@@ -0,0 +1,14 @@
+package com.smartlib.backend.ingest;
+
+public class BookEmbedding {
+    private final long bookId;
+    private final float[] embedding;
+
+    public BookEmbedding(long bookId, float[] embedding) {
+        this.bookId = bookId;
+        this.embedding = embedding;
+    }
+
+    public long getBookId() { return bookId; }
+    public float[] getEmbedding() { return embedding; }
+}
@@ -0,0 +1,7 @@
+package com.smartlib.backend.ingest;
+
+import java.util.List;
+
+public interface BookSource {
+    List<IngestedBook> fetchPage(String keyword, int startIndex, int pageSize);
+}
@@ -0,0 +1,85 @@
+package com.smartlib.backend.ingest;
+
+import com.smartlib.backend.entity.IngestCheckpoint;
+import com.smartlib.backend.repository.IngestCheckpointRepository;
+import com.smartlib.backend.service.InvalidationBus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Component
+public class BookUpsertWriter {
+    private static final String UPSERT_SQL = """
+        INSERT INTO books (
+            google_books_id, title, author, description, image_url, published_date,
+            isbn, total_copies, available_copies, embedding
+        )
+        VALUES (?, ?, ?, ?, ?, ?, ?, 1, 1, ?::vector)
+        ON CONFLICT (google_books_id) DO UPDATE SET
+            title = EXCLUDED.title,
+            author = EXCLUDED.author,
+            description = EXCLUDED.description,
+            image_url = EXCLUDED.image_url,
+            published_date = EXCLUDED.published_date,
+            isbn = EXCLUDED.isbn,
+            embedding = EXCLUDED.embedding
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestCheckpointRepository checkpointRepository;
+    private final BulkBookLoader bulkLoader;
+    private final IngestProperties props;
+    private final InvalidationBus invalidationBus;
+
+    public BookUpsertWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            IngestCheckpointRepository checkpointRepository, BulkBookLoader bulkLoader,
+                            IngestProperties props, InvalidationBus invalidationBus) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.bulkLoader = bulkLoader;
+        this.props = props;
+        this.invalidationBus = invalidationBus;
+    }
+
+    public void write(List<IngestedBook> books, Collection<IngestCheckpoint> checkpoints) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (books.size() >= props.getCopyMinRows()) {
+                bulkLoader.copyBooks(books.iterator());
+            } else if (!books.isEmpty()) {
+                List<Object[]> args = new ArrayList<>(books.size());
+                for (IngestedBook b : books) {
+                    args.add(new Object[]{
+                            b.getGoogleBooksId(), b.getTitle(), b.getAuthor(), b.getDescription(),
+                            b.getImageUrl(), b.getPublishedDate(), b.getIsbn(), toVectorLiteral(b.getEmbedding())
+                    });
+                }
+                jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+            }
+            if (!checkpoints.isEmpty()) {
+                checkpointRepository.saveAll(checkpoints);
+            }
+        });
+        if (!books.isEmpty()) {
+            invalidationBus.publish(InvalidationBus.BOOKS, null);
+        }
+    }
+
+    static String toVectorLiteral(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(vector.length * 10);
+        sb.append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,204 @@
+package com.smartlib.backend.ingest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.regex.Pattern;
+
+@Component
+public class BulkBookLoader {
+    private static final Logger log = LoggerFactory.getLogger(BulkBookLoader.class);
+    private static final Pattern EMBEDDING_TABLE = Pattern.compile("book_embeddings_[a-z0-9_]{1,40}");
+
+    private static final String MERGE_BOOKS_SQL = """
+        INSERT INTO books (
+            google_books_id, title, author, description, image_url, published_date,
+            isbn, total_copies, available_copies, embedding
+        )
+        SELECT DISTINCT ON (google_books_id)
+            google_books_id, title, author, description, image_url, published_date,
+            isbn, 1, 1, embedding
+        FROM books_staging
+        ORDER BY google_books_id, seq DESC
+        ON CONFLICT (google_books_id) DO UPDATE SET
+            title = EXCLUDED.title,
+            author = EXCLUDED.author,
+            description = EXCLUDED.description,
+            image_url = EXCLUDED.image_url,
+            published_date = EXCLUDED.published_date,
+            isbn = EXCLUDED.isbn,
+            embedding = EXCLUDED.embedding
+        """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestProperties props;
+
+    public BulkBookLoader(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate, IngestProperties props) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.props = props;
+    }
+
+    public int copyBooks(Iterator<IngestedBook> rows) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("""
+                CREATE TEMP TABLE books_staging (
+                    seq BIGINT,
+                    google_books_id TEXT,
+                    title TEXT,
+                    author TEXT,
+                    description TEXT,
+                    image_url TEXT,
+                    published_date TEXT,
+                    isbn TEXT,
+                    embedding vector
+                ) ON COMMIT DROP
+                """);
+            long copied = copy("COPY books_staging FROM STDIN (FORMAT binary)", writer -> {
+                long seq = 0;
+                while (rows.hasNext()) {
+                    IngestedBook b = rows.next();
+                    writer.startRow(9);
+                    writer.writeLong(seq++);
+                    writer.writeText(b.getGoogleBooksId());
+                    writer.writeText(b.getTitle());
+                    writer.writeText(b.getAuthor());
+                    writer.writeText(b.getDescription());
+                    writer.writeText(b.getImageUrl());
+                    writer.writeText(b.getPublishedDate());
+                    writer.writeText(b.getIsbn());
+                    writer.writeVector(b.getEmbedding());
+                }
+                return seq;
+            });
+            int merged = jdbcTemplate.update(MERGE_BOOKS_SQL);
+            jdbcTemplate.execute("DROP TABLE books_staging");
+            log.debug("Copied {} staged books, merged {}", copied, merged);
+            return merged;
+        });
+    }
+
+    /**
+     * Stages the embeddings and merges them into a per-version embedding table created by
+     * {@link #createEmbeddingTable}; {@code books.embedding} is only written by ingestion.
+     */
+    public int copyEmbeddings(Iterator<BookEmbedding> rows, String targetTable) {
+        String mergeSql = """
+            INSERT INTO %s (book_id, embedding)
+            SELECT DISTINCT ON (book_id) book_id, embedding FROM book_embeddings_staging
+            ON CONFLICT (book_id) DO UPDATE SET embedding = EXCLUDED.embedding
+            """.formatted(checkTable(targetTable));
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("""
+                CREATE TEMP TABLE book_embeddings_staging (
+                    book_id BIGINT,
+                    embedding vector
+                ) ON COMMIT DROP
+                """);
+            long copied = copy("COPY book_embeddings_staging FROM STDIN (FORMAT binary)", writer -> {
+                long n = 0;
+                while (rows.hasNext()) {
+                    BookEmbedding e = rows.next();
+                    writer.startRow(2);
+                    writer.writeLong(e.getBookId());
+                    writer.writeVector(e.getEmbedding());
+                    n++;
+                }
+                return n;
+            });
+            log.info("Staged {} embeddings, merging into {}", copied, targetTable);
+            int merged = jdbcTemplate.update(mergeSql);
+            jdbcTemplate.execute("DROP TABLE book_embeddings_staging");
+            return merged;
+        });
+    }
+
+    public void createEmbeddingTable(String table, int dimensions) {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS %s (
+                book_id BIGINT PRIMARY KEY REFERENCES books(id) ON DELETE CASCADE,
+                embedding vector(%d) NOT NULL
+            )
+            """.formatted(checkTable(table), dimensions));
+    }
+
+    public void dropEmbeddingTable(String table) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + checkTable(table));
+    }
+
+    public void buildEmbeddingIndex(String table) {
+        buildVectorIndex(checkTable(table), table + "_hnsw");
+        jdbcTemplate.execute("ANALYZE " + table);
+    }
+
+    private void buildVectorIndex(String table, String indexName) {
+        long started = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL maintenance_work_mem = '" + props.getIndexMaintenanceWorkMem() + "'");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + indexName
+                    + " ON " + table + " USING hnsw (embedding vector_cosine_ops)");
+        });
+        log.info("Built {} in {} ms", indexName, System.currentTimeMillis() - started);
+    }
+
+    static String checkTable(String table) {
+        if (table == null || !EMBEDDING_TABLE.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid embedding table name: " + table);
+        }
+        return table;
+    }
+
+    private long copy(String sql, CopyBody body) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        PGCopyOutputStream stream = null;
+        try {
+            stream = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql);
+            PgBinaryCopyWriter writer = new PgBinaryCopyWriter(stream);
+            long rows = body.write(writer);
+            writer.close();
+            return rows;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("COPY failed: " + ex.getMessage(), ex);
+        } catch (IOException ex) {
+            cancel(stream);
+            throw new UncheckedIOException("COPY stream failed", ex);
+        } catch (RuntimeException ex) {
+            cancel(stream);
+            throw ex;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void cancel(PGCopyOutputStream stream) {
+        if (stream == null || !stream.isActive()) {
+            return;
+        }
+        try {
+            stream.cancelCopy();
+        } catch (SQLException ex) {
+            log.warn("Could not cancel COPY: {}", ex.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface CopyBody {
+        long write(PgBinaryCopyWriter writer) throws IOException;
+    }
+}
@@ -0,0 +1,10 @@
+package com.smartlib.backend.ingest;
+
+import java.util.List;
+
+public interface Embedder {
+    /**
+     * Encodes the texts with the given model, or with the AI service's default model when {@code model} is null.
+     */
+    List<float[]> embed(List<String> texts, String model);
+}
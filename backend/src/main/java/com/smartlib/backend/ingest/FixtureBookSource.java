@@ -0,0 +1,52 @@
+package com.smartlib.backend.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FixtureBookSource implements BookSource {
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final Map<String, List<IngestedBook>> loaded = new ConcurrentHashMap<>();
+
+    public FixtureBookSource(Path dir, ObjectMapper objectMapper) {
+        this.dir = dir;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<IngestedBook> fetchPage(String keyword, int startIndex, int pageSize) {
+        List<IngestedBook> all = loaded.computeIfAbsent(keyword, this::load);
+        if (startIndex >= all.size()) {
+            return List.of();
+        }
+        return all.subList(startIndex, Math.min(all.size(), startIndex + pageSize));
+    }
+
+    private List<IngestedBook> load(String keyword) {
+        Path file = dir.resolve(slug(keyword) + ".json");
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            JsonNode root = objectMapper.readTree(file.toFile());
+            return VolumeMapper.fromVolumes(root);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read fixture " + file, ex);
+        }
+    }
+
+    static String slug(String keyword) {
+        String ascii = Normalizer.normalize(keyword, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return ascii.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+    }
+}
@@ -0,0 +1,93 @@
+package com.smartlib.backend.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+
+public class GoogleBooksSource implements BookSource {
+    private static final Logger log = LoggerFactory.getLogger(GoogleBooksSource.class);
+    private static final String VOLUMES_URL = "https://www.googleapis.com/books/v1/volumes";
+    private static final String USER_AGENT = "SmartLibCrawler/1.0 (+https://example.local)";
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final FetchRateLimiter rateLimiter;
+    private final String apiKey;
+    private final String langRestrict;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    public GoogleBooksSource(IngestProperties props) {
+        this.rateLimiter = new FetchRateLimiter(props.getRequestsPerSecond());
+        this.apiKey = props.getGoogleBooksApiKey();
+        this.langRestrict = props.getLangRestrict();
+        this.maxRetries = props.getMaxRetries();
+        this.retryBackoffMs = props.getRetryBackoffMs();
+    }
+
+    @Override
+    public List<IngestedBook> fetchPage(String keyword, int startIndex, int pageSize) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(VOLUMES_URL)
+                .queryParam("q", keyword)
+                .queryParam("maxResults", pageSize)
+                .queryParam("startIndex", startIndex)
+                .queryParam("printType", "books");
+        if (langRestrict != null && !langRestrict.isBlank()) {
+            uri.queryParam("langRestrict", langRestrict);
+        }
+        if (apiKey != null && !apiKey.isBlank()) {
+            uri.queryParam("key", apiKey);
+        }
+        String url = uri.encode().toUriString();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.USER_AGENT, USER_AGENT);
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+                JsonNode body = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class).getBody();
+                return VolumeMapper.fromVolumes(body);
+            } catch (HttpStatusCodeException ex) {
+                int status = ex.getStatusCode().value();
+                if (!isRetryable(status) || attempt >= maxRetries) {
+                    throw ex;
+                }
+                log.warn("Google Books returned {} for '{}' (start {}), retrying in {} ms", status, keyword, startIndex, backoffMs);
+            } catch (ResourceAccessException ex) {
+                if (attempt >= maxRetries) {
+                    throw ex;
+                }
+                log.warn("Google Books request failed for '{}' (start {}), retrying in {} ms", keyword, startIndex, backoffMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while fetching '" + keyword + "'", ex);
+            }
+            sleep(backoffMs);
+            backoffMs *= 2;
+        }
+    }
+
+    private boolean isRetryable(int status) {
+        return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+    }
+
+    private void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during retry backoff", ex);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.smartlib.backend.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Deterministic bag-of-tokens embedder for offline runs; vectors are normalized like the real model's.
+ */
+public class HashingEmbedder implements Embedder {
+    private final int dimensions;
+
+    public HashingEmbedder(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts, String model) {
+        List<float[]> out = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            out.add(embedOne(text == null ? "" : text));
+        }
+        return out;
+    }
+
+    private float[] embedOne(String text) {
+        float[] vector = new float[dimensions];
+        for (String token : text.toLowerCase(Locale.ROOT).split("\\W+")) {
+            if (token.isEmpty()) continue;
+            int h = murmurMix(token.getBytes(StandardCharsets.UTF_8));
+            int slot = Math.floorMod(h, dimensions);
+            vector[slot] += (h & 0x80000000) == 0 ? 1f : -1f;
+        }
+        double norm = 0;
+        for (float v : vector) norm += v * v;
+        if (norm > 0) {
+            float inv = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) vector[i] *= inv;
+        }
+        return vector;
+    }
+
+    private static int murmurMix(byte[] bytes) {
+        int h = 0x9747b28c;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x5bd1e995;
+            h ^= h >>> 15;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,31 @@
+package com.smartlib.backend.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableConfigurationProperties(IngestProperties.class)
+public class IngestConfig {
+    @Bean
+    public BookSource bookSource(IngestProperties props, ObjectMapper objectMapper) {
+        return switch (props.getSource()) {
+            case "google" -> new GoogleBooksSource(props);
+            case "fixture" -> new FixtureBookSource(Path.of(props.getFixtureDir()), objectMapper);
+            default -> throw new IllegalArgumentException("Unknown ingest.source: " + props.getSource());
+        };
+    }
+
+    @Bean
+    public Embedder embedder(IngestProperties props, @Value("${ai.service.base-url}") String aiBaseUrl) {
+        return switch (props.getEmbedder()) {
+            case "ai" -> new AiServiceEmbedder(aiBaseUrl);
+            case "hashing" -> new HashingEmbedder(props.getEmbeddingDimensions());
+            default -> throw new IllegalArgumentException("Unknown ingest.embedder: " + props.getEmbedder());
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.smartlib.backend.ingest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "ingest")
+public class IngestProperties {
+    private boolean enabled = false;
+    private String mode = "crawl";
+    private String source = "google";
+    private String fixtureDir = "fixtures/books";
+    private String embedder = "ai";
+    private int embeddingDimensions = 384;
+    private List<String> keywords = new ArrayList<>();
+    private int maxPerKeyword = 120;
+    private int pageSize = 40;
+    private int fetchConcurrency = 2;
+    private double requestsPerSecond = 2.0;
+    private int maxRetries = 4;
+    private long retryBackoffMs = 1000;
+    private int queueCapacity = 500;
+    private int embedBatchSize = 64;
+    private int upsertBatchSize = 200;
+    private int copyMinRows = 500;
+    private int reembedPageSize = 1000;
+    private String reembedVersion = "";
+    private String reembedModel = "";
+    private int embedConcurrency = 2;
+    private String indexMaintenanceWorkMem = "1GB";
+    private String googleBooksApiKey = "";
+    private String langRestrict = "vi";
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getFixtureDir() { return fixtureDir; }
+    public void setFixtureDir(String fixtureDir) { this.fixtureDir = fixtureDir; }
+
+    public String getEmbedder() { return embedder; }
+    public void setEmbedder(String embedder) { this.embedder = embedder; }
+
+    public int getEmbeddingDimensions() { return embeddingDimensions; }
+    public void setEmbeddingDimensions(int embeddingDimensions) { this.embeddingDimensions = embeddingDimensions; }
+
+    public List<String> getKeywords() { return keywords; }
+    public void setKeywords(List<String> keywords) { this.keywords = keywords; }
+
+    public int getMaxPerKeyword() { return maxPerKeyword; }
+    public void setMaxPerKeyword(int maxPerKeyword) { this.maxPerKeyword = maxPerKeyword; }
+
+    public int getPageSize() { return pageSize; }
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+    public int getFetchConcurrency() { return fetchConcurrency; }
+    public void setFetchConcurrency(int fetchConcurrency) { this.fetchConcurrency = fetchConcurrency; }
+
+    public double getRequestsPerSecond() { return requestsPerSecond; }
+    public void setRequestsPerSecond(double requestsPerSecond) { this.requestsPerSecond = requestsPerSecond; }
+
+    public int getMaxRetries() { return maxRetries; }
+    public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+
+    public long getRetryBackoffMs() { return retryBackoffMs; }
+    public void setRetryBackoffMs(long retryBackoffMs) { this.retryBackoffMs = retryBackoffMs; }
+
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+    public int getEmbedBatchSize() { return embedBatchSize; }
+    public void setEmbedBatchSize(int embedBatchSize) { this.embedBatchSize = embedBatchSize; }
+
+    public int getUpsertBatchSize() { return upsertBatchSize; }
+    public void setUpsertBatchSize(int upsertBatchSize) { this.upsertBatchSize = upsertBatchSize; }
+
+    public int getCopyMinRows() { return copyMinRows; }
+    public void setCopyMinRows(int copyMinRows) { this.copyMinRows = copyMinRows; }
+
+    public int getReembedPageSize() { return reembedPageSize; }
+    public void setReembedPageSize(int reembedPageSize) { this.reembedPageSize = reembedPageSize; }
+    public String getReembedVersion() { return reembedVersion; }
+    public void setReembedVersion(String reembedVersion) { this.reembedVersion = reembedVersion; }
+    public String getReembedModel() { return reembedModel; }
+    public void setReembedModel(String reembedModel) { this.reembedModel = reembedModel; }
+
+    public int getEmbedConcurrency() { return embedConcurrency; }
+    public void setEmbedConcurrency(int embedConcurrency) { this.embedConcurrency = embedConcurrency; }
+
+
+    public String getIndexMaintenanceWorkMem() { return indexMaintenanceWorkMem; }
+    public void setIndexMaintenanceWorkMem(String indexMaintenanceWorkMem) { this.indexMaintenanceWorkMem = indexMaintenanceWorkMem; }
+
+    public String getGoogleBooksApiKey() { return googleBooksApiKey; }
+    public void setGoogleBooksApiKey(String googleBooksApiKey) { this.googleBooksApiKey = googleBooksApiKey; }
+
+    public String getLangRestrict() { return langRestrict; }
+    public void setLangRestrict(String langRestrict) { this.langRestrict = langRestrict; }
+}
@@ -0,0 +1,43 @@
+package com.smartlib.backend.ingest;
+
+public class IngestedBook {
+    private String googleBooksId;
+    private String title;
+    private String author;
+    private String description;
+    private String imageUrl;
+    private String publishedDate;
+    private String isbn;
+    private float[] embedding;
+
+    public String getGoogleBooksId() { return googleBooksId; }
+    public void setGoogleBooksId(String googleBooksId) { this.googleBooksId = googleBooksId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public String getPublishedDate() { return publishedDate; }
+    public void setPublishedDate(String publishedDate) { this.publishedDate = publishedDate; }
+
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+
+    public float[] getEmbedding() { return embedding; }
+    public void setEmbedding(float[] embedding) { this.embedding = embedding; }
+
+    public String textToEmbed() {
+        if (description == null || description.isBlank()) {
+            return title;
+        }
+        return (title + " " + description).trim();
+    }
+}
@@ -0,0 +1,290 @@
+package com.smartlib.backend.ingest;
+
+import com.smartlib.backend.entity.IngestCheckpoint;
+import com.smartlib.backend.repository.IngestCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fetch -> embed -> upsert, connected by bounded queues so a slow stage throttles the ones before it.
+ * Page checkpoints travel through the queues behind their page's books and are committed together
+ * with the upsert batch that contains them, so a restarted run resumes from the last durable page.
+ */
+@Component
+public class IngestionPipeline {
+    private static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+    private static final long POLL_MS = 200;
+
+    private final BookSource source;
+    private final Embedder embedder;
+    private final BookUpsertWriter writer;
+    private final IngestCheckpointRepository checkpointRepository;
+    private final IngestProperties props;
+
+    public IngestionPipeline(BookSource source, Embedder embedder, BookUpsertWriter writer,
+                             IngestCheckpointRepository checkpointRepository, IngestProperties props) {
+        this.source = source;
+        this.embedder = embedder;
+        this.writer = writer;
+        this.checkpointRepository = checkpointRepository;
+        this.props = props;
+    }
+
+    public IngestionReport run(List<String> keywords) {
+        return new Run(keywords).execute();
+    }
+
+    private static final class Envelope {
+        static final Envelope END = new Envelope(null, null, 0, false);
+
+        final IngestedBook book;
+        final String keyword;
+        final int nextStartIndex;
+        final boolean completed;
+
+        private Envelope(IngestedBook book, String keyword, int nextStartIndex, boolean completed) {
+            this.book = book;
+            this.keyword = keyword;
+            this.nextStartIndex = nextStartIndex;
+            this.completed = completed;
+        }
+
+        static Envelope book(IngestedBook book) {
+            return new Envelope(book, null, 0, false);
+        }
+
+        static Envelope checkpoint(String keyword, int nextStartIndex, boolean completed) {
+            return new Envelope(null, keyword, nextStartIndex, completed);
+        }
+
+        boolean isCheckpoint() {
+            return book == null && keyword != null;
+        }
+    }
+
+    private final class Run {
+        private final BlockingQueue<Envelope> fetchedQueue = new ArrayBlockingQueue<>(props.getQueueCapacity());
+        private final BlockingQueue<Envelope> embeddedQueue = new ArrayBlockingQueue<>(props.getQueueCapacity());
+        private final Queue<String> pendingKeywords = new ConcurrentLinkedQueue<>();
+        private final Map<String, IngestCheckpoint> checkpoints = new HashMap<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicLong fetched = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong upserted = new AtomicLong();
+
+        Run(List<String> keywords) {
+            LinkedHashSet<String> unique = new LinkedHashSet<>(keywords);
+            checkpointRepository.findAllById(unique).forEach(cp -> checkpoints.put(cp.getKeyword(), cp));
+            for (String keyword : unique) {
+                IngestCheckpoint cp = checkpoints.get(keyword);
+                if (cp != null && Boolean.TRUE.equals(cp.getCompleted())) {
+                    log.info("Skipping '{}': already completed", keyword);
+                    continue;
+                }
+                pendingKeywords.add(keyword);
+            }
+        }
+
+        IngestionReport execute() {
+            long started = System.currentTimeMillis();
+            int workers = Math.max(1, Math.min(props.getFetchConcurrency(), pendingKeywords.size()));
+            AtomicInteger threadSeq = new AtomicInteger();
+            ExecutorService fetchers = Executors.newFixedThreadPool(workers,
+                    r -> new Thread(r, "ingest-fetch-" + threadSeq.incrementAndGet()));
+            Thread embedThread = new Thread(() -> guard(this::embedStage), "ingest-embed");
+            Thread upsertThread = new Thread(() -> guard(this::upsertStage), "ingest-upsert");
+            embedThread.start();
+            upsertThread.start();
+            for (int i = 0; i < workers; i++) {
+                fetchers.submit(() -> guard(this::fetchStage));
+            }
+
+            fetchers.shutdown();
+            try {
+                while (!fetchers.awaitTermination(1, TimeUnit.SECONDS)) {
+                    if (failure.get() != null) {
+                        fetchers.shutdownNow();
+                    }
+                }
+                if (failure.get() == null) {
+                    put(fetchedQueue, Envelope.END);
+                }
+                embedThread.join();
+                upsertThread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, ex);
+                fetchers.shutdownNow();
+            }
+
+            if (failure.get() != null) {
+                throw new IllegalStateException("Ingestion aborted; rerun to resume from the last checkpoint", failure.get());
+            }
+            return new IngestionReport(fetched.get(), skipped.get(), upserted.get(),
+                    System.currentTimeMillis() - started);
+        }
+
+        private void guard(ThrowingRunnable stage) {
+            try {
+                stage.run();
+            } catch (Throwable ex) {
+                if (failure.compareAndSet(null, ex)) {
+                    log.error("Ingestion stage {} failed", Thread.currentThread().getName(), ex);
+                }
+            }
+        }
+
+        private void fetchStage() throws InterruptedException {
+            String keyword;
+            while ((keyword = pendingKeywords.poll()) != null && failure.get() == null) {
+                IngestCheckpoint cp = checkpoints.get(keyword);
+                int start = cp == null ? 0 : cp.getNextStartIndex();
+                boolean done = start >= props.getMaxPerKeyword();
+                if (done) {
+                    put(fetchedQueue, Envelope.checkpoint(keyword, start, true));
+                }
+                while (!done) {
+                    int size = Math.min(props.getPageSize(), props.getMaxPerKeyword() - start);
+                    List<IngestedBook> page = source.fetchPage(keyword, start, size);
+                    fetched.addAndGet(page.size());
+                    for (IngestedBook book : page) {
+                        if (book.getTitle() == null || book.getGoogleBooksId() == null) {
+                            skipped.incrementAndGet();
+                            continue;
+                        }
+                        put(fetchedQueue, Envelope.book(book));
+                    }
+                    start += size;
+                    done = page.isEmpty() || start >= props.getMaxPerKeyword();
+                    put(fetchedQueue, Envelope.checkpoint(keyword, start, done));
+                    log.info("Fetched '{}' page at {}: +{} books", keyword, start - size, page.size());
+                }
+            }
+        }
+
+        private void embedStage() throws InterruptedException {
+            List<Envelope> batch = new ArrayList<>();
+            int books = 0;
+            while (true) {
+                Envelope next = fetchedQueue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (failure.get() != null) {
+                    return;
+                }
+                if (next == null) {
+                    if (books > 0) {
+                        flushEmbeddings(batch);
+                        books = 0;
+                    }
+                    continue;
+                }
+                if (next == Envelope.END) {
+                    flushEmbeddings(batch);
+                    put(embeddedQueue, Envelope.END);
+                    return;
+                }
+                batch.add(next);
+                if (next.book != null && ++books >= props.getEmbedBatchSize()) {
+                    flushEmbeddings(batch);
+                    books = 0;
+                }
+            }
+        }
+
+        private void flushEmbeddings(List<Envelope> batch) throws InterruptedException {
+            List<IngestedBook> books = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            for (Envelope e : batch) {
+                if (e.book != null) {
+                    books.add(e.book);
+                    texts.add(e.book.textToEmbed());
+                }
+            }
+            if (!texts.isEmpty()) {
+                List<float[]> vectors = embedder.embed(texts, null);
+                for (int i = 0; i < books.size(); i++) {
+                    books.get(i).setEmbedding(vectors.get(i));
+                }
+            }
+            for (Envelope e : batch) {
+                put(embeddedQueue, e);
+            }
+            batch.clear();
+        }
+
+        private void upsertStage() throws InterruptedException {
+            List<IngestedBook> books = new ArrayList<>();
+            Map<String, IngestCheckpoint> pending = new LinkedHashMap<>();
+            while (true) {
+                Envelope next = embeddedQueue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (failure.get() != null) {
+                    return;
+                }
+                if (next == null) {
+                    if (!books.isEmpty() || !pending.isEmpty()) {
+                        flushUpserts(books, pending);
+                    }
+                    continue;
+                }
+                if (next == Envelope.END) {
+                    flushUpserts(books, pending);
+                    return;
+                }
+                if (next.isCheckpoint()) {
+                    IngestCheckpoint cp = pending.computeIfAbsent(next.keyword, k -> {
+                        IngestCheckpoint created = new IngestCheckpoint();
+                        created.setKeyword(k);
+                        return created;
+                    });
+                    cp.setNextStartIndex(next.nextStartIndex);
+                    cp.setCompleted(next.completed);
+                } else {
+                    books.add(next.book);
+                    if (books.size() >= props.getUpsertBatchSize()) {
+                        flushUpserts(books, pending);
+                    }
+                }
+            }
+        }
+
+        private void flushUpserts(List<IngestedBook> books, Map<String, IngestCheckpoint> pending) {
+            if (books.isEmpty() && pending.isEmpty()) {
+                return;
+            }
+            writer.write(books, pending.values());
+            upserted.addAndGet(books.size());
+            books.clear();
+            pending.clear();
+        }
+
+        private void put(BlockingQueue<Envelope> queue, Envelope e) throws InterruptedException {
+            while (!queue.offer(e, POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new InterruptedException("Pipeline aborted");
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,25 @@
+package com.smartlib.backend.ingest;
+
+public class IngestionReport {
+    private final long fetched;
+    private final long skipped;
+    private final long upserted;
+    private final long elapsedMs;
+
+    public IngestionReport(long fetched, long skipped, long upserted, long elapsedMs) {
+        this.fetched = fetched;
+        this.skipped = skipped;
+        this.upserted = upserted;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public long getFetched() { return fetched; }
+    public long getSkipped() { return skipped; }
+    public long getUpserted() { return upserted; }
+    public long getElapsedMs() { return elapsedMs; }
+
+    @Override
+    public String toString() {
+        return "fetched=" + fetched + ", skipped=" + skipped + ", upserted=" + upserted + ", elapsedMs=" + elapsedMs;
+    }
+}
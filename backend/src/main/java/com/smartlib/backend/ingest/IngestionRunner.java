@@ -0,0 +1,75 @@
+package com.smartlib.backend.ingest;
+
+import com.smartlib.backend.dto.EmbeddingVersionCreateRequest;
+import com.smartlib.backend.entity.EmbeddingVersion;
+import com.smartlib.backend.entity.EmbeddingVersionStatus;
+import com.smartlib.backend.service.EmbeddingVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+@Component
+@ConditionalOnProperty(name = "ingest.enabled", havingValue = "true")
+public class IngestionRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(IngestionRunner.class);
+
+    private static final DateTimeFormatter VERSION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final IngestionPipeline pipeline;
+    private final EmbeddingVersionService embeddingVersionService;
+    private final IngestProperties props;
+
+    public IngestionRunner(IngestionPipeline pipeline, EmbeddingVersionService embeddingVersionService,
+                           IngestProperties props) {
+        this.pipeline = pipeline;
+        this.embeddingVersionService = embeddingVersionService;
+        this.props = props;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if ("reembed".equals(props.getMode())) {
+            reembed();
+            return;
+        }
+        if (props.getKeywords().isEmpty()) {
+            log.warn("ingest.enabled is set but ingest.keywords is empty; nothing to do");
+            return;
+        }
+        IngestionReport report = pipeline.run(props.getKeywords());
+        log.info("Ingestion finished: {}", report);
+        embeddingVersionService.syncActive();
+    }
+
+    /**
+     * Builds the whole catalog into a new embedding version and activates it once it is READY, so search keeps
+     * answering from the previous version (and its index) until the switch.
+     */
+    private void reembed() {
+        String model = props.getReembedModel();
+        if (model.isBlank()) {
+            model = embeddingVersionService.activeVersion().map(EmbeddingVersion::getModelName)
+                    .orElseThrow(() -> new IllegalStateException(
+                            "ingest.reembed-model is required when no embedding version is active"));
+        }
+        EmbeddingVersionCreateRequest req = new EmbeddingVersionCreateRequest();
+        req.setVersion(props.getReembedVersion().isBlank()
+                ? "reembed_" + LocalDateTime.now().format(VERSION_SUFFIX) : props.getReembedVersion());
+        req.setModelName(model);
+        req.setDimensions(props.getEmbeddingDimensions());
+        EmbeddingVersion built = embeddingVersionService.createAndBuild(req);
+        if (built.getStatus() != EmbeddingVersionStatus.READY) {
+            log.error("Re-embedding into {} failed, the active version is unchanged: {}", built.getVersion(),
+                    built.getError());
+            return;
+        }
+        embeddingVersionService.activate(built.getVersion());
+        log.info("Re-embedding finished: {} rows in version {}", built.getBuiltRows(), built.getVersion());
+    }
+}
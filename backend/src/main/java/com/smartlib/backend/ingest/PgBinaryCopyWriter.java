@@ -0,0 +1,63 @@
+package com.smartlib.backend.ingest;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the PostgreSQL binary COPY format. Vectors use pgvector's binary layout:
+ * int16 dimensions, int16 unused, then float4 values, all big-endian.
+ */
+class PgBinaryCopyWriter implements Closeable {
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    private final DataOutputStream out;
+
+    PgBinaryCopyWriter(OutputStream target) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.write(SIGNATURE);
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    void startRow(int fieldCount) throws IOException {
+        out.writeShort(fieldCount);
+    }
+
+    void writeText(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    void writeLong(long value) throws IOException {
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    void writeVector(float[] vector) throws IOException {
+        if (vector == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(4 + 4 * vector.length);
+        out.writeShort(vector.length);
+        out.writeShort(0);
+        for (float v : vector) {
+            out.writeFloat(v);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeShort(-1);
+        out.close();
+    }
+}
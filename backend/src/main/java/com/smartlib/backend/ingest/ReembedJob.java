@@ -0,0 +1,160 @@
+package com.smartlib.backend.ingest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills an embedding version's table (see {@code EmbeddingVersionService}) and streams the results through
+ * {@link BulkBookLoader#copyEmbeddings}. Pages are read by keyset on a separate thread (the COPY connection cannot
+ * run queries while streaming), embedded with a bounded number of in-flight requests, and consumed in order.
+ */
+@Component
+public class ReembedJob {
+    private static final String PAGE_SQL =
+            "SELECT id, title, description FROM books WHERE title IS NOT NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final Future<List<BookEmbedding>> END = CompletableFuture.completedFuture(Collections.emptyList());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Embedder embedder;
+    private final BulkBookLoader bulkLoader;
+    private final IngestProperties props;
+
+    public ReembedJob(JdbcTemplate jdbcTemplate, Embedder embedder, BulkBookLoader bulkLoader, IngestProperties props) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.embedder = embedder;
+        this.bulkLoader = bulkLoader;
+        this.props = props;
+    }
+
+    /**
+     * Embeds every book with {@code model} into a per-version table. With {@code missingOnly} only books
+     * that have no row in the table yet are embedded, which is how an active version catches up after ingestion.
+     */
+    public int fill(String table, String model, boolean missingOnly) {
+        String pageSql = missingOnly
+                ? """
+                  SELECT b.id, b.title, b.description FROM books b
+                  WHERE b.title IS NOT NULL AND b.id > ?
+                    AND NOT EXISTS (SELECT 1 FROM %s e WHERE e.book_id = b.id)
+                  ORDER BY b.id LIMIT ?
+                  """.formatted(BulkBookLoader.checkTable(table))
+                : PAGE_SQL;
+        return streamEmbeddings(pageSql, model, table);
+    }
+
+    private int streamEmbeddings(String pageSql, String model, String table) {
+        int concurrency = Math.max(1, props.getEmbedConcurrency());
+        BlockingQueue<Future<List<BookEmbedding>>> inFlight = new ArrayBlockingQueue<>(concurrency);
+        AtomicInteger threadSeq = new AtomicInteger();
+        ExecutorService embedPool = Executors.newFixedThreadPool(concurrency,
+                r -> new Thread(r, "reembed-encode-" + threadSeq.incrementAndGet()));
+        Thread reader = new Thread(() -> readPages(pageSql, model, embedPool, inFlight), "reembed-reader");
+        reader.start();
+        try {
+            return bulkLoader.copyEmbeddings(new OrderedResults(inFlight), table);
+        } finally {
+            reader.interrupt();
+            embedPool.shutdownNow();
+        }
+    }
+
+    private void readPages(String pageSql, String model, ExecutorService embedPool,
+                           BlockingQueue<Future<List<BookEmbedding>>> inFlight) {
+        long lastId = 0;
+        try {
+            while (true) {
+                List<Object[]> page = jdbcTemplate.query(
+                        pageSql,
+                        (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3)},
+                        lastId, props.getReembedPageSize());
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = (Long) page.get(page.size() - 1)[0];
+                inFlight.put(embedPool.submit(() -> encode(page, model)));
+            }
+            inFlight.put(END);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            CompletableFuture<List<BookEmbedding>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            try {
+                inFlight.put(failed);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<BookEmbedding> encode(List<Object[]> page, String model) {
+        List<String> texts = new ArrayList<>(page.size());
+        for (Object[] row : page) {
+            String title = (String) row[1];
+            String description = (String) row[2];
+            texts.add((title + " " + (description == null ? "" : description)).trim());
+        }
+        List<BookEmbedding> out = new ArrayList<>(page.size());
+        int batch = Math.max(1, props.getEmbedBatchSize());
+        for (int from = 0; from < texts.size(); from += batch) {
+            int to = Math.min(texts.size(), from + batch);
+            List<float[]> vectors = embedder.embed(texts.subList(from, to), model);
+            for (int i = from; i < to; i++) {
+                out.add(new BookEmbedding((Long) page.get(i)[0], vectors.get(i - from)));
+            }
+        }
+        return out;
+    }
+
+    private static final class OrderedResults implements Iterator<BookEmbedding> {
+        private final BlockingQueue<Future<List<BookEmbedding>>> inFlight;
+        private Iterator<BookEmbedding> current = Collections.emptyIterator();
+        private boolean finished;
+
+        OrderedResults(BlockingQueue<Future<List<BookEmbedding>>> inFlight) {
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !finished) {
+                try {
+                    Future<List<BookEmbedding>> next = inFlight.take();
+                    if (next == END) {
+                        finished = true;
+                    } else {
+                        current = next.get().iterator();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for embeddings", ex);
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("Embedding batch failed", ex.getCause());
+                }
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public BookEmbedding next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.smartlib.backend.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+final class VolumeMapper {
+    private static final Pattern HTML_TAG = Pattern.compile("<.*?>");
+
+    private VolumeMapper() {}
+
+    static List<IngestedBook> fromVolumes(JsonNode root) {
+        List<IngestedBook> out = new ArrayList<>();
+        JsonNode items = root == null ? null : root.get("items");
+        if (items == null || !items.isArray()) {
+            return out;
+        }
+        for (JsonNode item : items) {
+            out.add(fromVolume(item));
+        }
+        return out;
+    }
+
+    static IngestedBook fromVolume(JsonNode item) {
+        JsonNode info = item.path("volumeInfo");
+        IngestedBook book = new IngestedBook();
+        book.setGoogleBooksId(textOrNull(item.get("id")));
+        book.setTitle(textOrNull(info.get("title")));
+
+        List<String> authors = new ArrayList<>();
+        info.path("authors").forEach(a -> authors.add(a.asText()));
+        book.setAuthor(authors.isEmpty() ? "Unknown" : String.join(", ", authors));
+
+        String description = textOrNull(info.get("description"));
+        book.setDescription(description == null ? "" : HTML_TAG.matcher(description).replaceAll("").trim());
+        book.setImageUrl(info.path("imageLinks").path("thumbnail").asText(""));
+        book.setPublishedDate(info.path("publishedDate").asText(""));
+
+        String isbn13 = null;
+        String isbn10 = null;
+        for (JsonNode ident : info.path("industryIdentifiers")) {
+            String type = ident.path("type").asText();
+            String value = textOrNull(ident.get("identifier"));
+            if (value == null) continue;
+            if ("ISBN_13".equals(type)) isbn13 = value;
+            if ("ISBN_10".equals(type)) isbn10 = value;
+        }
+        book.setIsbn(isbn13 != null ? isbn13 : isbn10);
+        return book;
+    }
+
+    private static String textOrNull(JsonNode node) {
+        if (node == null || node.isNull()) return null;
+        String value = node.asText();
+        return value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,36 @@
+package com.smartlib.backend.repository;
+
+import com.smartlib.backend.entity.EmbeddingVersion;
+import com.smartlib.backend.entity.EmbeddingVersionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface EmbeddingVersionRepository extends JpaRepository<EmbeddingVersion, Long> {
+    Optional<EmbeddingVersion> findByVersion(String version);
+    Optional<EmbeddingVersion> findFirstByStatus(EmbeddingVersionStatus status);
+    List<EmbeddingVersion> findAllByOrderByCreatedAtDesc();
+
+    @Modifying
+    @Query("""
+            update EmbeddingVersion v set v.heartbeatAt = :now
+            where v.id in :ids and v.status = com.smartlib.backend.entity.EmbeddingVersionStatus.BUILDING
+            """)
+    int heartbeat(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /** Fails BUILDING versions whose last heartbeat (or creation, before the first one) is older than the cutoff. */
+    @Modifying
+    @Query("""
+            update EmbeddingVersion v
+            set v.status = com.smartlib.backend.entity.EmbeddingVersionStatus.FAILED, v.error = :error
+            where v.status = com.smartlib.backend.entity.EmbeddingVersionStatus.BUILDING
+              and coalesce(v.heartbeatAt, v.createdAt) < :cutoff
+            """)
+    int failAbandoned(@Param("cutoff") LocalDateTime cutoff, @Param("error") String error);
+}
@@ -0,0 +1,7 @@
+package com.smartlib.backend.repository;
+
+import com.smartlib.backend.entity.IngestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpoint, String> {
+}
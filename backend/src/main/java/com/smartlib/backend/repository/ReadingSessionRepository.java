@@ -3,11 +3,21 @@ package com.smartlib.backend.repository;
 import com.smartlib.backend.entity.ReadingSession;
 import com.smartlib.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
 
 public interface ReadingSessionRepository extends JpaRepository<ReadingSession, Long> {
-    List<ReadingSession> findByUserOrderBySessionDateDescCreatedAtDesc(User user);
     List<ReadingSession> findByUserAndSessionDateBetweenOrderBySessionDateDescCreatedAtDesc(User user, LocalDate from, LocalDate to);
+    List<ReadingSession> findTop5ByUserAndSessionDateGreaterThanEqualOrderBySessionDateDescCreatedAtDesc(User user, LocalDate from);
+
+    /** One row: minutes in [from, to] and, of those, minutes on {@code day}. */
+    @Query("""
+            select coalesce(sum(s.minutesRead), 0),
+                   coalesce(sum(case when s.sessionDate = :day then s.minutesRead else 0 end), 0)
+            from ReadingSession s where s.user = :user and s.sessionDate between :from and :to""")
+    List<Object[]> sumMinutesAndDay(@Param("user") User user, @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                    @Param("day") LocalDate day);
 }
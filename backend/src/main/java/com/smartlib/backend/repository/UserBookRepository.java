@@ -5,14 +5,132 @@ import com.smartlib.backend.entity.ReadingStatus;
 import com.smartlib.backend.entity.User;
 import com.smartlib.backend.entity.UserBook;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserBookRepository extends JpaRepository<UserBook, Long> {
+    /** Outcome of {@link #upsertForAdd}; {@code previousStatus} is null when no row was visible before it. */
+    interface UpsertedBook {
+        Long getId();
+        boolean getInserted();
+        String getPreviousStatus();
+    }
+
     List<UserBook> findByUserOrderByUpdatedAtDesc(User user);
     List<UserBook> findByUserAndStatusOrderByUpdatedAtDesc(User user, ReadingStatus status);
     Optional<UserBook> findByIdAndUser(Long id, User user);
     Optional<UserBook> findByUserAndBook(User user, Book book);
+    List<UserBook> findByUserAndChangeVersionGreaterThanOrderByUpdatedAtDesc(User user, Long changeVersion);
     long countByUserAndStatus(User user, ReadingStatus status);
+
+    @Query("select ub.status, count(ub) from UserBook ub where ub.user = :user group by ub.status")
+    List<Object[]> countByStatus(@Param("user") User user);
+
+    @Query("select ub.finishedAt from UserBook ub where ub.user = :user and ub.status = :status and ub.finishedAt >= :from")
+    List<LocalDate> findFinishedDates(@Param("user") User user, @Param("status") ReadingStatus status,
+                                      @Param("from") LocalDate from);
+
+    /** xmax is 0 only on a row version this statement inserted; the CTE reads the row as it was before. */
+    @Query(nativeQuery = true, value = """
+            WITH previous AS (SELECT status FROM user_books WHERE user_id = :userId AND book_id = :bookId)
+            INSERT INTO user_books (
+                user_id, book_id, status, progress_percent, started_at, finished_at,
+                total_minutes_read, total_pages_read, last_session_date, change_version, created_at, updated_at
+            )
+            SELECT :userId, b.id, :status,
+                   CASE WHEN :status = 'FINISHED' THEN 100 ELSE 0 END,
+                   CASE WHEN :status = 'READING' THEN CAST(:today AS date) END,
+                   CASE WHEN :status = 'FINISHED' THEN CAST(:today AS date) END,
+                   t.minutes, t.pages, t.last_date, :changeVersion, :now, :now
+            FROM books b
+            CROSS JOIN (
+                SELECT COALESCE(SUM(x.minutes_read), 0) AS minutes, COALESCE(SUM(x.pages_read), 0) AS pages,
+                       MAX(x.day) AS last_date
+                FROM (
+                    SELECT minutes_read, pages_read, session_date AS day FROM reading_sessions
+                    WHERE user_id = :userId AND book_id = :bookId
+                    UNION ALL
+                    SELECT minutes_read, pages_read, day FROM reading_day_totals
+                    WHERE user_id = :userId AND book_id = :bookId
+                ) x
+            ) t
+            WHERE b.id = :bookId
+            ON CONFLICT (user_id, book_id) DO UPDATE SET
+                status = EXCLUDED.status,
+                started_at = CASE WHEN EXCLUDED.status = 'READING'
+                    THEN COALESCE(user_books.started_at, CAST(:today AS date)) ELSE user_books.started_at END,
+                finished_at = CASE WHEN EXCLUDED.status = 'FINISHED'
+                    THEN COALESCE(user_books.finished_at, CAST(:today AS date)) ELSE user_books.finished_at END,
+                progress_percent = CASE WHEN EXCLUDED.status = 'FINISHED' AND COALESCE(user_books.progress_percent, 0) < 100
+                    THEN 100 ELSE user_books.progress_percent END,
+                change_version = EXCLUDED.change_version,
+                updated_at = EXCLUDED.updated_at
+            RETURNING id, (xmax = 0) AS "inserted", (SELECT status FROM previous) AS "previousStatus"
+            """)
+    Optional<UpsertedBook> upsertForAdd(@Param("userId") Long userId, @Param("bookId") Long bookId,
+                                @Param("status") String status, @Param("today") LocalDate today,
+                                @Param("changeVersion") long changeVersion, @Param("now") LocalDateTime now);
+
+    @Query(nativeQuery = true, value = """
+            INSERT INTO user_books (
+                user_id, book_id, status, progress_percent, started_at,
+                total_minutes_read, total_pages_read, last_session_date, change_version, created_at, updated_at
+            )
+            SELECT :userId, b.id, 'READING', 0, CAST(:today AS date),
+                   t.minutes + :minutes, t.pages + :pages, GREATEST(t.last_date, CAST(:sessionDate AS date)),
+                   :changeVersion, :now, :now
+            FROM books b
+            CROSS JOIN (
+                SELECT COALESCE(SUM(x.minutes_read), 0) AS minutes, COALESCE(SUM(x.pages_read), 0) AS pages,
+                       MAX(x.day) AS last_date
+                FROM (
+                    SELECT minutes_read, pages_read, session_date AS day FROM reading_sessions
+                    WHERE user_id = :userId AND book_id = :bookId
+                    UNION ALL
+                    SELECT minutes_read, pages_read, day FROM reading_day_totals
+                    WHERE user_id = :userId AND book_id = :bookId
+                ) x
+            ) t
+            WHERE b.id = :bookId
+            ON CONFLICT (user_id, book_id) DO UPDATE SET
+                status = CASE WHEN user_books.status = 'TO_READ' THEN 'READING' ELSE user_books.status END,
+                started_at = CASE WHEN user_books.status = 'TO_READ'
+                    THEN COALESCE(user_books.started_at, CAST(:today AS date)) ELSE user_books.started_at END,
+                total_minutes_read = user_books.total_minutes_read + :minutes,
+                total_pages_read = user_books.total_pages_read + :pages,
+                last_session_date = GREATEST(user_books.last_session_date, CAST(:sessionDate AS date)),
+                change_version = EXCLUDED.change_version,
+                updated_at = EXCLUDED.updated_at
+            RETURNING id
+            """)
+    Optional<Long> upsertForSession(@Param("userId") Long userId, @Param("bookId") Long bookId,
+                                    @Param("minutes") int minutes, @Param("pages") int pages,
+                                    @Param("sessionDate") LocalDate sessionDate, @Param("today") LocalDate today,
+                                    @Param("changeVersion") long changeVersion, @Param("now") LocalDateTime now);
+
+    // Totals count compacted months too: their sessions only survive as per-day rows in reading_day_totals.
+    @Modifying
+    @Query("""
+            update UserBook ub
+            set ub.totalMinutesRead = (select coalesce(sum(s.minutesRead), 0) from ReadingSession s
+                                       where s.user = ub.user and s.book = ub.book)
+                                    + (select coalesce(sum(d.minutesRead), 0) from ReadingDayTotal d
+                                       where d.userId = ub.user.id and d.bookId = ub.book.id),
+                ub.totalPagesRead = (select coalesce(sum(s.pagesRead), 0) from ReadingSession s
+                                     where s.user = ub.user and s.book = ub.book)
+                                  + (select coalesce(sum(d.pagesRead), 0) from ReadingDayTotal d
+                                     where d.userId = ub.user.id and d.bookId = ub.book.id),
+                ub.lastSessionDate = coalesce(
+                        (select max(s.sessionDate) from ReadingSession s where s.user = ub.user and s.book = ub.book),
+                        (select max(d.day) from ReadingDayTotal d
+                         where d.userId = ub.user.id and d.bookId = ub.book.id))
+            where ub.totalMinutesRead is null or ub.totalPagesRead is null
+            """)
+    int backfillSessionTotals();
 }
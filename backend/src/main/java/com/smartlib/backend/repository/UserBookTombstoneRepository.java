@@ -0,0 +1,10 @@
+package com.smartlib.backend.repository;
+
+import com.smartlib.backend.entity.UserBookTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface UserBookTombstoneRepository extends JpaRepository<UserBookTombstone, Long> {
+    List<UserBookTombstone> findByUserIdAndChangeVersionGreaterThan(Long userId, Long changeVersion);
+}
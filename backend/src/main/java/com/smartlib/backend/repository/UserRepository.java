@@ -2,10 +2,20 @@ package com.smartlib.backend.repository;
 
 import com.smartlib.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update User u set u.changeVersion = coalesce(u.changeVersion, 0) + 1 where u.id = :id")
+    int incrementChangeVersion(@Param("id") Long id);
+
+    @Query("select coalesce(u.changeVersion, 0) from User u where u.id = :id")
+    Optional<Long> findChangeVersion(@Param("id") Long id);
 }
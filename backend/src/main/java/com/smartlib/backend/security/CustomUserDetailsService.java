@@ -2,6 +2,10 @@ package com.smartlib.backend.security;
 
 import com.smartlib.backend.entity.User;
 import com.smartlib.backend.repository.UserRepository;
+import com.smartlib.backend.service.CacheInvalidationEvent;
+import com.smartlib.backend.service.InvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,25 +13,87 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Loads the principal for every authenticated request. Lookups are cached briefly; user updates and deletes on any
+ * node evict the entry through {@link InvalidationBus}, the TTL only bounds how long a missed notification lingers.
+ * The cache holds at most {@code auth.principal-cache.max-entries} users, least recently used first out.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
+    private final Map<String, Entry> cache;
+    private final long ttlMs;
+    /** Bumped by every invalidation, so a lookup that raced one does not cache what it read before it. */
+    private long generation;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${auth.principal-cache.ttl:5m}") Duration ttl,
+                                    @Value("${auth.principal-cache.max-entries:10000}") int maxEntries) {
         this.userRepository = userRepository;
+        this.ttlMs = ttl.toMillis();
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+        long now = System.currentTimeMillis();
+        Entry entry;
+        long loadedAt;
+        synchronized (cache) {
+            entry = cache.get(username);
+            loadedAt = generation;
+        }
+        if (entry == null || entry.expiresAt <= now) {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            entry = new Entry(user.getUsername(), user.getPasswordHash(),
+                    List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())), now + ttlMs);
+            if (ttlMs > 0) {
+                synchronized (cache) {
+                    if (generation == loadedAt) {
+                        cache.put(username, entry);
+                    }
+                }
+            }
+        }
+        // A fresh instance each time: Spring Security may erase credentials on the one it is handed.
         return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPasswordHash())
-                .authorities(authorities)
+                .withUsername(entry.username)
+                .password(entry.passwordHash)
+                .authorities(entry.authorities)
                 .build();
     }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.covers(InvalidationBus.USERS)) {
+            return;
+        }
+        synchronized (cache) {
+            generation++;
+            if (event.key() == null) {
+                cache.clear();
+            } else {
+                cache.remove(event.key());
+            }
+        }
+    }
+
+    int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private record Entry(String username, String passwordHash, List<GrantedAuthority> authorities, long expiresAt) {}
 }
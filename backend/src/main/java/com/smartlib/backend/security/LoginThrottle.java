@@ -0,0 +1,54 @@
+package com.smartlib.backend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-username and per-client-address budgets for the auth endpoints, checked before any password is hashed. Both
+ * tokens are taken up front, so a locked-out username is refused without hashing; the username token is handed back
+ * through {@link #refund} when the attempt succeeds, so only failed passwords count against an account.
+ */
+@Component
+public class LoginThrottle {
+    private final StripedTokenBuckets byUsername;
+    private final StripedTokenBuckets byAddress;
+
+    public LoginThrottle(
+            @Value("${auth.throttle.username.capacity:5}") int usernameCapacity,
+            @Value("${auth.throttle.username.refill-period:1m}") Duration usernameRefill,
+            @Value("${auth.throttle.ip.capacity:30}") int ipCapacity,
+            @Value("${auth.throttle.ip.refill-period:1m}") Duration ipRefill,
+            @Value("${auth.throttle.stripes:64}") int stripes,
+            @Value("${auth.throttle.max-keys-per-stripe:1024}") int maxKeysPerStripe
+    ) {
+        this.byUsername = new StripedTokenBuckets(usernameCapacity, usernameRefill, stripes, maxKeysPerStripe);
+        this.byAddress = new StripedTokenBuckets(ipCapacity, ipRefill, stripes, maxKeysPerStripe);
+    }
+
+    public void acquire(String username, String remoteAddress) {
+        long waitNanos = byAddress.tryAcquire(remoteAddress);
+        if (waitNanos == 0 && username != null) {
+            waitNanos = byUsername.tryAcquire(key(username));
+        }
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            throw new ThrottledException(HttpStatus.TOO_MANY_REQUESTS, retryAfter, "Too many attempts, retry later");
+        }
+    }
+
+    /** Returns the username token of an attempt that did not fail on its password. */
+    public void refund(String username) {
+        if (username != null) {
+            byUsername.refund(key(username));
+        }
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartlib.backend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlib.backend.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-route request budgets (rate-limit.routes, first match wins), keyed on the JWT subject or, for anonymous
+ * requests, the client address. Runs after JwtAuthFilter so the subject is known.
+ */
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final List<Route> routes = new ArrayList<>();
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitProperties props, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.enabled = props.isEnabled();
+        this.objectMapper = objectMapper;
+        for (Map.Entry<String, RateLimitProperties.Route> e : props.getRoutes().entrySet()) {
+            RateLimitProperties.Route r = e.getValue();
+            routes.add(new Route(
+                    e.getKey(),
+                    PathPatternParser.defaultInstance.parse(r.getPath()),
+                    r.getMethods().stream().map(m -> m.toUpperCase(Locale.ROOT)).collect(Collectors.toSet()),
+                    new StripedTokenBuckets(r.getCapacity(), r.getRefillPeriod(), props.getStripes(), props.getMaxKeysPerStripe()),
+                    Counter.builder("smartlib.ratelimit.requests").tag("route", e.getKey()).tag("outcome", "allowed")
+                            .register(meterRegistry),
+                    Counter.builder("smartlib.ratelimit.requests").tag("route", e.getKey()).tag("outcome", "rejected")
+                            .register(meterRegistry)
+            ));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Route route = match(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long waitNanos = route.buckets.tryAcquire(clientKey(request));
+        if (waitNanos == 0) {
+            route.allowed.increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+        route.rejected.increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                Map.of("error", "too_many_requests", "message", "Rate limit exceeded for " + route.name));
+    }
+
+    private Route match(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Route route : routes) {
+            if ((route.methods.isEmpty() || route.methods.contains(request.getMethod())) && route.pattern.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            return "user:" + auth.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private record Route(String name, PathPattern pattern, Set<String> methods, StripedTokenBuckets buckets,
+                         Counter allowed, Counter rejected) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.smartlib.backend.security;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory token buckets keyed by string. Keys hash to a fixed number of stripes, each guarded by its own monitor
+ * and holding at most {@code maxKeysPerStripe} buckets (least recently used are dropped, which only forgives them).
+ */
+public class StripedTokenBuckets {
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Stripe[] stripes;
+
+    public StripedTokenBuckets(int capacity, Duration refillPeriod, int stripes, int maxKeysPerStripe) {
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / (double) refillPeriod.toNanos();
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+    }
+
+    /** Takes a token for {@code key}; returns 0 when granted, otherwise the nanoseconds until one is available. */
+    public long tryAcquire(String key) {
+        Stripe stripe = stripeOf(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) * tokensPerNano);
+                bucket.refilledAt = now;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        }
+    }
+
+    /** Gives back a token taken by {@link #tryAcquire}; a bucket dropped meanwhile was already forgiven. */
+    public void refund(String key) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket != null) {
+                bucket.tokens = Math.min(capacity, bucket.tokens + 1);
+            }
+        }
+    }
+
+    private Stripe stripeOf(String key) {
+        int h = key.hashCode();
+        return stripes[Math.floorMod(h ^ (h >>> 16), stripes.length)];
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        private final int maxKeys;
+
+        Stripe(int maxKeys) {
+            super(16, 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxKeys;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.smartlib.backend.security;
+
+import org.springframework.http.HttpStatus;
+
+public class ThrottledException extends RuntimeException {
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public ThrottledException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public HttpStatus getStatus() { return status; }
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -1,11 +1,14 @@
 package com.smartlib.backend.service;
 
+import com.smartlib.backend.dto.AiSearchRequest;
+import com.smartlib.backend.dto.SearchLatencyClass;
 import com.smartlib.backend.dto.SearchRequest;
 import com.smartlib.backend.dto.SearchResult;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
@@ -15,22 +18,63 @@ import java.util.List;
 
 @Service
 public class AiSearchService {
+    /** Milliseconds ai_service spent in the vector query, without HTTP, query embedding or its pool wait. */
+    static final String VECTOR_TIME_HEADER = "X-Vector-Query-Ms";
+
     private final RestTemplate restTemplate = new RestTemplate();
     private final String baseUrl;
+    private final EmbeddingVersionService embeddingVersionService;
+    private final EfSearchTuner efSearchTuner;
 
-    public AiSearchService(@Value("${ai.service.base-url}") String baseUrl) {
+    public AiSearchService(@Value("${ai.service.base-url}") String baseUrl,
+                           EmbeddingVersionService embeddingVersionService,
+                           EfSearchTuner efSearchTuner) {
         this.baseUrl = baseUrl;
+        this.embeddingVersionService = embeddingVersionService;
+        this.efSearchTuner = efSearchTuner;
     }
 
     public List<SearchResult> search(SearchRequest req) {
+        AiSearchRequest payload = new AiSearchRequest();
+        payload.setQuery(req.getQuery());
+        payload.setTopK(req.getTopK());
+        embeddingVersionService.resolveForSearch(req.getModelVersion())
+                .ifPresent(v -> payload.setModelVersion(v.getVersion()));
+        SearchLatencyClass latencyClass = req.getLatencyClass() == null
+                ? SearchLatencyClass.INTERACTIVE : req.getLatencyClass();
+        payload.setEfSearch(efSearchTuner.choose(latencyClass, req.getTopK(), req.getEfSearch()));
+        boolean adaptive = req.getEfSearch() == null;
+
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<SearchRequest> entity = new HttpEntity<>(req, headers);
-        return restTemplate.exchange(
-                baseUrl + "/search",
-                HttpMethod.POST,
-                entity,
-                new ParameterizedTypeReference<List<SearchResult>>() {}
-        ).getBody();
+        HttpEntity<AiSearchRequest> entity = new HttpEntity<>(payload, headers);
+        long started = System.nanoTime();
+        ResponseEntity<List<SearchResult>> response;
+        try {
+            response = restTemplate.exchange(
+                    baseUrl + "/search",
+                    HttpMethod.POST,
+                    entity,
+                    new ParameterizedTypeReference<List<SearchResult>>() {}
+            );
+        } catch (RuntimeException e) {
+            efSearchTuner.recordFailure(latencyClass, e);
+            throw e;
+        }
+        efSearchTuner.record(latencyClass, System.nanoTime() - started,
+                vectorNanos(response.getHeaders().getFirst(VECTOR_TIME_HEADER)), adaptive);
+        return response.getBody();
+    }
+
+    private static Long vectorNanos(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            double ms = Double.parseDouble(header.trim());
+            return ms >= 0 ? (long) (ms * 1_000_000) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -5,6 +5,7 @@ import com.smartlib.backend.repository.BookRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,15 +13,19 @@ import java.util.Optional;
 @Service
 public class BookService {
     private final BookRepository bookRepository;
+    private final InvalidationBus invalidationBus;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, InvalidationBus invalidationBus) {
         this.bookRepository = bookRepository;
+        this.invalidationBus = invalidationBus;
     }
 
+    @Transactional(readOnly = true)
     public List<Book> findAll() {
         return bookRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Page<Book> search(String q, Boolean available, Pageable pageable) {
         String trimmed = (q == null || q.isBlank()) ? null : q.trim();
         if (trimmed == null) {
@@ -32,13 +37,16 @@ public class BookService {
         return bookRepository.search(trimmed, available, pageable);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Book> findById(Long id) {
         return bookRepository.findById(id);
     }
 
     public Book create(Book book) {
         validateCopies(book);
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        invalidationBus.publish(InvalidationBus.BOOKS, saved.getId());
+        return saved;
     }
 
     public Book update(Long id, Book updates) {
@@ -51,11 +59,14 @@ public class BookService {
         existing.setTotalCopies(updates.getTotalCopies());
         existing.setAvailableCopies(updates.getAvailableCopies());
         validateCopies(existing);
-        return bookRepository.save(existing);
+        Book saved = bookRepository.save(existing);
+        invalidationBus.publish(InvalidationBus.BOOKS, id);
+        return saved;
     }
 
     public void delete(Long id) {
         bookRepository.deleteById(id);
+        invalidationBus.publish(InvalidationBus.BOOKS, id);
     }
 
     private void validateCopies(Book book) {
@@ -0,0 +1,12 @@
+package com.smartlib.backend.service;
+
+/**
+ * Something cached from {@code topic} changed, on this node or another one. A null key means anything under the
+ * topic may be stale (e.g. after the listener reconnected and could have missed notifications). {@code remote} is set
+ * for changes made by another node, which local caches cannot have applied themselves.
+ */
+public record CacheInvalidationEvent(String topic, String key, boolean remote) {
+    public boolean covers(String topic) {
+        return this.topic.equals(topic);
+    }
+}
@@ -0,0 +1,103 @@
+package com.smartlib.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the public book catalog used for HTTP validators. Read from the {@code catalog_version} row, which a
+ * trigger on {@code books} bumps on every write, so all nodes hand out the same tags and writes made outside the
+ * backend (the crawler) change them too. Re-read whenever {@link InvalidationBus} reports a book change; the trigger
+ * notifies the bus itself. With read replicas the new version is only adopted once they can have caught up, so a
+ * tag never stands for a lagging replica's rows.
+ * <p>
+ * With {@code catalog.version.durable} off (no PostgreSQL, e.g. the bench profile) the version is a per-process
+ * counter seeded from the start time and bumped on each book change seen by this node.
+ */
+@Component
+public class CatalogVersion {
+    private static final long UNKNOWN = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean durable;
+    private final AtomicLong version;
+    private final long settleMs;
+    private final ScheduledExecutorService settler;
+
+    public CatalogVersion(
+            JdbcTemplate jdbcTemplate,
+            @Value("${catalog.version.durable:true}") boolean durable,
+            @Value("${datasource.replicas.urls:}") String replicaUrls,
+            @Value("${datasource.replicas.max-lag:2s}") Duration maxLag,
+            @Value("${datasource.replicas.check-interval-ms:2000}") long checkIntervalMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.durable = durable;
+        this.version = new AtomicLong(durable ? UNKNOWN : System.currentTimeMillis());
+        // A replica is trusted until its next lag check, so it can fall behind by up to one interval more.
+        this.settleMs = replicaUrls.isBlank() ? 0 : maxLag.toMillis() + checkIntervalMs;
+        this.settler = settleMs > 0 ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "catalog-version-settle");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    public long current() {
+        long v = version.get();
+        if (v == UNKNOWN) {
+            reload();
+            v = version.get();
+        }
+        return v;
+    }
+
+    public void bump() {
+        if (settler != null) {
+            settler.schedule(this::advance, settleMs, TimeUnit.MILLISECONDS);
+        } else {
+            advance();
+        }
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (event.covers(InvalidationBus.BOOKS)) {
+            bump();
+        }
+    }
+
+    /** Weak: one version covers every format and encoding, and Tomcat does not gzip responses with strong tags. */
+    public String etag() {
+        return "W/\"" + Long.toString(current(), 36) + "\"";
+    }
+
+    private void advance() {
+        if (durable) {
+            reload();
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    /** Reads go to the primary; the row only grows, so a slow read never moves the version back. */
+    private void reload() {
+        Long stored = jdbcTemplate.queryForObject("SELECT version FROM catalog_version WHERE id = 1", Long.class);
+        version.accumulateAndGet(stored, Math::max);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (settler != null) {
+            settler.shutdownNow();
+        }
+    }
+}
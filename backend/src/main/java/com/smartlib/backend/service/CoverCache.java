@@ -0,0 +1,576 @@
+package com.smartlib.backend.service;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Book covers fetched once from their origin, scaled to the standard widths and kept as JPEG files in a
+ * size-bounded directory with LRU eviction. Files are named after the book and a hash of its image URL, so a
+ * changed URL simply misses. Concurrent misses for the same cover share one fetch; an origin that fails is not
+ * asked again for {@code covers.failure-ttl}, and callers redirect to it instead. After a restart the LRU order
+ * starts from file modification times.
+ *
+ * <p>Image URLs come from catalog entries anyone can write, so only http(s) URLs whose host resolves to public
+ * addresses are fetched or redirected to. The fetch client resolves hosts through the same check and connects only to
+ * the addresses that passed it, so a name that re-resolves between the check and the connect (DNS rebinding) cannot
+ * point a fetch inward; the Host header and TLS name stay the original host. Redirects are followed by hand and every
+ * hop is checked the same way, and the whole download is cut off after {@code covers.fetch-deadline}. Images whose
+ * header declares more than {@code covers.max-source-pixels} are refused before any pixel is decoded.
+ */
+@Service
+public class CoverCache {
+    private static final Logger log = LoggerFactory.getLogger(CoverCache.class);
+    private static final String SUFFIX = ".jpg";
+    private static final String NO_COVER = "";
+    private static final int MAX_REDIRECTS = 3;
+
+    public enum Size {
+        SMALL(96), MEDIUM(200), LARGE(400);
+
+        final int width;
+
+        Size(int width) {
+            this.width = width;
+        }
+    }
+
+    /** A cached file, or only the origin URL when the cover could not be fetched or decoded. */
+    public record Cover(Path file, long length, String etag, String originUrl) {
+        public boolean cached() {
+            return file != null;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path dir;
+    private final long maxBytes;
+    private final int maxSourceBytes;
+    private final long maxSourcePixels;
+    private final int fetchTimeoutMs;
+    private final long fetchDeadlineMs;
+    private final long failureTtlMs;
+    private final float quality;
+    private final Predicate<InetAddress> addressPolicy;
+    private final CloseableHttpClient http;
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cover-fetch-deadline");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<String, Long> files = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    private final Map<Long, String> urls;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Long> failedUntil = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CoverCache(
+            JdbcTemplate jdbcTemplate,
+            @Value("${covers.dir:${java.io.tmpdir}/smartlib-covers}") Path dir,
+            @Value("${covers.max-bytes:268435456}") long maxBytes,
+            @Value("${covers.max-source-bytes:5242880}") int maxSourceBytes,
+            @Value("${covers.max-source-pixels:16777216}") long maxSourcePixels,
+            @Value("${covers.fetch-timeout:5s}") Duration fetchTimeout,
+            @Value("${covers.fetch-deadline:10s}") Duration fetchDeadline,
+            @Value("${covers.failure-ttl:10m}") Duration failureTtl,
+            @Value("${covers.quality:0.85}") float quality,
+            @Value("${covers.url-cache-entries:20000}") int urlCacheEntries
+    ) {
+        this(jdbcTemplate, dir, maxBytes, maxSourceBytes, maxSourcePixels, fetchTimeout, fetchDeadline, failureTtl,
+                quality, urlCacheEntries, CoverCache::publicAddress);
+    }
+
+    /** With another address policy than {@link #publicAddress}; tests fetch from a loopback server this way. */
+    CoverCache(JdbcTemplate jdbcTemplate, Path dir, long maxBytes, int maxSourceBytes, long maxSourcePixels,
+               Duration fetchTimeout, Duration fetchDeadline, Duration failureTtl, float quality, int urlCacheEntries,
+               Predicate<InetAddress> addressPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.maxSourceBytes = maxSourceBytes;
+        this.maxSourcePixels = maxSourcePixels;
+        this.addressPolicy = addressPolicy;
+        this.fetchTimeoutMs = (int) fetchTimeout.toMillis();
+        this.fetchDeadlineMs = fetchDeadline.toMillis();
+        this.failureTtlMs = failureTtl.toMillis();
+        this.quality = quality;
+        this.http = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setDnsResolver(new VettedResolver())
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofMilliseconds(fetchTimeoutMs))
+                                .setSocketTimeout(Timeout.ofMilliseconds(fetchTimeoutMs))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(fetchTimeoutMs))
+                        .build())
+                // Each cover is one exchange with its origin; keeping connections around only risks stale ones.
+                .setConnectionReuseStrategy((request, response, context) -> false)
+                .disableRedirectHandling()
+                .disableAutomaticRetries()
+                .disableCookieManagement()
+                .disableAuthCaching()
+                .build();
+        this.urls = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > urlCacheEntries;
+            }
+        };
+        loadDirectory();
+    }
+
+    public static Size size(String value) {
+        try {
+            return Size.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("size must be small, medium or large");
+        }
+    }
+
+    public Cover get(Long bookId, Size size) {
+        String url = imageUrl(bookId);
+        String key = bookId + "-" + hash(url);
+        String name = key + "-" + size.name().toLowerCase(Locale.ROOT) + SUFFIX;
+        Cover cover = lookup(name, key, url);
+        if (cover != null) {
+            return cover;
+        }
+        if (publicUri(url, addressPolicy) == null) {
+            // Never fetched and never redirected to: the client gets a 404 like a book without a cover.
+            throw new NoSuchElementException("Book has no usable cover");
+        }
+        Long until = failedUntil.get(key);
+        if (until != null && until > System.currentTimeMillis()) {
+            return new Cover(null, 0, null, url);
+        }
+
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(key, mine);
+        try {
+            if (running != null) {
+                running.join();
+            } else {
+                try {
+                    fetch(key, url);
+                    failedUntil.remove(key);
+                    mine.complete(null);
+                } catch (RuntimeException ex) {
+                    log.warn("Cover for book {} from {} failed: {}", bookId, url, ex.getMessage());
+                    failedUntil.put(key, System.currentTimeMillis() + failureTtlMs);
+                    mine.completeExceptionally(ex);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            }
+        } catch (CompletionException ex) {
+            // The fetch that ran for this cover failed; it has been logged there.
+        }
+        cover = lookup(name, key, url);
+        return cover != null ? cover : new Cover(null, 0, null, url);
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.covers(InvalidationBus.BOOKS)) {
+            return;
+        }
+        synchronized (urls) {
+            if (event.key() == null) {
+                urls.clear();
+            } else {
+                urls.remove(Long.valueOf(event.key()));
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        watchdog.shutdownNow();
+        http.close();
+    }
+
+    /**
+     * The URL as a URI when it is http(s) and every address its host resolves to is public, otherwise null. Rejects
+     * loopback, link-local, site-local (RFC 1918), unique-local IPv6, carrier-grade NAT, multicast and wildcard
+     * addresses, which covers cloud metadata endpoints and anything inside the deployment's network.
+     */
+    public static URI publicUri(String url) {
+        return publicUri(url, CoverCache::publicAddress);
+    }
+
+    private static URI publicUri(String url, Predicate<InetAddress> addressPolicy) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException | NullPointerException ex) {
+            return null;
+        }
+        if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())
+                || uri.getHost() == null || uri.getRawUserInfo() != null) {
+            return null;
+        }
+        try {
+            vetted(uri.getHost(), addressPolicy);
+        } catch (UnknownHostException ex) {
+            return null;
+        }
+        return uri;
+    }
+
+    private static InetAddress[] vetted(String host, Predicate<InetAddress> addressPolicy) throws UnknownHostException {
+        InetAddress[] addresses = InetAddress.getAllByName(host);
+        for (InetAddress address : addresses) {
+            if (!addressPolicy.test(address)) {
+                throw new UnknownHostException(host + " resolves to a non-public address");
+            }
+        }
+        return addresses;
+    }
+
+    static boolean publicAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] b = address.getAddress();
+        if (address instanceof Inet4Address) {
+            int first = b[0] & 0xff;
+            int second = b[1] & 0xff;
+            return first != 0 && first != 255
+                    && !(first == 100 && (second & 0xc0) == 64)   // 100.64.0.0/10
+                    && !(first == 192 && second == 0 && b[2] == 0) // 192.0.0.0/24
+                    && !(first == 198 && (second & 0xfe) == 18);  // 198.18.0.0/15
+        }
+        return (b[0] & 0xfe) != 0xfc; // fc00::/7
+    }
+
+    /**
+     * Resolves fetch hosts like the system resolver but fails for any host with an address the policy rejects. The
+     * client connects only to the addresses returned here, checked once per connection.
+     */
+    private final class VettedResolver implements DnsResolver {
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            return vetted(host, addressPolicy);
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) {
+            // Only used by authentication schemes, and covers are fetched anonymously.
+            return host;
+        }
+    }
+
+    private String imageUrl(Long bookId) {
+        String url;
+        synchronized (urls) {
+            url = urls.get(bookId);
+        }
+        if (url == null) {
+            List<String> rows = jdbcTemplate.query("SELECT image_url FROM books WHERE id = ?",
+                    (rs, i) -> rs.getString(1), bookId);
+            if (rows.isEmpty()) {
+                throw new NoSuchElementException("Book not found");
+            }
+            url = rows.get(0) == null || rows.get(0).isBlank() ? NO_COVER : rows.get(0).trim();
+            synchronized (urls) {
+                urls.put(bookId, url);
+            }
+        }
+        if (url.equals(NO_COVER)) {
+            throw new NoSuchElementException("Book has no cover");
+        }
+        return url;
+    }
+
+    private Cover lookup(String name, String key, String url) {
+        Long length;
+        synchronized (files) {
+            length = files.get(name);
+        }
+        if (length == null) {
+            return null;
+        }
+        return new Cover(dir.resolve(name), length, "\"" + key + "\"", url);
+    }
+
+    private void fetch(String key, String url) {
+        BufferedImage source;
+        try {
+            source = decode(download(url));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        for (Size size : Size.values()) {
+            store(key + "-" + size.name().toLowerCase(Locale.ROOT) + SUFFIX, encode(scale(source, size.width)));
+        }
+    }
+
+    /** Reads the dimensions from the header first, so a small file declaring a huge image is never decoded. */
+    private BufferedImage decode(byte[] data) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IllegalStateException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxSourcePixels) {
+                    throw new IllegalStateException("Cover has " + pixels + " pixels, more than " + maxSourcePixels);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private byte[] download(String url) throws IOException {
+        long deadline = System.currentTimeMillis() + fetchDeadlineMs;
+        URI uri = publicUri(url, addressPolicy);
+        for (int hop = 0; ; hop++) {
+            if (uri == null) {
+                throw new IllegalStateException("Cover URL is not a public http(s) address");
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new IllegalStateException("Cover fetch took longer than " + fetchDeadlineMs + " ms");
+            }
+            HttpGet request = new HttpGet(uri);
+            request.setHeader(HttpHeaders.ACCEPT, "image/*");
+            // Read timeouts apply per read; aborting the request at the deadline bounds the whole download.
+            ScheduledFuture<?> cutoff = watchdog.schedule(request::cancel, remaining, TimeUnit.MILLISECONDS);
+            try (CloseableHttpResponse response = http.execute(request)) {
+                boolean drained = false;
+                try {
+                    int status = response.getCode();
+                    if (status >= 300 && status < 400) {
+                        Header location = response.getFirstHeader(HttpHeaders.LOCATION);
+                        if (location == null || hop >= MAX_REDIRECTS) {
+                            throw new IllegalStateException("Cover origin redirected too often");
+                        }
+                        uri = publicUri(uri.resolve(location.getValue()).toString(), addressPolicy);
+                        continue;
+                    }
+                    HttpEntity entity = response.getEntity();
+                    if (status != HttpStatus.SC_OK || entity == null) {
+                        throw new IllegalStateException("Cover origin answered " + status);
+                    }
+                    try (InputStream in = entity.getContent()) {
+                        byte[] body = readLimited(in);
+                        drained = true;
+                        return body;
+                    }
+                } finally {
+                    HttpEntity unread = drained ? null : response.getEntity();
+                    if (unread != null && unread.isStreaming()) {
+                        // Closing the response would otherwise read the rest of a body nobody wants.
+                        request.cancel();
+                    }
+                }
+            } catch (IOException ex) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new IllegalStateException("Cover fetch took longer than " + fetchDeadlineMs + " ms");
+                }
+                throw ex;
+            } finally {
+                cutoff.cancel(false);
+            }
+        }
+    }
+
+    private byte[] readLimited(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(maxSourceBytes + 1);
+        if (body.length > maxSourceBytes) {
+            throw new IllegalStateException("Cover is larger than " + maxSourceBytes + " bytes");
+        }
+        return body;
+    }
+
+    /** Halves the image until one more halving would undershoot, then scales to the target; never upscales. */
+    private static BufferedImage scale(BufferedImage source, int width) {
+        int targetWidth = Math.min(width, source.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            if (w / 2 >= targetWidth) {
+                w /= 2;
+                h = Math.max(h / 2, 1);
+            } else {
+                w = targetWidth;
+                h = targetHeight;
+            }
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                // JPEG has no alpha; transparent covers go on white rather than black.
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, w, h);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != targetWidth);
+        return current;
+    }
+
+    private byte[] encode(BufferedImage image) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private void store(String name, byte[] data) {
+        try {
+            Path tmp = Files.createTempFile(dir, name, ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        register(name, data.length);
+    }
+
+    private void register(String name, long length) {
+        synchronized (files) {
+            Long previous = files.put(name, length);
+            totalBytes += length - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> eldest = files.entrySet().iterator();
+            while (totalBytes > maxBytes && files.size() > 1 && eldest.hasNext()) {
+                Map.Entry<String, Long> e = eldest.next();
+                if (e.getKey().equals(name)) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= e.getValue();
+                try {
+                    Files.deleteIfExists(dir.resolve(e.getKey()));
+                } catch (IOException ex) {
+                    log.warn("Could not delete evicted cover {}: {}", e.getKey(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void loadDirectory() {
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> listing = Files.list(dir)) {
+                for (Path p : listing.sorted(Comparator.comparingLong(CoverCache::modified)).toList()) {
+                    String name = p.getFileName().toString();
+                    if (name.endsWith(".tmp")) {
+                        Files.deleteIfExists(p);
+                    } else if (name.endsWith(SUFFIX)) {
+                        register(name, Files.size(p));
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot use cover directory " + dir, ex);
+        }
+        log.info("Cover cache at {}: {} files, {} bytes", dir, files.size(), totalBytes);
+    }
+
+    private static long modified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
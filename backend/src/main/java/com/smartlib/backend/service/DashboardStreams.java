@@ -0,0 +1,304 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.dto.MyDashboardDelta;
+import com.smartlib.backend.dto.MyDashboardResponse;
+import com.smartlib.backend.dto.Versioned;
+import com.smartlib.backend.security.ThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Open {@code /api/my/stream} connections, grouped by user. A committed change for a user (from this node or,
+ * through {@link InvalidationBus}, another one) marks the group dirty; one push task then loads the dashboard
+ * summary once and hands each connection only the fields that changed. Changes arriving while a push is pending
+ * fold into it.
+ *
+ * <p>Pushes and heartbeats never write to a socket themselves. Each connection has one pending slot, drained by its
+ * own task on the send pool; a data event that is still pending when the next one arrives is replaced by a snapshot,
+ * so a connection holds at most one event however far behind its client is. A write that takes longer than
+ * {@code my-stream.send-timeout} drops the connection. Its thread stays blocked until Tomcat's write timeout
+ * ({@code server.tomcat.connection-timeout}) closes the socket.
+ */
+@Component
+public class DashboardStreams implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(DashboardStreams.class);
+
+    private final MyReadingService myReadingService;
+    private final Map<Long, Group> groups = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ThreadPoolExecutor pushExecutor;
+    private final ThreadPoolExecutor sendExecutor;
+    private final ScheduledThreadPoolExecutor sendDeadlines;
+    private final Counter dropped;
+    private final long timeoutMs;
+    private final long sendTimeoutMs;
+    private final int maxStreams;
+    private final int maxPerUser;
+
+    public DashboardStreams(
+            MyReadingService myReadingService,
+            MeterRegistry meterRegistry,
+            @Value("${my-stream.timeout:30m}") Duration timeout,
+            @Value("${my-stream.max-streams:10000}") int maxStreams,
+            @Value("${my-stream.max-per-user:5}") int maxPerUser,
+            @Value("${my-stream.push-threads:2}") int pushThreads,
+            @Value("${my-stream.send-threads:8}") int sendThreads,
+            @Value("${my-stream.send-timeout:5s}") Duration sendTimeout
+    ) {
+        this.myReadingService = myReadingService;
+        this.timeoutMs = timeout.toMillis();
+        this.sendTimeoutMs = sendTimeout.toMillis();
+        this.maxStreams = maxStreams;
+        this.maxPerUser = maxPerUser;
+        // Unbounded queues, but each user group has at most one push and each connection one send queued at a time.
+        this.pushExecutor = new ThreadPoolExecutor(pushThreads, pushThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemon("my-stream-push-"));
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemon("my-stream-send-"));
+        this.sendDeadlines = new ScheduledThreadPoolExecutor(1, daemon("my-stream-deadline-"));
+        this.sendDeadlines.setRemoveOnCancelPolicy(true);
+        new ExecutorServiceMetrics(pushExecutor, "my.stream.push", Tags.empty()).bindTo(meterRegistry);
+        new ExecutorServiceMetrics(sendExecutor, "my.stream.send", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("smartlib.stream.connections", open, AtomicInteger::get).register(meterRegistry);
+        this.dropped = Counter.builder("smartlib.stream.dropped")
+                .description("Connections dropped because a write did not finish within my-stream.send-timeout")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        if (open.incrementAndGet() > maxStreams) {
+            open.decrementAndGet();
+            throw new ThrottledException(HttpStatus.SERVICE_UNAVAILABLE, 30, "Too many open streams, retry later");
+        }
+        Stream stream = new Stream(newEmitter(timeoutMs));
+        stream.emitter.onCompletion(() -> remove(userId, stream));
+        stream.emitter.onTimeout(() -> remove(userId, stream));
+        stream.emitter.onError(e -> remove(userId, stream));
+
+        Group group = groups.compute(userId, (id, g) -> {
+            Group target = g == null ? new Group(id) : g;
+            target.streams.add(stream);
+            return target;
+        });
+        // A user's newest devices win; the oldest connection is closed and its client reconnects later if it wants.
+        while (group.streams.size() > maxPerUser) {
+            Stream oldest = group.streams.get(0);
+            remove(userId, oldest);
+            offer(group, oldest, Outgoing.CLOSE);
+        }
+        schedule(group);
+        return stream.emitter;
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.covers(InvalidationBus.READING)) {
+            return;
+        }
+        if (event.key() == null) {
+            groups.values().forEach(this::schedule);
+            return;
+        }
+        Group group = groups.get(Long.valueOf(event.key()));
+        if (group != null) {
+            schedule(group);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${my-stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (open.get() == 0) {
+            return;
+        }
+        // Keeps proxies from closing idle connections and finds the ones whose client went away. Only fills empty
+        // slots; the writes run as separate tasks per connection, so one slow client delays nobody else.
+        for (Group group : groups.values()) {
+            for (Stream stream : group.streams) {
+                if (stream.slot.compareAndSet(null, new Outgoing(SseEmitter.event().comment("ping"), false))) {
+                    drainLater(group, stream);
+                }
+            }
+        }
+    }
+
+    private void schedule(Group group) {
+        if (group.pending.compareAndSet(false, true)) {
+            pushExecutor.execute(() -> push(group));
+        }
+    }
+
+    private void push(Group group) {
+        group.pending.set(false);
+        if (group.streams.isEmpty()) {
+            return;
+        }
+        Versioned<MyDashboardResponse> summary;
+        try {
+            summary = myReadingService.getDashboardSummary(group.userId);
+        } catch (RuntimeException ex) {
+            log.warn("Dashboard summary for user {} failed: {}", group.userId, ex.getMessage());
+            return;
+        }
+        long version = summary.getVersion();
+        synchronized (group) {
+            MyDashboardDelta delta = group.lastSent == null ? null
+                    : MyDashboardDelta.between(group.lastSent, summary.getBody(), version);
+            for (Stream stream : group.streams) {
+                Outgoing pending = stream.slot.get();
+                if (!stream.primed || pending != null && pending.data()) {
+                    // New, or the previous delta has not gone out yet: the snapshot replaces it and loses nothing.
+                    stream.primed = true;
+                    offer(group, stream, new Outgoing(SseEmitter.event().name("snapshot").id(Long.toString(version))
+                            .data(summary.getBody(), MediaType.APPLICATION_JSON), true));
+                } else if (delta != null && (delta.hasChanges() || version != group.lastVersion)) {
+                    offer(group, stream, new Outgoing(SseEmitter.event().name("delta").id(Long.toString(version))
+                            .data(delta, MediaType.APPLICATION_JSON), true));
+                }
+            }
+            group.lastSent = summary.getBody();
+            group.lastVersion = version;
+        }
+    }
+
+    /** Replaces whatever the connection has pending; never blocks. */
+    private void offer(Group group, Stream stream, Outgoing outgoing) {
+        stream.slot.set(outgoing);
+        drainLater(group, stream);
+    }
+
+    private void drainLater(Group group, Stream stream) {
+        if (stream.writing.compareAndSet(false, true)) {
+            sendExecutor.execute(() -> drain(group, stream));
+        }
+    }
+
+    private void drain(Group group, Stream stream) {
+        try {
+            Outgoing outgoing;
+            while (!stream.dropped && (outgoing = stream.slot.getAndSet(null)) != null) {
+                if (outgoing == Outgoing.CLOSE) {
+                    stream.emitter.complete();
+                    return;
+                }
+                ScheduledFuture<?> cutoff = sendDeadlines.schedule(() -> drop(group, stream), sendTimeoutMs,
+                        TimeUnit.MILLISECONDS);
+                try {
+                    stream.emitter.send(outgoing.event());
+                } catch (IOException | IllegalStateException ex) {
+                    remove(group.userId, stream);
+                    return;
+                } finally {
+                    cutoff.cancel(false);
+                }
+            }
+        } finally {
+            stream.writing.set(false);
+        }
+        // An offer that came in after the slot was found empty, but before the flag was cleared.
+        if (!stream.dropped && stream.slot.get() != null) {
+            drainLater(group, stream);
+        }
+    }
+
+    /**
+     * Gives up on a connection whose write is stuck. Only the bookkeeping: the emitter cannot be completed while the
+     * write holds it, and the stuck write fails on its own once Tomcat's write timeout closes the socket.
+     */
+    private void drop(Group group, Stream stream) {
+        stream.dropped = true;
+        remove(group.userId, stream);
+        dropped.increment();
+    }
+
+    private void remove(Long userId, Stream stream) {
+        groups.computeIfPresent(userId, (id, g) -> {
+            if (g.streams.remove(stream)) {
+                open.decrementAndGet();
+            }
+            return g.streams.isEmpty() ? null : g;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        pushExecutor.shutdownNow();
+        sendExecutor.shutdownNow();
+        sendDeadlines.shutdownNow();
+        for (Group group : groups.values()) {
+            for (Stream stream : group.streams) {
+                stream.emitter.complete();
+            }
+        }
+    }
+
+    private static final class Group {
+        final Long userId;
+        final List<Stream> streams = new CopyOnWriteArrayList<>();
+        final AtomicBoolean pending = new AtomicBoolean();
+        MyDashboardResponse lastSent;
+        long lastVersion;
+
+        Group(Long userId) {
+            this.userId = userId;
+        }
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** The next write for a connection: an event ({@code data} unless it is a ping), or closing it. */
+    private record Outgoing(SseEmitter.SseEventBuilder event, boolean data) {
+        static final Outgoing CLOSE = new Outgoing(null, false);
+    }
+
+    private static final class Stream {
+        final SseEmitter emitter;
+        final AtomicReference<Outgoing> slot = new AtomicReference<>();
+        final AtomicBoolean writing = new AtomicBoolean();
+        volatile boolean primed;
+        volatile boolean dropped;
+
+        Stream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.config.SearchTuningProperties;
+import com.smartlib.backend.dto.SearchLatencyClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks hnsw.ef_search per latency class and adapts it to the vector query time ai_service reports for that class:
+ * multiplicative decrease when the smoothed time is over budget, additive increase when it is well under.
+ * The round trip (HTTP, query embedding, connection pool wait) is only timed; ef_search cannot fix it.
+ */
+@Component
+@EnableConfigurationProperties(SearchTuningProperties.class)
+public class EfSearchTuner {
+    private static final Logger log = LoggerFactory.getLogger(EfSearchTuner.class);
+
+    private final SearchTuningProperties props;
+    private final MeterRegistry meterRegistry;
+    private final Map<SearchLatencyClass, ClassState> states = new EnumMap<>(SearchLatencyClass.class);
+    private final AtomicBoolean unreported = new AtomicBoolean();
+
+    public EfSearchTuner(SearchTuningProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        for (SearchLatencyClass latencyClass : SearchLatencyClass.values()) {
+            SearchTuningProperties.ClassBudget budget = props.getClasses().get(latencyClass);
+            if (budget == null) {
+                throw new IllegalArgumentException("Missing search.tuning.classes." + latencyClass);
+            }
+            ClassState state = new ClassState(budget, timer("smartlib.search.ai.latency", latencyClass),
+                    timer("smartlib.search.vector.latency", latencyClass));
+            states.put(latencyClass, state);
+            Gauge.builder("smartlib.search.ef_search", state.ef, AtomicInteger::get)
+                    .tag("class", tagOf(latencyClass))
+                    .register(meterRegistry);
+            Gauge.builder("smartlib.search.latency.ewma.ms", state, ClassState::ewmaMs)
+                    .tag("class", tagOf(latencyClass))
+                    .register(meterRegistry);
+        }
+    }
+
+    public int choose(SearchLatencyClass latencyClass, int topK, Integer requested) {
+        if (requested != null) {
+            return clamp(requested, topK, props.getEfMax());
+        }
+        ClassState state = states.get(latencyClass);
+        return clamp(state.ef.get(), topK, Math.min(state.budget.getMaxEf(), props.getEfMax()));
+    }
+
+    /**
+     * Records one successful search. {@code vectorNanos} is the vector query time ai_service reported, or null
+     * when it reported none; only that time drives the controller.
+     */
+    public void record(SearchLatencyClass latencyClass, long roundTripNanos, Long vectorNanos, boolean adaptive) {
+        ClassState state = states.get(latencyClass);
+        state.roundTrip.record(roundTripNanos, TimeUnit.NANOSECONDS);
+        if (vectorNanos == null) {
+            if (unreported.compareAndSet(false, true)) {
+                log.warn("ai_service does not report vector query time; ef_search stays at its current values");
+            }
+            return;
+        }
+        state.vector.record(vectorNanos, TimeUnit.NANOSECONDS);
+        if (!adaptive) {
+            return;
+        }
+        double sampleMs = vectorNanos / 1_000_000.0;
+        double ewma;
+        while (true) {
+            long bits = state.ewmaBits.get();
+            double previous = Double.longBitsToDouble(bits);
+            ewma = previous == 0 ? sampleMs : previous + props.getEwmaAlpha() * (sampleMs - previous);
+            if (state.ewmaBits.compareAndSet(bits, Double.doubleToLongBits(ewma))) {
+                break;
+            }
+        }
+        if (state.samples.incrementAndGet() % props.getAdjustEvery() != 0) {
+            return;
+        }
+        long budgetMs = state.budget.getBudgetMs();
+        int minEf = state.budget.getMinEf();
+        int maxEf = Math.min(state.budget.getMaxEf(), props.getEfMax());
+        if (ewma > budgetMs) {
+            state.ef.updateAndGet(ef -> Math.max(minEf, (int) (ef * props.getDecreaseFactor())));
+        } else if (ewma < budgetMs * props.getHeadroom()) {
+            state.ef.updateAndGet(ef -> Math.min(maxEf, ef + props.getIncreaseStep()));
+        }
+    }
+
+    /**
+     * Failed exchanges (timeouts, refused connections, error statuses) say nothing about how long a search at the
+     * current ef_search takes, so they are counted here instead of feeding the latency timers and the controller.
+     */
+    public void recordFailure(SearchLatencyClass latencyClass, Throwable error) {
+        Counter.builder("smartlib.search.ai.failures")
+                .tag("class", tagOf(latencyClass))
+                .tag("exception", error.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public int currentEf(SearchLatencyClass latencyClass) {
+        return states.get(latencyClass).ef.get();
+    }
+
+    private int clamp(int ef, int topK, int max) {
+        return Math.min(Math.max(Math.max(ef, topK), 8), max);
+    }
+
+    private Timer timer(String name, SearchLatencyClass latencyClass) {
+        return Timer.builder(name)
+                .tag("class", tagOf(latencyClass))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static String tagOf(SearchLatencyClass latencyClass) {
+        return latencyClass.name().toLowerCase();
+    }
+
+    private static final class ClassState {
+        final SearchTuningProperties.ClassBudget budget;
+        final Timer roundTrip;
+        final Timer vector;
+        final AtomicInteger ef;
+        final AtomicLong ewmaBits = new AtomicLong(Double.doubleToLongBits(0));
+        final AtomicLong samples = new AtomicLong();
+
+        ClassState(SearchTuningProperties.ClassBudget budget, Timer roundTrip, Timer vector) {
+            this.budget = budget;
+            this.roundTrip = roundTrip;
+            this.vector = vector;
+            this.ef = new AtomicInteger(budget.getInitialEf());
+        }
+
+        double ewmaMs() {
+            return Double.longBitsToDouble(ewmaBits.get());
+        }
+    }
+}
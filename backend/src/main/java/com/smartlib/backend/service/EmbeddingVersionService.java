@@ -0,0 +1,248 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.dto.EmbeddingVersionCreateRequest;
+import com.smartlib.backend.entity.EmbeddingVersion;
+import com.smartlib.backend.entity.EmbeddingVersionStatus;
+import com.smartlib.backend.ingest.BulkBookLoader;
+import com.smartlib.backend.ingest.ReembedJob;
+import com.smartlib.backend.repository.EmbeddingVersionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+@Service
+public class EmbeddingVersionService {
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingVersionService.class);
+    private static final Pattern VERSION = Pattern.compile("[a-z0-9_]{1,40}");
+
+    private final EmbeddingVersionRepository repository;
+    private final ReembedJob reembedJob;
+    private final BulkBookLoader bulkLoader;
+    private final InvalidationBus invalidationBus;
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "embedding-build"));
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final Set<Long> building = ConcurrentHashMap.newKeySet();
+    private final Duration buildStaleAfter;
+
+    public EmbeddingVersionService(EmbeddingVersionRepository repository, ReembedJob reembedJob, BulkBookLoader bulkLoader,
+                                   InvalidationBus invalidationBus,
+                                   @Value("${embedding.build-heartbeat-ms:30000}") long buildHeartbeatMs,
+                                   @Value("${embedding.build-stale-after:2m}") Duration buildStaleAfter) {
+        if (buildStaleAfter.toMillis() < 2 * buildHeartbeatMs) {
+            throw new IllegalArgumentException("embedding.build-stale-after must be at least two heartbeats");
+        }
+        this.repository = repository;
+        this.reembedJob = reembedJob;
+        this.bulkLoader = bulkLoader;
+        this.invalidationBus = invalidationBus;
+        this.buildStaleAfter = buildStaleAfter;
+    }
+
+    public Optional<EmbeddingVersion> activeVersion() {
+        return Optional.ofNullable(current().active);
+    }
+
+    /**
+     * Version a search should run against: the pinned one when requested (it must be READY or ACTIVE),
+     * otherwise the active one. Empty means the legacy {@code books.embedding} column.
+     */
+    public Optional<EmbeddingVersion> resolveForSearch(String requested) {
+        Snapshot s = current();
+        if (requested == null || requested.isBlank()) {
+            return Optional.ofNullable(s.active);
+        }
+        EmbeddingVersion pinned = s.servable.get(requested);
+        if (pinned == null) {
+            throw new IllegalArgumentException("Embedding version is not servable: " + requested);
+        }
+        return Optional.of(pinned);
+    }
+
+    @Scheduled(fixedDelayString = "${embedding.refresh-ms:30000}")
+    public void refresh() {
+        EmbeddingVersion active = null;
+        Map<String, EmbeddingVersion> servable = new HashMap<>();
+        for (EmbeddingVersion v : repository.findAll()) {
+            if (v.getStatus() == EmbeddingVersionStatus.ACTIVE) {
+                active = v;
+            }
+            if (v.getStatus() == EmbeddingVersionStatus.ACTIVE || v.getStatus() == EmbeddingVersionStatus.READY) {
+                servable.put(v.getVersion(), v);
+            }
+        }
+        snapshot.set(new Snapshot(active, Map.copyOf(servable)));
+    }
+
+    public List<EmbeddingVersion> list() {
+        return repository.findAllByOrderByCreatedAtDesc();
+    }
+
+    public EmbeddingVersion create(EmbeddingVersionCreateRequest req) {
+        EmbeddingVersion saved = register(req);
+        // Queued behind another build it still counts as running here, so its row keeps getting heartbeats.
+        building.add(saved.getId());
+        buildExecutor.submit(() -> build(saved.getId()));
+        return saved;
+    }
+
+    /** Like {@link #create}, but builds on the calling thread and returns the READY or FAILED version. */
+    public EmbeddingVersion createAndBuild(EmbeddingVersionCreateRequest req) {
+        return build(register(req).getId());
+    }
+
+    private EmbeddingVersion register(EmbeddingVersionCreateRequest req) {
+        if (!VERSION.matcher(req.getVersion()).matches()) {
+            throw new IllegalArgumentException("version must match [a-z0-9_]{1,40}");
+        }
+        repository.findByVersion(req.getVersion()).ifPresent(v -> {
+            throw new IllegalArgumentException("Embedding version already exists");
+        });
+        EmbeddingVersion version = new EmbeddingVersion();
+        version.setVersion(req.getVersion());
+        version.setModelName(req.getModelName());
+        version.setDimensions(req.getDimensions());
+        version.setTableName("book_embeddings_" + req.getVersion());
+        version.setStatus(EmbeddingVersionStatus.BUILDING);
+        return repository.save(version);
+    }
+
+    public EmbeddingVersion sync(String versionName) {
+        EmbeddingVersion version = repository.findByVersion(versionName).orElseThrow();
+        if (version.getStatus() != EmbeddingVersionStatus.READY && version.getStatus() != EmbeddingVersionStatus.ACTIVE) {
+            throw new IllegalStateException("Only READY or ACTIVE versions can be synced");
+        }
+        buildExecutor.submit(() -> catchUp(version));
+        return version;
+    }
+
+    public void syncActive() {
+        activeVersion().ifPresent(this::catchUp);
+    }
+
+    @Transactional
+    public EmbeddingVersion activate(String versionName) {
+        EmbeddingVersion target = repository.findByVersion(versionName).orElseThrow();
+        if (target.getStatus() == EmbeddingVersionStatus.ACTIVE) {
+            return target;
+        }
+        if (target.getStatus() != EmbeddingVersionStatus.READY) {
+            throw new IllegalStateException("Only READY versions can be activated");
+        }
+        repository.findFirstByStatus(EmbeddingVersionStatus.ACTIVE).ifPresent(previous -> {
+            previous.setStatus(EmbeddingVersionStatus.READY);
+            repository.save(previous);
+        });
+        target.setStatus(EmbeddingVersionStatus.ACTIVE);
+        target.setActivatedAt(LocalDateTime.now());
+        EmbeddingVersion saved = repository.save(target);
+        invalidationBus.publish(InvalidationBus.EMBEDDINGS, versionName);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                log.info("Embedding version {} is now active", versionName);
+            }
+        });
+        return saved;
+    }
+
+    public void delete(String versionName) {
+        EmbeddingVersion version = repository.findByVersion(versionName).orElseThrow();
+        if (version.getStatus() == EmbeddingVersionStatus.ACTIVE || version.getStatus() == EmbeddingVersionStatus.BUILDING) {
+            throw new IllegalStateException("Cannot delete an ACTIVE or BUILDING version");
+        }
+        repository.delete(version);
+        invalidationBus.publish(InvalidationBus.EMBEDDINGS, versionName);
+        bulkLoader.dropEmbeddingTable(version.getTableName());
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (event.covers(InvalidationBus.EMBEDDINGS)) {
+            refresh();
+        }
+    }
+
+    /**
+     * Beats for the builds running on this node and fails BUILDING versions nobody beats for anymore: their node
+     * crashed or restarted mid-build, and they could otherwise never be deleted. The first run is at startup.
+     */
+    @Scheduled(fixedDelayString = "${embedding.build-heartbeat-ms:30000}")
+    @Transactional
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!building.isEmpty()) {
+            repository.heartbeat(List.copyOf(building), now);
+        }
+        int failed = repository.failAbandoned(now.minus(buildStaleAfter),
+                "Build stopped without finishing: its node went away");
+        if (failed > 0) {
+            log.warn("Marked {} abandoned BUILDING embedding version(s) FAILED", failed);
+            invalidationBus.publish(InvalidationBus.EMBEDDINGS, null);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        buildExecutor.shutdownNow();
+    }
+
+    private EmbeddingVersion build(Long id) {
+        EmbeddingVersion version = repository.findById(id).orElseThrow();
+        long started = System.currentTimeMillis();
+        building.add(id);
+        try {
+            bulkLoader.createEmbeddingTable(version.getTableName(), version.getDimensions());
+            int rows = reembedJob.fill(version.getTableName(), version.getModelName(), false);
+            bulkLoader.buildEmbeddingIndex(version.getTableName());
+            version.setBuiltRows((long) rows);
+            version.setStatus(EmbeddingVersionStatus.READY);
+            log.info("Embedding version {} built: {} rows in {} ms", version.getVersion(), rows,
+                    System.currentTimeMillis() - started);
+        } catch (RuntimeException ex) {
+            log.error("Embedding version {} failed to build", version.getVersion(), ex);
+            version.setStatus(EmbeddingVersionStatus.FAILED);
+            version.setError(ex.getMessage());
+        } finally {
+            building.remove(id);
+        }
+        EmbeddingVersion saved = repository.save(version);
+        invalidationBus.publish(InvalidationBus.EMBEDDINGS, version.getVersion());
+        return saved;
+    }
+
+    private void catchUp(EmbeddingVersion version) {
+        int rows = reembedJob.fill(version.getTableName(), version.getModelName(), true);
+        log.info("Embedding version {} caught up: {} new rows", version.getVersion(), rows);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot.get();
+        if (s == null) {
+            refresh();
+            s = snapshot.get();
+        }
+        return s;
+    }
+
+    private record Snapshot(EmbeddingVersion active, Map<String, EmbeddingVersion> servable) {}
+}
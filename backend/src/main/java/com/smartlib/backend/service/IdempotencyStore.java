@@ -0,0 +1,210 @@
+package com.smartlib.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Replay cache for requests carrying an Idempotency-Key. The first request for a key runs the action; concurrent
+ * and later duplicates wait for and return the same result until the entry expires. Failed actions are forgotten
+ * so the client can retry them.
+ * <p>
+ * Entries live in memory, which coalesces duplicates arriving at the same node. With {@code idempotency.durable}
+ * on, the action also runs in a transaction that first claims the key in {@code idempotency_keys} and stores the
+ * serialized result there, so a duplicate on another node waits for the claiming transaction and replays its
+ * result. Without it, deduplication only holds per node.
+ */
+@Component
+public class IdempotencyStore {
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final String CLAIM_SQL = """
+            INSERT INTO idempotency_keys (scope, idempotency_key, fingerprint, expires_at) VALUES (?, ?, ?, ?)
+            ON CONFLICT (scope, idempotency_key) DO UPDATE
+                SET fingerprint = EXCLUDED.fingerprint, response = NULL, expires_at = EXCLUDED.expires_at
+                WHERE idempotency_keys.expires_at <= ?
+            """;
+    private static final String RESULT_SQL =
+            "UPDATE idempotency_keys SET response = ? WHERE scope = ? AND idempotency_key = ?";
+    private static final String REPLAY_SQL =
+            "SELECT fingerprint, response FROM idempotency_keys WHERE scope = ? AND idempotency_key = ?";
+    private static final String PRUNE_SQL = "DELETE FROM idempotency_keys WHERE expires_at <= ?";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final boolean durable;
+
+    public IdempotencyStore(ObjectMapper objectMapper,
+                            JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${idempotency.ttl:10m}") Duration ttl,
+                            @Value("${idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${idempotency.durable:true}") boolean durable) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlMs = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.durable = durable;
+    }
+
+    /** {@code resultType} reads a result stored by another node; it must round-trip through JSON. */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object request, TypeReference<T> resultType, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = scope + '\n' + key;
+        String fingerprint = fingerprint(request);
+        long now = System.currentTimeMillis();
+        Entry created = new Entry(fingerprint, now + ttlMs);
+        Entry entry = entries.compute(storeKey, (k, existing) ->
+                existing == null || existing.expiresAt <= now ? created : existing);
+
+        if (entry != created) {
+            if (!entry.fingerprint.equals(fingerprint)) {
+                throw new IllegalStateException("Idempotency-Key was already used for a different request");
+            }
+            return (T) await(entry.result);
+        }
+
+        insertionOrder.add(storeKey);
+        evict(now);
+        try {
+            T value = durable ? claimAndRun(scope, key, fingerprint, now, resultType, action) : action.get();
+            created.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            entries.remove(storeKey, created);
+            created.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.prune-ms:600000}", initialDelayString = "${idempotency.prune-ms:600000}")
+    public void prune() {
+        if (durable) {
+            jdbcTemplate.update(PRUNE_SQL, new Timestamp(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * The claim is a row lock: a node inserting the same key blocks until this transaction ends, then either
+     * claims the key itself (rollback) or finds the committed result.
+     */
+    private <T> T claimAndRun(String scope, String key, String fingerprint, long now,
+                              TypeReference<T> resultType, Supplier<T> action) {
+        return transactionTemplate.execute(status -> {
+            Timestamp nowTs = new Timestamp(now);
+            if (jdbcTemplate.update(CLAIM_SQL, scope, key, fingerprint, new Timestamp(now + ttlMs), nowTs) == 0) {
+                return replay(scope, key, fingerprint, resultType);
+            }
+            T value = action.get();
+            jdbcTemplate.update(RESULT_SQL, toJson(value), scope, key);
+            return value;
+        });
+    }
+
+    private <T> T replay(String scope, String key, String fingerprint, TypeReference<T> resultType) {
+        List<String[]> rows = jdbcTemplate.query(REPLAY_SQL,
+                (rs, i) -> new String[]{rs.getString(1), rs.getString(2)}, scope, key);
+        if (rows.isEmpty() || rows.get(0)[1] == null) {
+            // Pruned or cleared between the claim attempt and this read; the client can retry.
+            throw new IllegalStateException("Idempotency-Key is being processed, retry the request");
+        }
+        if (!rows.get(0)[0].equals(fingerprint)) {
+            throw new IllegalStateException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            return objectMapper.readValue(rows.get(0)[1], resultType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void evict(long now) {
+        while (true) {
+            String oldest = insertionOrder.peek();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = entries.get(oldest);
+            boolean stale = entry == null || entry.expiresAt <= now;
+            if (!stale && entries.size() <= maxEntries) {
+                return;
+            }
+            if (insertionOrder.remove(oldest) && entry != null) {
+                entries.remove(oldest, entry);
+            }
+        }
+    }
+
+    /** SHA-256 of the request's JSON, which Jackson writes in a fixed property order for a given class. */
+    private String fingerprint(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be fingerprinted", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Idempotent response cannot be stored", e);
+        }
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final long expiresAt;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
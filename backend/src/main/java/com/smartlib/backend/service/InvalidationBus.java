@@ -0,0 +1,72 @@
+package com.smartlib.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Evicts local caches and tells the other backend nodes to do the same through PostgreSQL NOTIFY. Inside a
+ * transaction both happen only once it commits, so no node reloads a row before the write is visible;
+ * {@link PgInvalidationListener} turns incoming notifications back into {@link CacheInvalidationEvent}s.
+ */
+@Component
+public class InvalidationBus {
+    public static final String CHANNEL = "smartlib_invalidation";
+    public static final String BOOKS = "books";
+    public static final String USERS = "users";
+    public static final String EMBEDDINGS = "embeddings";
+    /** A user's library, sessions or goals changed; keyed by user id. */
+    public static final String READING = "reading";
+
+    private final ApplicationEventPublisher events;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean notifyPeers;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public InvalidationBus(ApplicationEventPublisher events, JdbcTemplate jdbcTemplate,
+                           @Value("${invalidation.enabled:true}") boolean notifyPeers) {
+        this.events = events;
+        this.jdbcTemplate = jdbcTemplate;
+        this.notifyPeers = notifyPeers;
+    }
+
+    public void publish(String topic, Object key) {
+        String k = key == null ? null : key.toString();
+        CacheInvalidationEvent event = new CacheInvalidationEvent(topic, k, false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    events.publishEvent(event);
+                }
+            });
+        } else {
+            events.publishEvent(event);
+        }
+        if (notifyPeers) {
+            String payload = nodeId + "|" + topic + "|" + (k == null ? "" : k);
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, CHANNEL, payload);
+        }
+    }
+
+    /** Dispatches a payload received from the channel; our own notifications were already handled locally. */
+    void receive(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length < 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        events.publishEvent(new CacheInvalidationEvent(parts[1], parts[2].isEmpty() ? null : parts[2], true));
+    }
+
+    void resetAll() {
+        for (String topic : new String[]{BOOKS, USERS, EMBEDDINGS, READING}) {
+            events.publishEvent(new CacheInvalidationEvent(topic, null, true));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.dto.LeaderboardResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weekly and monthly leaderboards by minutes read and books finished, held as {@link RankedScores}. Each board is
+ * rebuilt from the database at startup and when its period rolls over; after that, every committed personal write
+ * (from any node, via {@link InvalidationBus}) recounts only the writing user with one indexed query.
+ */
+@Service
+public class Leaderboards {
+    private static final Logger log = LoggerFactory.getLogger(Leaderboards.class);
+
+    public enum Metric { MINUTES, BOOKS }
+
+    public enum Period { WEEK, MONTH }
+
+    private static final String REBUILD_MINUTES_SQL = """
+            SELECT s.user_id, SUM(s.minutes_read) FROM reading_sessions s
+            WHERE s.session_date BETWEEN ? AND ? GROUP BY s.user_id
+            """;
+    private static final String REBUILD_BOOKS_SQL = """
+            SELECT ub.user_id, COUNT(*) FROM user_books ub
+            WHERE ub.status = 'FINISHED' AND ub.finished_at BETWEEN ? AND ? GROUP BY ub.user_id
+            """;
+    private static final String RECOUNT_SQL = """
+            SELECT u.username,
+                (SELECT COALESCE(SUM(minutes_read), 0) FROM reading_sessions
+                    WHERE user_id = u.id AND session_date BETWEEN ? AND ?),
+                (SELECT COALESCE(SUM(minutes_read), 0) FROM reading_sessions
+                    WHERE user_id = u.id AND session_date BETWEEN ? AND ?),
+                (SELECT COUNT(*) FROM user_books
+                    WHERE user_id = u.id AND status = 'FINISHED' AND finished_at BETWEEN ? AND ?),
+                (SELECT COUNT(*) FROM user_books
+                    WHERE user_id = u.id AND status = 'FINISHED' AND finished_at BETWEEN ? AND ?)
+            FROM users u WHERE u.id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxScore;
+    private final Map<Metric, Map<Period, Board>> boards = new EnumMap<>(Metric.class);
+    private final Map<Long, String> usernames = new ConcurrentHashMap<>();
+
+    public Leaderboards(JdbcTemplate jdbcTemplate, @Value("${leaderboards.max-score:100000}") int maxScore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxScore = maxScore;
+        for (Metric metric : Metric.values()) {
+            Map<Period, Board> byPeriod = new EnumMap<>(Period.class);
+            for (Period period : Period.values()) {
+                byPeriod.put(period, new Board());
+            }
+            boards.put(metric, byPeriod);
+        }
+    }
+
+    public static Metric metric(String value) {
+        try {
+            return Metric.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("metric must be minutes or books");
+        }
+    }
+
+    public static Period period(String value) {
+        try {
+            return Period.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("period must be week or month");
+        }
+    }
+
+    public LeaderboardResponse get(Metric metric, Period period, int limit, Long viewerId) {
+        LocalDate start = start(period, LocalDate.now());
+        RankedScores scores = current(metric, period, start);
+        LeaderboardResponse out = new LeaderboardResponse();
+        out.setMetric(metric.name().toLowerCase(Locale.ROOT));
+        out.setPeriod(period.name().toLowerCase(Locale.ROOT));
+        out.setPeriodStart(start.toString());
+        out.setPeriodEnd(end(period, start).toString());
+        out.setParticipants(scores.size());
+
+        List<LeaderboardResponse.Entry> entries = new ArrayList<>(limit);
+        long rank = 0;
+        long previous = -1;
+        int position = 0;
+        for (RankedScores.Entry e : scores.top(limit)) {
+            position++;
+            if (e.score() != previous) {
+                rank = position;
+                previous = e.score();
+            }
+            entries.add(new LeaderboardResponse.Entry(rank, usernames.get(e.userId()), e.score()));
+        }
+        out.setEntries(entries);
+        if (viewerId != null) {
+            out.setMe(new LeaderboardResponse.Entry(scores.rank(viewerId), usernames.get(viewerId), scores.score(viewerId)));
+        }
+        return out;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        LocalDate today = LocalDate.now();
+        for (Metric metric : Metric.values()) {
+            for (Period period : Period.values()) {
+                current(metric, period, start(period, today));
+            }
+        }
+        jdbcTemplate.query("SELECT id, username FROM users", rs -> {
+            usernames.put(rs.getLong(1), rs.getString(2));
+        });
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.covers(InvalidationBus.READING)) {
+            return;
+        }
+        if (event.key() == null) {
+            boards.values().forEach(byPeriod -> byPeriod.values().forEach(b -> b.start = null));
+            return;
+        }
+        try {
+            recount(Long.valueOf(event.key()));
+        } catch (RuntimeException ex) {
+            log.warn("Leaderboard recount for user {} failed: {}", event.key(), ex.getMessage());
+        }
+    }
+
+    private void recount(long userId) {
+        LocalDate today = LocalDate.now();
+        LocalDate week = start(Period.WEEK, today);
+        LocalDate month = start(Period.MONTH, today);
+        LocalDate weekEnd = end(Period.WEEK, week);
+        LocalDate monthEnd = end(Period.MONTH, month);
+        jdbcTemplate.query(RECOUNT_SQL, rs -> {
+            usernames.put(userId, rs.getString(1));
+            current(Metric.MINUTES, Period.WEEK, week).set(userId, rs.getLong(2));
+            current(Metric.MINUTES, Period.MONTH, month).set(userId, rs.getLong(3));
+            current(Metric.BOOKS, Period.WEEK, week).set(userId, rs.getLong(4));
+            current(Metric.BOOKS, Period.MONTH, month).set(userId, rs.getLong(5));
+        }, week, weekEnd, month, monthEnd, week, weekEnd, month, monthEnd, userId);
+    }
+
+    /** The board for the period starting at {@code start}, rebuilt first if it still holds an older period. */
+    private RankedScores current(Metric metric, Period period, LocalDate start) {
+        Board board = boards.get(metric).get(period);
+        if (start.equals(board.start)) {
+            return board.scores;
+        }
+        synchronized (board) {
+            if (!start.equals(board.start)) {
+                RankedScores rebuilt = new RankedScores(maxScore);
+                jdbcTemplate.query(metric == Metric.MINUTES ? REBUILD_MINUTES_SQL : REBUILD_BOOKS_SQL, rs -> {
+                    rebuilt.set(rs.getLong(1), rs.getLong(2));
+                }, start, end(period, start));
+                board.scores = rebuilt;
+                board.start = start;
+                log.info("Rebuilt {} {} leaderboard from {}: {} users", period, metric, start, rebuilt.size());
+            }
+            return board.scores;
+        }
+    }
+
+    private static LocalDate start(Period period, LocalDate day) {
+        return period == Period.WEEK ? day.with(DayOfWeek.MONDAY) : day.withDayOfMonth(1);
+    }
+
+    private static LocalDate end(Period period, LocalDate start) {
+        return period == Period.WEEK ? start.plusDays(6) : start.plusMonths(1).minusDays(1);
+    }
+
+    private static final class Board {
+        volatile LocalDate start;
+        volatile RankedScores scores = new RankedScores(1);
+    }
+}
@@ -5,11 +5,18 @@ import com.smartlib.backend.entity.*;
 import com.smartlib.backend.repository.BookRepository;
 import com.smartlib.backend.repository.ReadingSessionRepository;
 import com.smartlib.backend.repository.UserBookRepository;
+import com.smartlib.backend.repository.UserBookTombstoneRepository;
 import com.smartlib.backend.repository.UserGoalRepository;
+import com.smartlib.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.*;
 
@@ -19,46 +26,80 @@ public class MyReadingService {
     private final ReadingSessionRepository readingSessionRepository;
     private final UserGoalRepository userGoalRepository;
     private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final UserBookTombstoneRepository tombstoneRepository;
+    private final InvalidationBus invalidationBus;
+    private final ReadingAnalytics readingAnalytics;
+    private final ApplicationEventPublisher events;
+    private final int retainMonths;
+    private final int recentMonths;
 
     public MyReadingService(
             UserBookRepository userBookRepository,
             ReadingSessionRepository readingSessionRepository,
             UserGoalRepository userGoalRepository,
-            BookRepository bookRepository
+            BookRepository bookRepository,
+            UserRepository userRepository,
+            UserBookTombstoneRepository tombstoneRepository,
+            InvalidationBus invalidationBus,
+            ReadingAnalytics readingAnalytics,
+            ApplicationEventPublisher events,
+            @Value("${reading-sessions.retain-months:12}") int retainMonths,
+            @Value("${reading-sessions.recent-months:3}") int recentMonths
     ) {
         this.userBookRepository = userBookRepository;
         this.readingSessionRepository = readingSessionRepository;
         this.userGoalRepository = userGoalRepository;
         this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.invalidationBus = invalidationBus;
+        this.readingAnalytics = readingAnalytics;
+        this.events = events;
+        this.retainMonths = retainMonths;
+        this.recentMonths = recentMonths;
     }
 
-    public List<MyBookResponse> listMyBooks(User user, ReadingStatus status) {
+    @Transactional(readOnly = true)
+    public long currentVersion(User user) {
+        // Empty until a replica has replayed the user's registration; nothing to version yet.
+        return userRepository.findChangeVersion(user.getId()).orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public Versioned<List<MyBookResponse>> listMyBooks(User user, ReadingStatus status) {
+        long version = currentVersion(user);
         List<UserBook> rows = status == null
                 ? userBookRepository.findByUserOrderByUpdatedAtDesc(user)
                 : userBookRepository.findByUserAndStatusOrderByUpdatedAtDesc(user, status);
-        return rows.stream().map(this::toMyBookResponse).toList();
+        return new Versioned<>(rows.stream().map(this::toMyBookResponse).toList(), version);
     }
 
     @Transactional
-    public MyBookResponse addMyBook(User user, MyBookCreateRequest req) {
-        Book book = bookRepository.findById(req.getBookId()).orElseThrow();
-        UserBook row = userBookRepository.findByUserAndBook(user, book).orElseGet(() -> {
-            UserBook created = new UserBook();
-            created.setUser(user);
-            created.setBook(book);
-            created.setStatus(ReadingStatus.TO_READ);
-            created.setProgressPercent(0);
-            return created;
-        });
+    public Versioned<MyBookResponse> addMyBook(User user, MyBookCreateRequest req) {
+        long version = nextVersion(user);
         ReadingStatus nextStatus = req.getStatus() == null ? ReadingStatus.TO_READ : req.getStatus();
-        applyStatusDates(row, nextStatus);
-        row.setStatus(nextStatus);
-        return toMyBookResponse(userBookRepository.save(row));
+        UserBookRepository.UpsertedBook upserted = userBookRepository.upsertForAdd(user.getId(), req.getBookId(),
+                nextStatus.name(), LocalDate.now(), version, LocalDateTime.now()).orElseThrow();
+        UserBook saved = userBookRepository.findById(upserted.getId()).orElseThrow();
+        // Re-posting a book already in the library is an update, not new activity. An update with no previous row
+        // lost an insert race to a concurrent add, which already counted.
+        if (upserted.getInserted()) {
+            events.publishEvent(new ReadingActivityEvent(req.getBookId(), ReadingActivityEvent.Kind.ADDED));
+        }
+        boolean newlyFinished = upserted.getInserted() || (upserted.getPreviousStatus() != null
+                && !ReadingStatus.FINISHED.name().equals(upserted.getPreviousStatus()));
+        if (nextStatus == ReadingStatus.FINISHED && newlyFinished) {
+            events.publishEvent(new ReadingActivityEvent(req.getBookId(), ReadingActivityEvent.Kind.FINISHED));
+        }
+        return new Versioned<>(toMyBookResponse(saved), version);
     }
 
     @Transactional
-    public MyBookResponse updateMyBook(User user, Long myBookId, MyBookUpdateRequest req) {
+    public Versioned<MyBookResponse> updateMyBook(User user, Long myBookId, MyBookUpdateRequest req) {
+        long version = nextVersion(user);
         UserBook row = userBookRepository.findByIdAndUser(myBookId, user).orElseThrow();
+        boolean wasFinished = row.getStatus() == ReadingStatus.FINISHED;
         if (req.getStatus() != null) {
             applyStatusDates(row, req.getStatus());
             row.setStatus(req.getStatus());
@@ -75,110 +116,211 @@ public class MyReadingService {
                 }
             }
         }
-        return toMyBookResponse(userBookRepository.save(row));
+        row.setChangeVersion(version);
+        if (!wasFinished && row.getStatus() == ReadingStatus.FINISHED && row.getBook() != null) {
+            events.publishEvent(new ReadingActivityEvent(row.getBook().getId(), ReadingActivityEvent.Kind.FINISHED));
+        }
+        return new Versioned<>(toMyBookResponse(userBookRepository.save(row)), version);
     }
 
     @Transactional
-    public void deleteMyBook(User user, Long myBookId) {
+    public long deleteMyBook(User user, Long myBookId) {
+        long version = nextVersion(user);
         UserBook row = userBookRepository.findByIdAndUser(myBookId, user).orElseThrow();
         userBookRepository.delete(row);
+        tombstoneRepository.save(new UserBookTombstone(row.getId(), user.getId(), version));
+        return version;
     }
 
+    @Transactional(readOnly = true)
     public List<ReadingSessionResponse> listSessions(User user, LocalDate from, LocalDate to) {
-        List<ReadingSession> rows = (from == null || to == null)
-                ? readingSessionRepository.findByUserOrderBySessionDateDescCreatedAtDesc(user)
-                : readingSessionRepository.findByUserAndSessionDateBetweenOrderBySessionDateDescCreatedAtDesc(user, from, to);
+        LocalDate start = from != null ? from : monthsBack(recentMonths);
+        LocalDate end = to != null ? to : LocalDate.now().plusDays(1);
+        List<ReadingSession> rows =
+                readingSessionRepository.findByUserAndSessionDateBetweenOrderBySessionDateDescCreatedAtDesc(user, start, end);
         return rows.stream().map(this::toSessionResponse).toList();
     }
 
     @Transactional
-    public ReadingSessionResponse createSession(User user, ReadingSessionCreateRequest req) {
-        Book book = bookRepository.findById(req.getBookId()).orElseThrow();
+    public Versioned<ReadingSessionResponse> createSession(User user, ReadingSessionCreateRequest req) {
+        long version = nextVersion(user);
         LocalDate date = LocalDate.parse(req.getSessionDate());
-
-        UserBook row = userBookRepository.findByUserAndBook(user, book).orElseGet(() -> {
-            UserBook created = new UserBook();
-            created.setUser(user);
-            created.setBook(book);
-            created.setStatus(ReadingStatus.READING);
-            created.setStartedAt(LocalDate.now());
-            created.setProgressPercent(0);
-            return created;
-        });
-        if (row.getStatus() == ReadingStatus.TO_READ) {
-            row.setStatus(ReadingStatus.READING);
-            if (row.getStartedAt() == null) {
-                row.setStartedAt(LocalDate.now());
-            }
-            userBookRepository.save(row);
+        // One day of slack for clients ahead of the server's time zone.
+        if (date.isAfter(LocalDate.now().plusDays(1))) {
+            throw new IllegalArgumentException("sessionDate cannot be in the future");
+        }
+        if (date.isBefore(monthsBack(retainMonths))) {
+            throw new IllegalArgumentException("sessionDate is older than the retained session history");
         }
+        int pages = req.getPagesRead() == null ? 0 : req.getPagesRead();
+        userBookRepository.upsertForSession(user.getId(), req.getBookId(), req.getMinutesRead(), pages,
+                date, LocalDate.now(), version, LocalDateTime.now()).orElseThrow();
 
         ReadingSession session = new ReadingSession();
         session.setUser(user);
-        session.setBook(book);
+        session.setBook(bookRepository.getReferenceById(req.getBookId()));
         session.setSessionDate(date);
         session.setMinutesRead(req.getMinutesRead());
-        session.setPagesRead(req.getPagesRead() == null ? 0 : req.getPagesRead());
+        session.setPagesRead(pages);
         session.setNote(req.getNote());
-        return toSessionResponse(readingSessionRepository.save(session));
+        ReadingSession saved = readingSessionRepository.save(session);
+        events.publishEvent(new ReadingActivityEvent(req.getBookId(), ReadingActivityEvent.Kind.SESSION));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readingAnalytics.recordSession(user.getId(), version, date, req.getBookId(), req.getMinutesRead(), pages);
+            }
+        });
+        return new Versioned<>(toSessionResponse(saved), version);
     }
 
     @Transactional
-    public UserGoalResponse updateGoals(User user, UserGoalUpdateRequest req) {
-        UserGoal goal = userGoalRepository.findByUser(user).orElseGet(() -> {
-            UserGoal created = new UserGoal();
-            created.setUser(user);
-            return created;
-        });
+    public Versioned<UserGoalResponse> updateGoals(User user, UserGoalUpdateRequest req) {
+        long version = nextVersion(user);
+        UserGoal goal = findGoal(user);
         goal.setBooksPerMonth(req.getBooksPerMonth());
         goal.setMinutesPerDay(req.getMinutesPerDay());
-        return toUserGoalResponse(userGoalRepository.save(goal));
+        return new Versioned<>(toUserGoalResponse(userGoalRepository.save(goal)), version);
     }
 
+    @Transactional(readOnly = true)
     public UserGoalResponse getGoals(User user) {
-        UserGoal goal = userGoalRepository.findByUser(user).orElseGet(() -> {
-            UserGoal created = new UserGoal();
-            created.setUser(user);
-            return userGoalRepository.save(created);
-        });
-        return toUserGoalResponse(goal);
+        return toUserGoalResponse(findGoal(user));
     }
 
+    @Transactional(readOnly = true)
     public MyDashboardResponse getDashboard(User user) {
-        MyDashboardResponse out = new MyDashboardResponse();
-        out.setTotalBooks(userBookRepository.findByUserOrderByUpdatedAtDesc(user).size());
-        out.setToReadBooks(userBookRepository.countByUserAndStatus(user, ReadingStatus.TO_READ));
-        out.setReadingBooks(userBookRepository.countByUserAndStatus(user, ReadingStatus.READING));
-        out.setFinishedBooks(userBookRepository.countByUserAndStatus(user, ReadingStatus.FINISHED));
-
-        UserGoal goal = userGoalRepository.findByUser(user).orElseGet(() -> {
-            UserGoal created = new UserGoal();
-            created.setUser(user);
-            return userGoalRepository.save(created);
+        return buildDashboard(user, userBookRepository.findByUserOrderByUpdatedAtDesc(user), findGoal(user));
+    }
+
+    /**
+     * Dashboard figures for live streams, from aggregate queries instead of the whole library. Stays on the primary:
+     * it runs right after the user's own commit.
+     */
+    @Transactional
+    public Versioned<MyDashboardResponse> getDashboardSummary(Long userId) {
+        User user = userRepository.getReferenceById(userId);
+        long version = currentVersion(user);
+        long total = 0;
+        Map<ReadingStatus, Long> counts = new EnumMap<>(ReadingStatus.class);
+        for (Object[] row : userBookRepository.countByStatus(user)) {
+            long count = (Long) row[1];
+            total += count;
+            if (row[0] != null) {
+                counts.put((ReadingStatus) row[0], count);
+            }
+        }
+        List<LocalDate> finishedDates = userBookRepository.findFinishedDates(user, ReadingStatus.FINISHED,
+                YearMonth.now().minusMonths(5).atDay(1));
+        MyDashboardResponse out = buildDashboard(user, total, counts, finishedDates, findGoal(user));
+        return new Versioned<>(out, version);
+    }
+
+    public ReadingAnalyticsResponse getAnalytics(User user) {
+        return readingAnalytics.analyze(user.getId());
+    }
+
+    /**
+     * The reads run one after another on this transaction's connection. The persistence context is not thread safe,
+     * and parallel reads on separate connections would each see their own snapshot, so the page could show a library
+     * and a dashboard from different versions. Each read is an index range scan on the user.
+     */
+    @Transactional(readOnly = true)
+    public MyHomeResponse getHome(User user) {
+        long version = currentVersion(user);
+        List<UserBook> rows = userBookRepository.findByUserOrderByUpdatedAtDesc(user);
+        UserGoal goal = findGoal(user);
+
+        MyHomeResponse out = new MyHomeResponse();
+        out.setVersion(version);
+        out.setUser(new MyHomeResponse.Profile(user.getUsername(), user.getEmail()));
+        out.setBooks(rows.stream().map(this::toMyBookResponse).toList());
+        out.setDashboard(buildDashboard(user, rows, goal));
+        out.setGoals(toUserGoalResponse(goal));
+        return out;
+    }
+
+    // Stays on the primary: a client syncing right after its own write must not see an older version.
+    @Transactional
+    public Optional<MyChangesResponse> getChanges(User user, Long since, boolean includeDashboard) {
+        long version = currentVersion(user);
+        if (since != null && since == version) {
+            return Optional.empty();
+        }
+        MyChangesResponse out = new MyChangesResponse();
+        out.setVersion(version);
+        List<UserBook> rows;
+        if (since == null || since < 0 || since > version) {
+            out.setReset(true);
+            rows = userBookRepository.findByUserOrderByUpdatedAtDesc(user);
+            out.setBooks(rows.stream().map(this::toMyBookResponse).toList());
+        } else {
+            out.setBooks(userBookRepository.findByUserAndChangeVersionGreaterThanOrderByUpdatedAtDesc(user, since)
+                    .stream().map(this::toMyBookResponse).toList());
+            out.setDeletedIds(tombstoneRepository.findByUserIdAndChangeVersionGreaterThan(user.getId(), since)
+                    .stream().map(UserBookTombstone::getUserBookId).toList());
+            rows = includeDashboard ? userBookRepository.findByUserOrderByUpdatedAtDesc(user) : List.of();
+        }
+        if (includeDashboard) {
+            out.setDashboard(buildDashboard(user, rows, findGoal(user)));
+        }
+        return Optional.of(out);
+    }
+
+    private static LocalDate monthsBack(int months) {
+        return YearMonth.now().minusMonths(months - 1L).atDay(1);
+    }
+
+    private long nextVersion(User user) {
+        // Every write bumps the version first, so this is where open dashboard streams learn about it (on commit).
+        invalidationBus.publish(InvalidationBus.READING, user.getId());
+        userRepository.incrementChangeVersion(user.getId());
+        return userRepository.findChangeVersion(user.getId()).orElseThrow();
+    }
+
+    private UserGoal findGoal(User user) {
+        return userGoalRepository.findByUser(user).orElseGet(() -> {
+            UserGoal defaults = new UserGoal();
+            defaults.setUser(user);
+            return defaults;
         });
+    }
+
+    private MyDashboardResponse buildDashboard(User user, List<UserBook> rows, UserGoal goal) {
+        Map<ReadingStatus, Long> counts = new EnumMap<>(ReadingStatus.class);
+        List<LocalDate> finishedDates = new ArrayList<>();
+        for (UserBook row : rows) {
+            if (row.getStatus() == null) continue;
+            counts.merge(row.getStatus(), 1L, Long::sum);
+            if (row.getStatus() == ReadingStatus.FINISHED && row.getFinishedAt() != null) {
+                finishedDates.add(row.getFinishedAt());
+            }
+        }
+        return buildDashboard(user, rows.size(), counts, finishedDates, goal);
+    }
+
+    private MyDashboardResponse buildDashboard(User user, long totalBooks, Map<ReadingStatus, Long> counts,
+                                               List<LocalDate> finishedDates, UserGoal goal) {
+        MyDashboardResponse out = new MyDashboardResponse();
+        out.setTotalBooks(totalBooks);
+        out.setToReadBooks(counts.getOrDefault(ReadingStatus.TO_READ, 0L));
+        out.setReadingBooks(counts.getOrDefault(ReadingStatus.READING, 0L));
+        out.setFinishedBooks(counts.getOrDefault(ReadingStatus.FINISHED, 0L));
+
         out.setBooksPerMonthGoal(goal.getBooksPerMonth());
         out.setMinutesPerDayGoal(goal.getMinutesPerDay());
 
-        List<ReadingSession> sessions = readingSessionRepository.findByUserOrderBySessionDateDescCreatedAtDesc(user);
+        // Bounded on session_date so only the current (and, for recent sessions, the last few) partitions are read.
         LocalDate today = LocalDate.now();
         YearMonth thisMonth = YearMonth.from(today);
-        int minutesToday = 0;
-        int minutesMonth = 0;
-        for (ReadingSession s : sessions) {
-            if (s.getSessionDate() == null) continue;
-            if (s.getSessionDate().equals(today)) {
-                minutesToday += safeInt(s.getMinutesRead());
-            }
-            if (YearMonth.from(s.getSessionDate()).equals(thisMonth)) {
-                minutesMonth += safeInt(s.getMinutesRead());
-            }
-        }
-        out.setMinutesReadToday(minutesToday);
-        out.setMinutesReadThisMonth(minutesMonth);
+        Object[] minutes = readingSessionRepository.sumMinutesAndDay(
+                user, thisMonth.atDay(1), thisMonth.atEndOfMonth(), today).get(0);
+        out.setMinutesReadThisMonth(((Number) minutes[0]).intValue());
+        out.setMinutesReadToday(((Number) minutes[1]).intValue());
 
         out.setRecentSessions(
-                sessions.stream()
-                        .limit(5)
+                readingSessionRepository.findTop5ByUserAndSessionDateGreaterThanEqualOrderBySessionDateDescCreatedAtDesc(
+                                user, monthsBack(recentMonths)).stream()
                         .map(s -> new MyDashboardResponse.RecentSession(
                                 s.getId(),
                                 s.getBook() == null ? null : s.getBook().getId(),
@@ -190,20 +332,17 @@ public class MyReadingService {
                         .toList()
         );
 
-        out.setMonthlyFinished(buildMonthlyFinished(user));
+        out.setMonthlyFinished(buildMonthlyFinished(finishedDates));
         return out;
     }
 
-    private List<MyDashboardResponse.MonthlyCount> buildMonthlyFinished(User user) {
-        List<UserBook> finishedRows = userBookRepository.findByUserAndStatusOrderByUpdatedAtDesc(user, ReadingStatus.FINISHED);
+    private List<MyDashboardResponse.MonthlyCount> buildMonthlyFinished(List<LocalDate> finishedDates) {
         Map<YearMonth, Long> bucket = new HashMap<>();
         LocalDate now = LocalDate.now();
         for (int i = 0; i < 6; i++) {
             bucket.put(YearMonth.from(now.minusMonths(i)), 0L);
         }
-        for (UserBook row : finishedRows) {
-            LocalDate finished = row.getFinishedAt();
-            if (finished == null) continue;
+        for (LocalDate finished : finishedDates) {
             YearMonth ym = YearMonth.from(finished);
             if (bucket.containsKey(ym)) {
                 bucket.put(ym, bucket.get(ym) + 1);
@@ -243,6 +382,10 @@ public class MyReadingService {
         out.setProgressPercent(row.getProgressPercent());
         out.setStartedAt(row.getStartedAt() == null ? null : row.getStartedAt().toString());
         out.setFinishedAt(row.getFinishedAt() == null ? null : row.getFinishedAt().toString());
+        out.setTotalMinutesRead(safeInt(row.getTotalMinutesRead()));
+        out.setTotalPagesRead(safeInt(row.getTotalPagesRead()));
+        out.setLastSessionDate(row.getLastSessionDate() == null ? null : row.getLastSessionDate().toString());
+        out.setChangeVersion(row.getChangeVersion());
         return out;
     }
 
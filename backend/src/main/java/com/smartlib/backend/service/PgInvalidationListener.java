@@ -0,0 +1,116 @@
+package com.smartlib.backend.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds one connection outside the pool, LISTENing on {@link InvalidationBus#CHANNEL}, and feeds notifications
+ * back into the bus. After a reconnect every topic is reset, since notifications sent meanwhile are lost.
+ */
+@Component
+@ConditionalOnProperty(name = "invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class PgInvalidationListener implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(PgInvalidationListener.class);
+    private static final int POLL_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final InvalidationBus bus;
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public PgInvalidationListener(DataSourceProperties dataSourceProperties, InvalidationBus bus) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.bus = bus;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::loop, "pg-invalidation-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        long backoff = 1000;
+        boolean connectedBefore = false;
+        while (running) {
+            try {
+                connect();
+                if (connectedBefore) {
+                    bus.resetAll();
+                }
+                connectedBefore = true;
+                backoff = 1000;
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MS);
+                    if (notifications != null) {
+                        for (PGNotification n : notifications) {
+                            bus.receive(n.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Invalidation listener lost its connection, retrying in {} ms: {}", backoff, ex.getMessage());
+                closeQuietly();
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void connect() throws SQLException {
+        connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        try (Statement st = connection.createStatement()) {
+            st.execute("LISTEN " + InvalidationBus.CHANNEL);
+        }
+    }
+
+    private void closeQuietly() {
+        Connection c = connection;
+        connection = null;
+        if (c != null) {
+            try {
+                c.close();
+            } catch (SQLException ignored) {
+                // already broken
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.smartlib.backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Non-negative scores per user, ranked without sorting. A skip list ordered by score serves the top of the board;
+ * a Fenwick tree counting users per score value answers "how many users score higher" in O(log maxScore).
+ * Scores above {@code maxScore} still order correctly in the skip list but share the top Fenwick slot, so their
+ * ranks count ties among themselves. Users with a zero score are not on the board.
+ */
+public class RankedScores {
+    public record Entry(long userId, long score) {}
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingLong(Entry::score).reversed().thenComparingLong(Entry::userId);
+
+    private final int maxScore;
+    private final int[] tree;
+    private final Map<Long, Long> scores = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ordered = new ConcurrentSkipListSet<>(ORDER);
+
+    public RankedScores(int maxScore) {
+        this.maxScore = maxScore;
+        this.tree = new int[maxScore + 2];
+    }
+
+    public synchronized void set(long userId, long score) {
+        Long previous = scores.get(userId);
+        long old = previous == null ? 0 : previous;
+        if (old == score) {
+            return;
+        }
+        if (old > 0) {
+            ordered.remove(new Entry(userId, old));
+            add(slot(old), -1);
+        }
+        if (score > 0) {
+            scores.put(userId, score);
+            ordered.add(new Entry(userId, score));
+            add(slot(score), 1);
+        } else {
+            scores.remove(userId);
+        }
+    }
+
+    public long score(long userId) {
+        return scores.getOrDefault(userId, 0L);
+    }
+
+    /** 1-based rank, shared by equal scores; 0 when the user is not on the board. */
+    public synchronized long rank(long userId) {
+        long score = score(userId);
+        if (score <= 0) {
+            return 0;
+        }
+        return 1 + scores.size() - prefix(slot(score));
+    }
+
+    /** The first {@code limit} entries, best first; weakly consistent with concurrent updates. */
+    public List<Entry> top(int limit) {
+        List<Entry> out = new ArrayList<>(Math.min(limit, 128));
+        for (Entry e : ordered) {
+            if (out.size() >= limit) {
+                break;
+            }
+            out.add(e);
+        }
+        return out;
+    }
+
+    public int size() {
+        return scores.size();
+    }
+
+    private int slot(long score) {
+        return (int) Math.min(score, maxScore) + 1;
+    }
+
+    private void add(int i, int delta) {
+        for (; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private long prefix(int i) {
+        long sum = 0;
+        for (; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
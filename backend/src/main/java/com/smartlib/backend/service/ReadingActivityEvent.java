@@ -0,0 +1,6 @@
+package com.smartlib.backend.service;
+
+/** A user added, read or finished a book; published inside the writing transaction. */
+public record ReadingActivityEvent(Long bookId, Kind kind) {
+    public enum Kind { ADDED, SESSION, FINISHED }
+}
@@ -0,0 +1,276 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.dto.ReadingAnalyticsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaks, the yearly heatmap and reading velocity from a per-user index of day-indexed int arrays. An index is
+ * loaded once from {@code reading_sessions} plus the compacted {@code reading_day_totals}, kept in a bounded LRU,
+ * and updated in place when this node commits a session; sessions written on another node evict it.
+ */
+@Service
+public class ReadingAnalytics {
+    static final int HEATMAP_DAYS = 365;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    // One statement, so the version and the rows come from the same snapshot.
+    private static final String LOAD_SQL = """
+            SELECT u.change_version, t.day, t.book_id, t.minutes, t.pages
+            FROM users u
+            LEFT JOIN (
+                SELECT x.day, x.book_id, SUM(x.minutes) AS minutes, SUM(x.pages) AS pages
+                FROM (
+                    SELECT session_date AS day, book_id, minutes_read AS minutes, pages_read AS pages
+                    FROM reading_sessions WHERE user_id = ?
+                    UNION ALL
+                    SELECT day, book_id, minutes_read, pages_read
+                    FROM reading_day_totals WHERE user_id = ?
+                ) x
+                GROUP BY x.day, x.book_id
+            ) t ON 1 = 1
+            WHERE u.id = ?
+            ORDER BY t.day
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, DayIndex> indexes;
+
+    public ReadingAnalytics(JdbcTemplate jdbcTemplate, @Value("${analytics.max-users:5000}") int maxUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, DayIndex> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public ReadingAnalyticsResponse analyze(Long userId) {
+        DayIndex index = index(userId);
+        synchronized (index) {
+            return index.analyze(LocalDate.now().toEpochDay());
+        }
+    }
+
+    private DayIndex index(Long userId) {
+        synchronized (indexes) {
+            DayIndex index = indexes.get(userId);
+            if (index != null) {
+                return index;
+            }
+        }
+        DayIndex loaded = null;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            loaded = load(userId);
+            synchronized (indexes) {
+                DayIndex raced = indexes.putIfAbsent(userId, loaded);
+                if (raced != null) {
+                    return raced;
+                }
+            }
+            // A session committed between the load and the install found no index and was not applied; once
+            // installed, later sessions are. If the version moved, reload rather than guess which ones were missed.
+            if (changeVersion(userId) <= loaded.version) {
+                return loaded;
+            }
+            synchronized (indexes) {
+                indexes.remove(userId, loaded);
+            }
+        }
+        // Still racing with writes: answer from the last snapshot without caching it.
+        return loaded;
+    }
+
+    /**
+     * Applies a committed session to a cached index. Sessions up to the version the index was loaded at are
+     * already in it; versions commit in order per user because each write locks the user's row.
+     */
+    public void recordSession(Long userId, long version, LocalDate day, Long bookId, int minutes, int pages) {
+        DayIndex index;
+        synchronized (indexes) {
+            index = indexes.get(userId);
+        }
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            if (version > index.version) {
+                index.add(day.toEpochDay(), bookId, minutes, pages);
+            }
+        }
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.remote() || !event.covers(InvalidationBus.READING)) {
+            return;
+        }
+        synchronized (indexes) {
+            if (event.key() == null) {
+                indexes.clear();
+            } else {
+                indexes.remove(Long.valueOf(event.key()));
+            }
+        }
+    }
+
+    private long changeVersion(Long userId) {
+        List<Long> rows = jdbcTemplate.query("SELECT change_version FROM users WHERE id = ?",
+                (rs, i) -> rs.getLong(1), userId);
+        if (rows.isEmpty()) {
+            throw new NoSuchElementException("User not found");
+        }
+        return rows.get(0);
+    }
+
+    private DayIndex load(Long userId) {
+        DayIndex index = new DayIndex();
+        boolean[] found = new boolean[1];
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            found[0] = true;
+            index.version = rs.getLong(1);
+            Date day = rs.getDate(2);
+            if (day != null) {
+                index.add(day.toLocalDate().toEpochDay(), rs.getLong(3), rs.getInt(4), rs.getInt(5));
+            }
+        }, userId, userId, userId);
+        if (!found[0]) {
+            throw new NoSuchElementException("User not found");
+        }
+        return index;
+    }
+
+    private static final class DayIndex {
+        long version;
+        long firstDay;
+        int[] minutes = new int[0];
+        int[] pages = new int[0];
+        long totalMinutes;
+        long totalPages;
+        long[] bookIds = new long[0];
+        long[] bookMinutes = new long[0];
+        long[] bookPages = new long[0];
+        int books;
+
+        void add(long day, long bookId, int m, int p) {
+            int i = slot(day);
+            minutes[i] += m;
+            pages[i] += p;
+            totalMinutes += m;
+            totalPages += p;
+            int b = Arrays.binarySearch(bookIds, 0, books, bookId);
+            if (b < 0) {
+                b = -b - 1;
+                if (books == bookIds.length) {
+                    int capacity = Math.max(8, books * 2);
+                    bookIds = Arrays.copyOf(bookIds, capacity);
+                    bookMinutes = Arrays.copyOf(bookMinutes, capacity);
+                    bookPages = Arrays.copyOf(bookPages, capacity);
+                }
+                System.arraycopy(bookIds, b, bookIds, b + 1, books - b);
+                System.arraycopy(bookMinutes, b, bookMinutes, b + 1, books - b);
+                System.arraycopy(bookPages, b, bookPages, b + 1, books - b);
+                bookIds[b] = bookId;
+                bookMinutes[b] = 0;
+                bookPages[b] = 0;
+                books++;
+            }
+            bookMinutes[b] += m;
+            bookPages[b] += p;
+        }
+
+        /** Index of {@code day}, growing the arrays at either end; unused slots stay zero (no reading). */
+        private int slot(long day) {
+            if (minutes.length == 0) {
+                firstDay = day;
+                minutes = new int[64];
+                pages = new int[64];
+            } else if (day < firstDay) {
+                int shift = (int) (firstDay - day);
+                int[] m = new int[minutes.length + shift];
+                int[] p = new int[pages.length + shift];
+                System.arraycopy(minutes, 0, m, shift, minutes.length);
+                System.arraycopy(pages, 0, p, shift, pages.length);
+                minutes = m;
+                pages = p;
+                firstDay = day;
+            }
+            int i = (int) (day - firstDay);
+            if (i >= minutes.length) {
+                int capacity = Math.max(i + 1, minutes.length + (minutes.length >> 1));
+                minutes = Arrays.copyOf(minutes, capacity);
+                pages = Arrays.copyOf(pages, capacity);
+            }
+            return i;
+        }
+
+        private boolean active(long i) {
+            return i >= 0 && i < minutes.length && (minutes[(int) i] > 0 || pages[(int) i] > 0);
+        }
+
+        ReadingAnalyticsResponse analyze(long today) {
+            ReadingAnalyticsResponse out = new ReadingAnalyticsResponse();
+            long t = today - firstDay;
+
+            // A streak is still current if the last reading day was yesterday.
+            long i = active(t) ? t : t - 1;
+            int current = 0;
+            while (active(i)) {
+                current++;
+                i--;
+            }
+            out.setCurrentStreak(current);
+
+            int longest = 0;
+            int run = 0;
+            int longestEnd = -1;
+            for (int d = 0; d < minutes.length; d++) {
+                if (minutes[d] > 0 || pages[d] > 0) {
+                    if (++run > longest) {
+                        longest = run;
+                        longestEnd = d;
+                    }
+                } else {
+                    run = 0;
+                }
+            }
+            out.setLongestStreak(longest);
+            out.setLongestStreakEnd(longestEnd < 0 ? null : LocalDate.ofEpochDay(firstDay + longestEnd).toString());
+
+            long heatmapStart = today - (HEATMAP_DAYS - 1);
+            int[] heatmap = new int[HEATMAP_DAYS];
+            int from = (int) Math.max(0, heatmapStart - firstDay);
+            int to = (int) Math.min(minutes.length, t + 1);
+            if (minutes.length > 0 && from < to) {
+                System.arraycopy(minutes, from, heatmap, (int) (firstDay + from - heatmapStart), to - from);
+            }
+            out.setHeatmapStart(LocalDate.ofEpochDay(heatmapStart).toString());
+            out.setHeatmap(heatmap);
+
+            out.setPagesPerMinute(rate(totalPages, totalMinutes));
+            List<ReadingAnalyticsResponse.BookVelocity> perBook = new ArrayList<>(books);
+            for (int b = 0; b < books; b++) {
+                perBook.add(new ReadingAnalyticsResponse.BookVelocity(
+                        bookIds[b], bookMinutes[b], bookPages[b], rate(bookPages[b], bookMinutes[b])));
+            }
+            out.setBooks(perBook);
+            return out;
+        }
+
+        private static double rate(long pages, long minutes) {
+            return minutes == 0 ? 0 : Math.round(pages * 100.0 / minutes) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.smartlib.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Keeps the monthly partitions of reading_sessions (see V2__partition_reading_sessions.sql) ahead of the
+ * calendar and compacts months older than the retention window into reading_day_totals.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "true", matchIfMissing = true)
+public class ReadingSessionPartitions implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ReadingSessionPartitions.class);
+    private static final long MAINTENANCE_LOCK = 0x5E55_1075L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int retainMonths;
+    private final int monthsAhead;
+
+    public ReadingSessionPartitions(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${reading-sessions.retain-months:12}") int retainMonths,
+            @Value("${reading-sessions.months-ahead:2}") int monthsAhead
+    ) {
+        // Leaderboards read raw sessions of the current week and month; those must never be compacted.
+        if (retainMonths < 2) {
+            throw new IllegalArgumentException("reading-sessions.retain-months must be at least 2");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retainMonths = retainMonths;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        maintain();
+    }
+
+    @Scheduled(cron = "${reading-sessions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        LocalDate cutoff = current.minusMonths(retainMonths - 1L).atDay(1);
+        Integer compacted = transactionTemplate.execute(status -> {
+            // Several backend instances run this job; one of them does the work.
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK))) {
+                return null;
+            }
+            for (int i = 0; i <= monthsAhead; i++) {
+                jdbcTemplate.queryForObject("SELECT reading_sessions_ensure_partition(?)", String.class,
+                        current.plusMonths(i).atDay(1));
+            }
+            return jdbcTemplate.queryForObject("SELECT reading_sessions_compact_before(?)", Integer.class, cutoff);
+        });
+        if (compacted != null && compacted > 0) {
+            log.info("Compacted {} reading_sessions partitions before {} into reading_day_totals", compacted, cutoff);
+        }
+    }
+}
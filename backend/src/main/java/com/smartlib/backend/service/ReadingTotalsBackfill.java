@@ -0,0 +1,29 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.repository.UserBookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class ReadingTotalsBackfill implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ReadingTotalsBackfill.class);
+
+    private final UserBookRepository userBookRepository;
+
+    public ReadingTotalsBackfill(UserBookRepository userBookRepository) {
+        this.userBookRepository = userBookRepository;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        int updated = userBookRepository.backfillSessionTotals();
+        if (updated > 0) {
+            log.info("Backfilled reading totals for {} library rows", updated);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.smartlib.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlib.backend.dto.MyBookResponse;
+import com.smartlib.backend.dto.MyDashboardResponse;
+import com.smartlib.backend.dto.ReadingSessionResponse;
+import com.smartlib.backend.dto.SearchResult;
+import com.smartlib.backend.entity.Book;
+import com.smartlib.backend.entity.ReadingStatus;
+import com.smartlib.backend.entity.User;
+import com.smartlib.backend.repository.UserBookRepository;
+import com.smartlib.backend.repository.UserRepository;
+import com.smartlib.backend.security.JwtService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the hot request paths before the instance reports ready: JWT signing and parsing, every Jackson mapper on
+ * the DTOs the busiest endpoints return, read-only repository queries, and a few anonymous requests through
+ * Tomcat, the security filters and MVC. Spring Boot publishes the readiness state only after all runners, so a
+ * load balancer watching {@code /actuator/health/readiness} sends no traffic to a cold JVM. Nothing is written;
+ * failures are logged and never block startup, and {@code warmup.max-duration} caps the whole phase.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmup implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+    private static final String PROBE_USERNAME = "warmup-probe";
+
+    private final JwtService jwtService;
+    private final HttpMessageConverters messageConverters;
+    private final BookService bookService;
+    private final UserRepository userRepository;
+    private final UserBookRepository userBookRepository;
+    private final TransactionTemplate readOnly;
+    private final Environment environment;
+    private final int iterations;
+    private final int httpRequests;
+    private final long maxDurationMs;
+
+    public StartupWarmup(
+            JwtService jwtService,
+            HttpMessageConverters messageConverters,
+            BookService bookService,
+            UserRepository userRepository,
+            UserBookRepository userBookRepository,
+            PlatformTransactionManager transactionManager,
+            Environment environment,
+            @Value("${warmup.iterations:100}") int iterations,
+            @Value("${warmup.http-requests:20}") int httpRequests,
+            @Value("${warmup.max-duration:30s}") Duration maxDuration
+    ) {
+        this.jwtService = jwtService;
+        this.messageConverters = messageConverters;
+        this.bookService = bookService;
+        this.userRepository = userRepository;
+        this.userBookRepository = userBookRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.environment = environment;
+        this.iterations = iterations;
+        this.httpRequests = httpRequests;
+        this.maxDurationMs = maxDuration.toMillis();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.currentTimeMillis();
+        long deadline = started + maxDurationMs;
+        phase("jwt", deadline, this::jwt);
+        phase("jackson", deadline, this::jackson);
+        phase("repositories", deadline, this::repositories);
+        phase("http", deadline, this::http);
+        log.info("Warm-up finished in {} ms", System.currentTimeMillis() - started);
+    }
+
+    private void phase(String name, long deadline, Phase phase) {
+        long started = System.currentTimeMillis();
+        try {
+            int rounds = phase.run(deadline);
+            log.debug("Warm-up {}: {} rounds in {} ms", name, rounds, System.currentTimeMillis() - started);
+        } catch (Exception ex) {
+            log.warn("Warm-up {} failed: {}", name, ex.getMessage());
+        }
+    }
+
+    private int jwt(long deadline) {
+        int i = 0;
+        for (; i < iterations && System.currentTimeMillis() < deadline; i++) {
+            String token = jwtService.generateToken(PROBE_USERNAME, Map.of("role", "MEMBER"));
+            if (!jwtService.isTokenValid(token) || !PROBE_USERNAME.equals(jwtService.extractUsername(token))) {
+                throw new IllegalStateException("token round trip failed");
+            }
+        }
+        return i;
+    }
+
+    private int jackson(long deadline) throws IOException {
+        List<Object> samples = List.of(sampleBook(), sampleMyBook(), sampleSession(), sampleSearchResult(),
+                new MyDashboardResponse());
+        List<ObjectMapper> mappers = messageConverters.getConverters().stream()
+                .filter(AbstractJackson2HttpMessageConverter.class::isInstance)
+                .map(c -> ((AbstractJackson2HttpMessageConverter) c).getObjectMapper())
+                .distinct()
+                .toList();
+        int i = 0;
+        for (; i < iterations && System.currentTimeMillis() < deadline; i++) {
+            for (ObjectMapper mapper : mappers) {
+                for (Object sample : samples) {
+                    mapper.readValue(mapper.writeValueAsBytes(sample), sample.getClass());
+                }
+            }
+        }
+        return i;
+    }
+
+    private int repositories(long deadline) {
+        // A user id that never exists: the queries run with their real plans and return nothing.
+        User probe = new User();
+        probe.setId(-1L);
+        int rounds = Math.max(1, iterations / 10);
+        int i = 0;
+        for (; i < rounds && System.currentTimeMillis() < deadline; i++) {
+            readOnly.executeWithoutResult(status -> {
+                bookService.search(null, null, PageRequest.of(0, 20));
+                bookService.search(PROBE_USERNAME, true, PageRequest.of(0, 20));
+                userRepository.findByUsername(PROBE_USERNAME);
+                userRepository.findChangeVersion(-1L);
+                userBookRepository.countByStatus(probe);
+                userBookRepository.findByUserOrderByUpdatedAtDesc(probe);
+                userBookRepository.findByUserAndChangeVersionGreaterThanOrderByUpdatedAtDesc(probe, 0L);
+                userBookRepository.countByUserAndStatus(probe, ReadingStatus.READING);
+            });
+        }
+        return i;
+    }
+
+    private int http(long deadline) throws IOException {
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            return 0;
+        }
+        String base = "http://127.0.0.1:" + port;
+        String[][] requests = {
+                {"/api/books?size=20", "application/json"},
+                {"/api/books?size=20", "application/cbor"},
+                {"/api/books/trending?limit=20", "application/json"},
+                {"/api/books/-1", "application/json"},
+        };
+        int i = 0;
+        for (; i < httpRequests && System.currentTimeMillis() < deadline; i++) {
+            for (String[] request : requests) {
+                get(base + request[0], request[1]);
+            }
+        }
+        return i;
+    }
+
+    private static void get(String url, String accept) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        connection.setRequestProperty("Accept", accept);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        connection.setConnectTimeout(2000);
+        connection.setReadTimeout(10000);
+        int status = connection.getResponseCode();
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (body != null) {
+                body.readAllBytes();
+            }
+        }
+    }
+
+    private static Book sampleBook() {
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Warm-up title");
+        book.setAuthor("Warm-up author");
+        book.setIsbn("9780000000000");
+        book.setDescription("A description long enough to exercise string handling in every mapper.");
+        book.setImageUrl("https://example.org/cover.jpg");
+        return book;
+    }
+
+    private static MyBookResponse sampleMyBook() {
+        MyBookResponse book = new MyBookResponse();
+        book.setId(1L);
+        book.setBookId(1L);
+        book.setTitle("Warm-up title");
+        book.setStatus(ReadingStatus.READING);
+        book.setProgressPercent(40);
+        return book;
+    }
+
+    private static ReadingSessionResponse sampleSession() {
+        ReadingSessionResponse session = new ReadingSessionResponse();
+        session.setId(1L);
+        session.setBookId(1L);
+        session.setBookTitle("Warm-up title");
+        session.setSessionDate("2024-01-01");
+        session.setMinutesRead(30);
+        session.setPagesRead(12);
+        return session;
+    }
+
+    private static SearchResult sampleSearchResult() {
+        SearchResult result = new SearchResult();
+        result.setId(1L);
+        result.setTitle("Warm-up title");
+        result.setScore(0.5);
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface Phase {
+        int run(long deadline) throws Exception;
+    }
+}
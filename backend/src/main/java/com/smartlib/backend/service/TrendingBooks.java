@@ -0,0 +1,209 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.dto.TrendingBookResponse;
+import com.smartlib.backend.entity.Book;
+import com.smartlib.backend.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sliding-window popularity of books. Committed library adds, sessions and finishes increment LongAdders in
+ * per-time-bucket maps; a scheduled refresh folds the window into a bounded top-K heap and publishes an immutable
+ * snapshot, which is all a request reads. With checkpoints on, each node periodically adds its bucket deltas to
+ * {@code book_trending_counts} and reloads the window totals from it, so every node ranks by cluster-wide
+ * activity and counts survive restarts. Counts are approximate: increments racing a checkpoint may be dropped.
+ */
+@Service
+public class TrendingBooks {
+    private static final Logger log = LoggerFactory.getLogger(TrendingBooks.class);
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO book_trending_counts (bucket_start, book_id, score)
+            SELECT ?, id, ? FROM books WHERE id = ?
+            ON CONFLICT (bucket_start, book_id) DO UPDATE SET score = book_trending_counts.score + EXCLUDED.score
+            """;
+    private static final String WINDOW_SQL =
+            "SELECT book_id, SUM(score) FROM book_trending_counts WHERE bucket_start >= ? GROUP BY book_id";
+    private static final String PRUNE_SQL = "DELETE FROM book_trending_counts WHERE bucket_start < ?";
+
+    private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long bucketMs;
+    private final int windowBuckets;
+    private final int topK;
+    private final boolean checkpointEnabled;
+    private final Map<ReadingActivityEvent.Kind, Integer> weights;
+
+    private final Map<Long, Map<Long, LongAdder>> pending = new ConcurrentHashMap<>();
+    private volatile Map<Long, Long> checkpointed = Map.of();
+    private final AtomicReference<List<TrendingBookResponse>> snapshot = new AtomicReference<>(List.of());
+    private volatile boolean dirty = true;
+    private volatile long lastRefreshBucket;
+
+    public TrendingBooks(
+            BookRepository bookRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${trending.window:24h}") Duration window,
+            @Value("${trending.bucket:1h}") Duration bucket,
+            @Value("${trending.top-k:50}") int topK,
+            @Value("${trending.checkpoint-enabled:true}") boolean checkpointEnabled,
+            @Value("${trending.weights.added:1}") int addedWeight,
+            @Value("${trending.weights.session:1}") int sessionWeight,
+            @Value("${trending.weights.finished:3}") int finishedWeight
+    ) {
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.bucketMs = bucket.toMillis();
+        this.windowBuckets = (int) Math.max(1, window.toMillis() / bucketMs);
+        this.topK = topK;
+        this.checkpointEnabled = checkpointEnabled;
+        this.weights = Map.of(
+                ReadingActivityEvent.Kind.ADDED, addedWeight,
+                ReadingActivityEvent.Kind.SESSION, sessionWeight,
+                ReadingActivityEvent.Kind.FINISHED, finishedWeight);
+    }
+
+    public List<TrendingBookResponse> top(int limit) {
+        List<TrendingBookResponse> current = snapshot.get();
+        return current.size() <= limit ? current : current.subList(0, limit);
+    }
+
+    @TransactionalEventListener
+    public void onActivity(ReadingActivityEvent event) {
+        int weight = weights.get(event.kind());
+        if (weight <= 0 || event.bookId() == null) {
+            return;
+        }
+        pending.computeIfAbsent(currentBucket(), b -> new ConcurrentHashMap<>())
+                .computeIfAbsent(event.bookId(), id -> new LongAdder())
+                .add(weight);
+        dirty = true;
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        // Titles and covers in the snapshot come from the catalog.
+        if (event.covers(InvalidationBus.BOOKS)) {
+            dirty = true;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        checkpoint();
+    }
+
+    /** Excludes {@link #refresh()}, so a refresh never sees counts that are flushed but not reloaded yet. */
+    @Scheduled(fixedDelayString = "${trending.checkpoint-ms:60000}", initialDelayString = "${trending.checkpoint-ms:60000}")
+    public synchronized void checkpoint() {
+        if (!checkpointEnabled) {
+            refresh();
+            return;
+        }
+        long oldest = currentBucket() - windowBuckets + 1;
+        try {
+            for (Long bucket : new ArrayList<>(pending.keySet())) {
+                Map<Long, LongAdder> counts = pending.remove(bucket);
+                if (counts != null && !counts.isEmpty()) {
+                    flush(bucket, counts);
+                }
+            }
+            Timestamp since = bucketStart(oldest);
+            Map<Long, Long> totals = new HashMap<>();
+            jdbcTemplate.query(WINDOW_SQL, rs -> {
+                totals.put(rs.getLong(1), rs.getLong(2));
+            }, since);
+            jdbcTemplate.update(PRUNE_SQL, since);
+            checkpointed = totals;
+            dirty = true;
+        } catch (RuntimeException ex) {
+            log.warn("Trending checkpoint failed, keeping counts in memory: {}", ex.getMessage());
+        }
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${trending.refresh-ms:10000}")
+    public synchronized void refresh() {
+        long current = currentBucket();
+        if (!dirty && current == lastRefreshBucket) {
+            return;
+        }
+        dirty = false;
+        lastRefreshBucket = current;
+        long oldest = current - windowBuckets + 1;
+        pending.keySet().removeIf(bucket -> bucket < oldest);
+
+        Map<Long, Long> scores = new HashMap<>(checkpointed);
+        pending.forEach((bucket, counts) ->
+                counts.forEach((bookId, adder) -> scores.merge(bookId, adder.sum(), Long::sum)));
+
+        // Min-heap of the best K seen so far: O(n log K) and K entries of memory.
+        PriorityQueue<Map.Entry<Long, Long>> heap = new PriorityQueue<>(topK + 1,
+                Map.Entry.<Long, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey(Collections.reverseOrder())));
+        for (Map.Entry<Long, Long> e : scores.entrySet()) {
+            if (e.getValue() <= 0) continue;
+            heap.offer(e);
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Long>> ranked = new ArrayList<>(heap);
+        ranked.sort(heap.comparator().reversed());
+
+        Map<Long, Book> books = ranked.isEmpty() ? Map.of()
+                : bookRepository.findAllById(ranked.stream().map(Map.Entry::getKey).toList()).stream()
+                        .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<TrendingBookResponse> out = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Long> e : ranked) {
+            Book b = books.get(e.getKey());
+            if (b != null) {
+                out.add(new TrendingBookResponse(b.getId(), b.getTitle(), b.getAuthor(), b.getImageUrl(), e.getValue()));
+            }
+        }
+        snapshot.set(List.copyOf(out));
+    }
+
+    private void flush(Long bucket, Map<Long, LongAdder> counts) {
+        Timestamp start = bucketStart(bucket);
+        List<Object[]> args = new ArrayList<>(counts.size());
+        counts.forEach((bookId, adder) -> args.add(new Object[]{start, adder.sum(), bookId}));
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+        } catch (RuntimeException ex) {
+            // Put the counts back for the next checkpoint.
+            Map<Long, LongAdder> target = pending.computeIfAbsent(bucket, b -> new ConcurrentHashMap<>());
+            counts.forEach((bookId, adder) -> target.computeIfAbsent(bookId, id -> new LongAdder()).add(adder.sum()));
+            throw ex;
+        }
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / bucketMs;
+    }
+
+    private Timestamp bucketStart(long bucket) {
+        return Timestamp.from(Instant.ofEpochMilli(bucket * bucketMs));
+    }
+}
@@ -7,6 +7,7 @@ import com.smartlib.backend.entity.User;
 import com.smartlib.backend.repository.UserRepository;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,16 +15,20 @@ import java.util.List;
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final InvalidationBus invalidationBus;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, InvalidationBus invalidationBus) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.invalidationBus = invalidationBus;
     }
 
+    @Transactional(readOnly = true)
     public List<User> findAll() {
         return userRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public User findById(Long id) {
         return userRepository.findById(id).orElseThrow();
     }
@@ -33,22 +38,32 @@ public class UserService {
     }
 
     public User create(UserCreateRequest req) {
+        ensureAvailable(req);
+        return create(req, passwordEncoder.encode(req.getPassword()));
+    }
+
+    public void ensureAvailable(UserCreateRequest req) {
         userRepository.findByUsername(req.getUsername()).ifPresent(u -> {
             throw new IllegalArgumentException("Username already exists");
         });
         userRepository.findByEmail(req.getEmail()).ifPresent(u -> {
             throw new IllegalArgumentException("Email already exists");
         });
+    }
+
+    /** Saves a new member whose password was already hashed; a racing duplicate fails on the unique constraints. */
+    public User create(UserCreateRequest req, String passwordHash) {
         User user = new User();
         user.setUsername(req.getUsername());
         user.setEmail(req.getEmail());
         user.setRole(Role.MEMBER);
-        user.setPasswordHash(passwordEncoder.encode(req.getPassword()));
+        user.setPasswordHash(passwordHash);
         return userRepository.save(user);
     }
 
     public User update(Long id, UserUpdateRequest req) {
         User user = userRepository.findById(id).orElseThrow();
+        String previousUsername = user.getUsername();
         if (req.getUsername() != null && !req.getUsername().equals(user.getUsername())) {
             userRepository.findByUsername(req.getUsername()).ifPresent(u -> {
                 throw new IllegalArgumentException("Username already exists");
@@ -67,13 +82,15 @@ public class UserService {
         if (req.getRole() != null) {
             user.setRole(req.getRole());
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        invalidationBus.publish(InvalidationBus.USERS, previousUsername);
+        return saved;
     }
 
     public void delete(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new IllegalArgumentException("User not found");
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        userRepository.delete(user);
+        invalidationBus.publish(InvalidationBus.USERS, user.getUsername());
     }
 }
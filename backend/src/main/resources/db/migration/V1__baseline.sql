@@ -0,0 +1,103 @@
+-- Schema as previously created by hibernate.ddl-auto=update. Idempotent so databases created that way
+-- (or by scripts/data_crawler.py, which creates books) converge on the same state.
+
+SET LOCAL client_min_messages = warning;
+
+CREATE TABLE IF NOT EXISTS users (
+    id             bigserial    NOT NULL,
+    username       varchar(255) NOT NULL UNIQUE,
+    email          varchar(255) NOT NULL UNIQUE,
+    password_hash  varchar(255) NOT NULL,
+    role           varchar(255) NOT NULL CHECK (role IN ('ADMIN', 'LIBRARIAN', 'MEMBER')),
+    change_version bigint,
+    PRIMARY KEY (id)
+);
+ALTER TABLE users ADD COLUMN IF NOT EXISTS change_version bigint;
+
+CREATE TABLE IF NOT EXISTS books (
+    id               bigserial    NOT NULL,
+    title            varchar(255) NOT NULL,
+    author           varchar(255),
+    isbn             varchar(255),
+    description      text,
+    image_url        varchar(255),
+    total_copies     integer CHECK (total_copies >= 0),
+    available_copies integer CHECK (available_copies >= 0),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS user_books (
+    id                 bigserial    NOT NULL,
+    user_id            bigint       NOT NULL REFERENCES users (id),
+    book_id            bigint       NOT NULL REFERENCES books (id),
+    status             varchar(255) NOT NULL CHECK (status IN ('TO_READ', 'READING', 'FINISHED', 'DROPPED')),
+    progress_percent   integer      NOT NULL CHECK (progress_percent >= 0 AND progress_percent <= 100),
+    rating             integer CHECK (rating >= 1 AND rating <= 5),
+    started_at         date,
+    finished_at        date,
+    total_minutes_read integer,
+    total_pages_read   integer,
+    last_session_date  date,
+    change_version     bigint,
+    created_at         timestamp(6) NOT NULL,
+    updated_at         timestamp(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_book UNIQUE (user_id, book_id)
+);
+ALTER TABLE user_books ADD COLUMN IF NOT EXISTS total_minutes_read integer;
+ALTER TABLE user_books ADD COLUMN IF NOT EXISTS total_pages_read integer;
+ALTER TABLE user_books ADD COLUMN IF NOT EXISTS last_session_date date;
+ALTER TABLE user_books ADD COLUMN IF NOT EXISTS change_version bigint;
+CREATE INDEX IF NOT EXISTS idx_user_books_user_change_version ON user_books (user_id, change_version);
+
+CREATE TABLE IF NOT EXISTS user_book_tombstones (
+    user_book_id   bigint       NOT NULL,
+    user_id        bigint       NOT NULL,
+    change_version bigint       NOT NULL,
+    deleted_at     timestamp(6) NOT NULL,
+    PRIMARY KEY (user_book_id)
+);
+CREATE INDEX IF NOT EXISTS idx_user_book_tombstones_user_change_version ON user_book_tombstones (user_id, change_version);
+
+CREATE TABLE IF NOT EXISTS user_goals (
+    id              bigserial NOT NULL,
+    user_id         bigint    NOT NULL UNIQUE REFERENCES users (id),
+    books_per_month integer   NOT NULL CHECK (books_per_month >= 1),
+    minutes_per_day integer   NOT NULL CHECK (minutes_per_day >= 1),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS reading_sessions (
+    id           bigserial    NOT NULL,
+    user_id      bigint       NOT NULL REFERENCES users (id),
+    book_id      bigint       NOT NULL REFERENCES books (id),
+    session_date date         NOT NULL,
+    minutes_read integer      NOT NULL CHECK (minutes_read >= 1),
+    pages_read   integer      NOT NULL CHECK (pages_read >= 0),
+    note         text,
+    created_at   timestamp(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS ingest_checkpoints (
+    keyword          varchar(255) NOT NULL,
+    next_start_index integer      NOT NULL,
+    completed        boolean      NOT NULL,
+    updated_at       timestamp(6) NOT NULL,
+    PRIMARY KEY (keyword)
+);
+
+CREATE TABLE IF NOT EXISTS embedding_versions (
+    id           bigserial    NOT NULL,
+    version      varchar(40)  NOT NULL,
+    model_name   varchar(255) NOT NULL,
+    dimensions   integer      NOT NULL,
+    table_name   varchar(255) NOT NULL,
+    status       varchar(255) NOT NULL CHECK (status IN ('BUILDING', 'READY', 'ACTIVE', 'FAILED')),
+    built_rows   bigint,
+    error        text,
+    created_at   timestamp(6) NOT NULL,
+    activated_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_embedding_version UNIQUE (version)
+);
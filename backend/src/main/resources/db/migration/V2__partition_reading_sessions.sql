@@ -0,0 +1,87 @@
+-- reading_sessions becomes range partitioned by month on session_date. Months past the retention window are
+-- rolled into reading_day_totals and dropped by reading_sessions_compact_before() (ReadingSessionPartitions).
+
+ALTER TABLE reading_sessions RENAME TO reading_sessions_unpartitioned;
+ALTER TABLE reading_sessions_unpartitioned RENAME CONSTRAINT reading_sessions_pkey TO reading_sessions_unpartitioned_pkey;
+ALTER SEQUENCE reading_sessions_id_seq OWNED BY NONE;
+
+-- The partition key has to be part of the primary key; ids still come from a single sequence.
+CREATE TABLE reading_sessions (
+    id           bigint       NOT NULL DEFAULT nextval('reading_sessions_id_seq'),
+    user_id      bigint       NOT NULL REFERENCES users (id),
+    book_id      bigint       NOT NULL REFERENCES books (id),
+    session_date date         NOT NULL,
+    minutes_read integer      NOT NULL CHECK (minutes_read >= 1),
+    pages_read   integer      NOT NULL CHECK (pages_read >= 0),
+    note         text,
+    created_at   timestamp(6) NOT NULL,
+    PRIMARY KEY (id, session_date)
+) PARTITION BY RANGE (session_date);
+
+CREATE INDEX idx_reading_sessions_user_date ON reading_sessions (user_id, session_date DESC, created_at DESC);
+CREATE INDEX idx_reading_sessions_user_book ON reading_sessions (user_id, book_id);
+
+CREATE TABLE reading_day_totals (
+    user_id      bigint  NOT NULL REFERENCES users (id),
+    day          date    NOT NULL,
+    book_id      bigint  NOT NULL REFERENCES books (id),
+    sessions     integer NOT NULL,
+    minutes_read integer NOT NULL,
+    pages_read   integer NOT NULL,
+    PRIMARY KEY (user_id, day, book_id)
+);
+
+CREATE FUNCTION reading_sessions_ensure_partition(p_month date) RETURNS text AS $$
+DECLARE
+    start_date date := date_trunc('month', p_month)::date;
+    part       text := 'reading_sessions_' || to_char(start_date, 'YYYY_MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF reading_sessions FOR VALUES FROM (%L) TO (%L)',
+                   part, start_date, (start_date + interval '1 month')::date);
+    RETURN part;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION reading_sessions_compact_before(p_cutoff date) RETURNS integer AS $$
+DECLARE
+    part      record;
+    compacted integer := 0;
+BEGIN
+    FOR part IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'reading_sessions'::regclass
+          AND c.relname ~ '^reading_sessions_[0-9]{4}_[0-9]{2}$'
+          AND to_date(right(c.relname, 7), 'YYYY_MM') < date_trunc('month', p_cutoff)
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format(
+            'INSERT INTO reading_day_totals (user_id, day, book_id, sessions, minutes_read, pages_read)
+             SELECT user_id, session_date, book_id, count(*), sum(minutes_read), sum(pages_read)
+             FROM %I GROUP BY user_id, session_date, book_id
+             ON CONFLICT (user_id, day, book_id) DO UPDATE SET
+                 sessions = reading_day_totals.sessions + EXCLUDED.sessions,
+                 minutes_read = reading_day_totals.minutes_read + EXCLUDED.minutes_read,
+                 pages_read = reading_day_totals.pages_read + EXCLUDED.pages_read', part.relname);
+        EXECUTE format('ALTER TABLE reading_sessions DETACH PARTITION %I', part.relname);
+        EXECUTE format('DROP TABLE %I', part.relname);
+        compacted := compacted + 1;
+    END LOOP;
+    RETURN compacted;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT reading_sessions_ensure_partition(month::date)
+FROM generate_series(
+        date_trunc('month', LEAST(current_date, (SELECT min(session_date) FROM reading_sessions_unpartitioned))),
+        date_trunc('month', GREATEST(current_date + interval '2 months',
+                                     (SELECT max(session_date) FROM reading_sessions_unpartitioned))),
+        interval '1 month') AS month;
+
+INSERT INTO reading_sessions (id, user_id, book_id, session_date, minutes_read, pages_read, note, created_at)
+SELECT id, user_id, book_id, session_date, minutes_read, pages_read, note, created_at
+FROM reading_sessions_unpartitioned;
+
+DROP TABLE reading_sessions_unpartitioned;
+ALTER SEQUENCE reading_sessions_id_seq OWNED BY reading_sessions.id;
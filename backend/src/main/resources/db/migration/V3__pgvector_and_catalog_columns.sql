@@ -0,0 +1,17 @@
+-- Catalog columns and extensions that scripts/data_crawler.py used to create; the ingest pipeline and
+-- ai_service depend on them.
+
+CREATE EXTENSION IF NOT EXISTS vector;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS google_books_id text;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS published_date text;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS embedding vector(384);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'books_google_books_id_key') THEN
+        ALTER TABLE books ADD CONSTRAINT books_google_books_id_key UNIQUE (google_books_id);
+    END IF;
+END
+$$;
@@ -0,0 +1,14 @@
+-- Built CONCURRENTLY so a live database keeps taking writes; Flyway runs this script outside a transaction.
+-- A failed build leaves an INVALID index behind: drop it before rerunning.
+
+-- /api/search (ai_service) nearest-neighbour queries.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS books_embedding_hnsw ON books USING hnsw (embedding vector_cosine_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS books_isbn_idx ON books (isbn);
+
+-- BookRepository.search: LOWER(col) LIKE '%q%'.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_title_trgm ON books USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_author_trgm ON books USING gin (lower(author) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_isbn_trgm ON books USING gin (lower(isbn) gin_trgm_ops);
+
+-- My library, home and dashboard: a user's rows newest first.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_books_user_updated ON user_books (user_id, updated_at DESC);
@@ -0,0 +1,8 @@
+-- Trending counters: each backend node adds its per-bucket deltas here every checkpoint, so the table holds
+-- cluster-wide activity per book and time bucket. Rows older than the trending window are pruned by the nodes.
+CREATE TABLE book_trending_counts (
+    bucket_start timestamptz NOT NULL,
+    book_id      bigint      NOT NULL REFERENCES books (id) ON DELETE CASCADE,
+    score        bigint      NOT NULL,
+    PRIMARY KEY (bucket_start, book_id)
+);
@@ -0,0 +1,12 @@
+-- Idempotency-Key claims shared by all backend nodes. A claim is inserted in the same transaction as the request's
+-- writes and carries the serialized response, so a retry on any node replays it. Expired rows are pruned by the nodes.
+CREATE TABLE idempotency_keys (
+    scope           text         NOT NULL,
+    idempotency_key varchar(255) NOT NULL,
+    fingerprint     char(64)     NOT NULL,
+    response        text,
+    expires_at      timestamptz  NOT NULL,
+    PRIMARY KEY (scope, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,3 @@
+-- A node building an embedding version bumps heartbeat_at while the build runs. BUILDING rows whose heartbeat (or
+-- creation time, before the first beat) is too old belong to a build that died with its node and are marked FAILED.
+ALTER TABLE embedding_versions ADD COLUMN IF NOT EXISTS heartbeat_at timestamp(6);
@@ -0,0 +1,27 @@
+-- Catalog version behind the books ETags, shared by every backend node. A statement-level trigger bumps it on any
+-- write to the served book columns, whoever makes it (the backend, scripts/data_crawler.py, psql), and notifies the
+-- invalidation channel with a 'db' sender so every node, the writer included, evicts its book caches and re-reads
+-- the version. The row update commits with the write, so no node sees the new version before the new rows; it also
+-- serializes concurrent catalog writers on this row, which is fine for admin edits and ingest batches.
+CREATE TABLE catalog_version (
+    id      smallint NOT NULL PRIMARY KEY CHECK (id = 1),
+    version bigint   NOT NULL
+);
+
+-- Seeded from the clock: tags handed out before this migration came from per-process millisecond counters.
+INSERT INTO catalog_version (id, version) VALUES (1, (extract(epoch FROM clock_timestamp()) * 1000)::bigint);
+
+CREATE FUNCTION bump_catalog_version() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE catalog_version SET version = version + 1 WHERE id = 1;
+    PERFORM pg_notify('smartlib_invalidation', 'db|books|');
+    RETURN NULL;
+END
+$$;
+
+-- Embedding-only updates (re-embedding, the crawler's embedding pass) do not change what the API serves.
+CREATE TRIGGER books_catalog_version
+    AFTER INSERT OR DELETE OR TRUNCATE
+        OR UPDATE OF title, author, isbn, description, image_url, total_copies, available_copies
+    ON books
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_catalog_version();
@@ -0,0 +1,190 @@
+package com.smartlib.backend.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smartlib.backend.entity.IngestCheckpoint;
+import com.smartlib.backend.repository.IngestCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestionPipelineTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IngestCheckpointRepository checkpointRepository = mock(IngestCheckpointRepository.class);
+    private final BookUpsertWriter writer = mock(BookUpsertWriter.class);
+    private final List<Batch> batches = new ArrayList<>();
+    private final IngestProperties props = new IngestProperties();
+
+    @TempDir
+    Path fixtures;
+
+    private record Batch(List<IngestedBook> books, List<IngestCheckpoint> checkpoints) {}
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // "Dune": five volumes, the fourth without a title. "Clean Code": three volumes.
+        writeFixture("dune", "dune", 5, 3);
+        writeFixture("clean-code", "cc", 3, -1);
+        props.setPageSize(2);
+        props.setMaxPerKeyword(100);
+        props.setFetchConcurrency(2);
+        props.setEmbedBatchSize(2);
+        props.setUpsertBatchSize(3);
+        props.setQueueCapacity(4);
+        when(checkpointRepository.findAllById(any())).thenReturn(List.of());
+        doAnswer(inv -> {
+            List<IngestedBook> books = inv.getArgument(0);
+            Collection<IngestCheckpoint> checkpoints = inv.getArgument(1);
+            List<IngestCheckpoint> copies = new ArrayList<>();
+            for (IngestCheckpoint cp : checkpoints) {
+                copies.add(checkpoint(cp.getKeyword(), cp.getNextStartIndex(), cp.getCompleted()));
+            }
+            synchronized (batches) {
+                batches.add(new Batch(new ArrayList<>(books), copies));
+            }
+            return null;
+        }).when(writer).write(anyList(), anyCollection());
+    }
+
+    @Test
+    void ingestsEveryKeywordAndSkipsVolumesWithoutTitle() {
+        IngestionReport report = pipeline(new HashingEmbedder(16)).run(List.of("Dune", "Clean Code", "Dune"));
+
+        assertEquals(8, report.getFetched());
+        assertEquals(1, report.getSkipped());
+        assertEquals(7, report.getUpserted());
+        List<String> ids = new ArrayList<>();
+        for (Batch batch : batches) {
+            for (IngestedBook book : batch.books()) {
+                ids.add(book.getGoogleBooksId());
+                assertNotNull(book.getEmbedding());
+                assertEquals(16, book.getEmbedding().length);
+            }
+        }
+        assertEquals(List.of("cc-0", "cc-1", "cc-2", "dune-0", "dune-1", "dune-2", "dune-4"),
+                ids.stream().sorted().toList());
+        Map<String, IngestCheckpoint> last = lastCheckpoints();
+        assertTrue(last.get("Dune").getCompleted());
+        assertTrue(last.get("Clean Code").getCompleted());
+    }
+
+    @Test
+    void checkpointsAreNeverWrittenBeforeTheirBooks() {
+        pipeline(new HashingEmbedder(16)).run(List.of("Dune", "Clean Code"));
+
+        Map<String, Integer> writtenAt = new HashMap<>();
+        for (int i = 0; i < batches.size(); i++) {
+            for (IngestedBook book : batches.get(i).books()) {
+                writtenAt.put(book.getGoogleBooksId(), i);
+            }
+        }
+        for (int i = 0; i < batches.size(); i++) {
+            for (IngestCheckpoint cp : batches.get(i).checkpoints()) {
+                String prefix = cp.getKeyword().equals("Dune") ? "dune-" : "cc-";
+                for (int index = 0; index < cp.getNextStartIndex(); index++) {
+                    Integer batch = writtenAt.get(prefix + index);
+                    if (batch != null) {
+                        assertTrue(batch <= i, prefix + index + " written after checkpoint " + cp.getNextStartIndex());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void resumesFromStoredCheckpoints() {
+        when(checkpointRepository.findAllById(any())).thenReturn(List.of(
+                checkpoint("Dune", 2, false), checkpoint("Clean Code", 4, true)));
+
+        IngestionReport report = pipeline(new HashingEmbedder(16)).run(List.of("Dune", "Clean Code"));
+
+        assertEquals(3, report.getFetched());
+        assertEquals(1, report.getSkipped());
+        List<String> ids = batches.stream().flatMap(b -> b.books().stream()).map(IngestedBook::getGoogleBooksId).toList();
+        assertEquals(List.of("dune-2", "dune-4"), ids);
+        assertTrue(lastCheckpoints().get("Dune").getCompleted());
+        assertFalse(lastCheckpoints().containsKey("Clean Code"));
+    }
+
+    @Test
+    void failingStageAbortsTheRun() {
+        Embedder failing = (texts, model) -> {
+            throw new IllegalStateException("AI service down");
+        };
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> pipeline(failing).run(List.of("Dune", "Clean Code")));
+        assertEquals("AI service down", ex.getCause().getMessage());
+        assertTrue(batches.stream().allMatch(b -> b.books().isEmpty()));
+    }
+
+    @Test
+    void fixtureSourcePagesBySlugAndMissingKeywordsAreEmpty() {
+        FixtureBookSource source = new FixtureBookSource(fixtures, objectMapper);
+
+        assertEquals(List.of("cc-1", "cc-2"),
+                source.fetchPage("Clean Code", 1, 5).stream().map(IngestedBook::getGoogleBooksId).toList());
+        assertEquals(List.of(), source.fetchPage("Clean Code", 3, 5));
+        assertEquals(List.of(), source.fetchPage("Nothing here", 0, 5));
+        assertEquals("tieng-viet-co-ban", FixtureBookSource.slug("  Tiếng Việt: cơ bản! "));
+    }
+
+    private IngestionPipeline pipeline(Embedder embedder) {
+        return new IngestionPipeline(new FixtureBookSource(fixtures, objectMapper), embedder, writer,
+                checkpointRepository, props);
+    }
+
+    private Map<String, IngestCheckpoint> lastCheckpoints() {
+        Map<String, IngestCheckpoint> last = new HashMap<>();
+        for (Batch batch : batches) {
+            for (IngestCheckpoint cp : batch.checkpoints()) {
+                last.put(cp.getKeyword(), cp);
+            }
+        }
+        return last;
+    }
+
+    private static IngestCheckpoint checkpoint(String keyword, int nextStartIndex, boolean completed) {
+        IngestCheckpoint cp = new IngestCheckpoint();
+        cp.setKeyword(keyword);
+        cp.setNextStartIndex(nextStartIndex);
+        cp.setCompleted(completed);
+        return cp;
+    }
+
+    private void writeFixture(String slug, String idPrefix, int count, int untitledIndex) throws Exception {
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode items = root.putArray("items");
+        for (int i = 0; i < count; i++) {
+            ObjectNode item = items.addObject();
+            item.put("id", idPrefix + "-" + i);
+            ObjectNode info = item.putObject("volumeInfo");
+            if (i != untitledIndex) {
+                info.put("title", idPrefix + " volume " + i);
+            }
+            info.putArray("authors").add("Author " + i);
+            info.put("description", "<p>About " + idPrefix + "</p>");
+        }
+        objectMapper.writeValue(fixtures.resolve(slug + ".json").toFile(), root);
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartlib.backend.security;
+
+import com.smartlib.backend.entity.Role;
+import com.smartlib.backend.entity.User;
+import com.smartlib.backend.repository.UserRepository;
+import com.smartlib.backend.service.CacheInvalidationEvent;
+import com.smartlib.backend.service.InvalidationBus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomUserDetailsServiceTest {
+    private final UserRepository repository = mock(UserRepository.class);
+
+    CustomUserDetailsServiceTest() {
+        when(repository.findByUsername(anyString())).thenAnswer(call -> {
+            User user = new User();
+            user.setUsername(call.getArgument(0));
+            user.setPasswordHash("hash");
+            user.setRole(Role.MEMBER);
+            return Optional.of(user);
+        });
+    }
+
+    @Test
+    void cachesLookupsWithinTtl() {
+        CustomUserDetailsService service = new CustomUserDetailsService(repository, Duration.ofMinutes(5), 100);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("alice", service.loadUserByUsername("alice").getUsername());
+        }
+        verify(repository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    void staysBoundedAcrossManyUsersAndReloads() throws InterruptedException {
+        CustomUserDetailsService service = new CustomUserDetailsService(repository, Duration.ofMillis(1), 10);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                service.loadUserByUsername("user" + i);
+            }
+            Thread.sleep(2);
+        }
+        assertTrue(service.size() <= 10, "size " + service.size());
+    }
+
+    @Test
+    void invalidationEvictsTheUser() {
+        CustomUserDetailsService service = new CustomUserDetailsService(repository, Duration.ofMinutes(5), 100);
+        service.loadUserByUsername("alice");
+        service.loadUserByUsername("bob");
+        service.onInvalidation(new CacheInvalidationEvent(InvalidationBus.USERS, "alice", true));
+        assertEquals(1, service.size());
+        service.loadUserByUsername("alice");
+        verify(repository, times(2)).findByUsername("alice");
+        service.onInvalidation(new CacheInvalidationEvent(InvalidationBus.USERS, null, false));
+        assertEquals(0, service.size());
+    }
+}
@@ -0,0 +1,41 @@
+package com.smartlib.backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginThrottleTest {
+    private final LoginThrottle throttle = new LoginThrottle(3, Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 4, 100);
+
+    @Test
+    void successfulSignInsDoNotUseTheUsernameBudget() {
+        for (int i = 0; i < 8; i++) {
+            throttle.acquire("Alice", "10.0.0.1");
+            throttle.refund("alice");
+        }
+        assertDoesNotThrow(() -> throttle.acquire("alice", "10.0.0.2"));
+    }
+
+    @Test
+    void failedPasswordsLockTheUsernameBeforeHashing() {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("alice", "10.0.0." + i);
+        }
+        ThrottledException e = assertThrows(ThrottledException.class, () -> throttle.acquire("ALICE", "10.0.0.9"));
+        assertEquals(429, e.getStatus().value());
+        assertDoesNotThrow(() -> throttle.acquire("bob", "10.0.0.9"));
+    }
+
+    @Test
+    void addressTokensAreNotRefunded() {
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("user" + i, "10.0.0.1");
+            throttle.refund("user" + i);
+        }
+        assertThrows(ThrottledException.class, () -> throttle.acquire("user0", "10.0.0.1"));
+    }
+}
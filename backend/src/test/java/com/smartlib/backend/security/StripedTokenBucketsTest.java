@@ -0,0 +1,107 @@
+package com.smartlib.backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedTokenBucketsTest {
+
+    @Test
+    void burstUpToCapacityThenReportsTheWait() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(3, Duration.ofMinutes(1), 4, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("a"));
+        }
+        long wait = buckets.tryAcquire("a");
+        // One token of a 3-per-minute refill: about 20 seconds.
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(19) && wait <= TimeUnit.SECONDS.toNanos(20), "wait " + wait);
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(1, Duration.ofMinutes(1), 1, 100);
+
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertTrue(buckets.tryAcquire("a") > 0);
+        assertEquals(0, buckets.tryAcquire("b"));
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(1, Duration.ofMillis(100), 1, 100);
+
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertTrue(buckets.tryAcquire("a") > 0);
+        Thread.sleep(150);
+        assertEquals(0, buckets.tryAcquire("a"));
+    }
+
+    @Test
+    void leastRecentlyUsedKeysAreDroppedPerStripe() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(1, Duration.ofMinutes(1), 1, 2);
+
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(0, buckets.tryAcquire("b"));
+        assertTrue(buckets.tryAcquire("a") > 0);
+        assertEquals(0, buckets.tryAcquire("c"));
+
+        // "b" was the eldest and starts over with a full bucket; "a" was touched and is still empty.
+        assertEquals(0, buckets.tryAcquire("b"));
+        assertTrue(buckets.tryAcquire("c") > 0);
+    }
+
+    @Test
+    void refundGivesATokenBackUpToCapacity() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(2, Duration.ofMinutes(1), 1, 100);
+
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertTrue(buckets.tryAcquire("a") > 0);
+        buckets.refund("a");
+        assertEquals(0, buckets.tryAcquire("a"));
+
+        buckets.refund("a");
+        buckets.refund("a");
+        buckets.refund("a");
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertTrue(buckets.tryAcquire("a") > 0);
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanCapacity() throws Exception {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(50, Duration.ofHours(1), 4, 100);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> grants = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                grants.add(pool.submit(() -> {
+                    int granted = 0;
+                    for (int i = 0; i < 100; i++) {
+                        if (buckets.tryAcquire("shared") == 0) {
+                            granted++;
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> g : grants) {
+                total += g.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(50, total);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
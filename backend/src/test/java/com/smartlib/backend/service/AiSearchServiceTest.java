@@ -0,0 +1,134 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.config.SearchTuningProperties;
+import com.smartlib.backend.dto.SearchLatencyClass;
+import com.smartlib.backend.dto.SearchRequest;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AiSearchServiceTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void failedExchangeIsCountedButNotSampled() {
+        EfSearchTuner tuner = tuner();
+        AiSearchService service = new AiSearchService("http://127.0.0.1:1", versions(), tuner);
+
+        SearchRequest req = request();
+        assertThrows(ResourceAccessException.class, () -> service.search(req));
+        assertThrows(ResourceAccessException.class, () -> service.search(req));
+
+        assertEquals(0, registry.get("smartlib.search.ai.latency").tag("class", "interactive").timer().count());
+        assertEquals(2.0, registry.get("smartlib.search.ai.failures").tag("class", "interactive")
+                .tag("exception", "ResourceAccessException").counter().count());
+        assertEquals(64, tuner.currentEf(SearchLatencyClass.INTERACTIVE));
+    }
+
+    @Test
+    void slowRoundTripWithFastVectorQueryRaisesEf() throws IOException {
+        EfSearchTuner tuner = tuner();
+        AiSearchService service = new AiSearchService(serve(200, "2.5"), versions(), tuner);
+
+        service.search(request());
+
+        // 200 ms on the wire is over the 150 ms budget, but the 2.5 ms query is what ef_search controls.
+        assertEquals(72, tuner.currentEf(SearchLatencyClass.INTERACTIVE));
+        assertTrue(timerMs("smartlib.search.ai.latency") >= 200);
+        assertEquals(2.5, timerMs("smartlib.search.vector.latency"), 0.001);
+    }
+
+    @Test
+    void slowVectorQueryLowersEf() throws IOException {
+        EfSearchTuner tuner = tuner();
+        AiSearchService service = new AiSearchService(serve(0, "400"), versions(), tuner);
+
+        service.search(request());
+
+        assertEquals(48, tuner.currentEf(SearchLatencyClass.INTERACTIVE));
+    }
+
+    @Test
+    void missingVectorTimeLeavesEfAlone() throws IOException {
+        EfSearchTuner tuner = tuner();
+        AiSearchService service = new AiSearchService(serve(200, null), versions(), tuner);
+
+        service.search(request());
+
+        assertEquals(64, tuner.currentEf(SearchLatencyClass.INTERACTIVE));
+        assertEquals(1, registry.get("smartlib.search.ai.latency").tag("class", "interactive").timer().count());
+        assertEquals(0, registry.get("smartlib.search.vector.latency").tag("class", "interactive").timer().count());
+    }
+
+    private EfSearchTuner tuner() {
+        SearchTuningProperties props = new SearchTuningProperties();
+        props.setAdjustEvery(1);
+        return new EfSearchTuner(props, registry);
+    }
+
+    private static EmbeddingVersionService versions() {
+        EmbeddingVersionService versions = mock(EmbeddingVersionService.class);
+        when(versions.resolveForSearch(any())).thenReturn(Optional.empty());
+        return versions;
+    }
+
+    private static SearchRequest request() {
+        SearchRequest req = new SearchRequest();
+        req.setQuery("dune");
+        req.setTopK(10);
+        return req;
+    }
+
+    private double timerMs(String name) {
+        return registry.get(name).tag("class", "interactive").timer().totalTime(TimeUnit.MILLISECONDS);
+    }
+
+    /** A /search answering an empty result list after {@code delayMs}, with the given vector time header. */
+    private String serve(long delayMs, String vectorMs) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/search", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (vectorMs != null) {
+                exchange.getResponseHeaders().set(AiSearchService.VECTOR_TIME_HEADER, vectorMs);
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,336 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.controller.BookController;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CoverCacheTest {
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final Map<String, String> hosts = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private String origin;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void startOrigin() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        origin = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopOrigin() {
+        server.stop(0);
+    }
+
+    @Test
+    void rejectsInternalAddresses() throws Exception {
+        for (String ip : new String[]{"127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+                "100.64.0.1", "0.0.0.0", "224.0.0.1", "::1", "fe80::1", "fd00::1", "::ffff:127.0.0.1"}) {
+            assertFalse(CoverCache.publicAddress(InetAddress.getByName(ip)), ip);
+        }
+    }
+
+    @Test
+    void acceptsPublicAddresses() throws Exception {
+        for (String ip : new String[]{"93.184.216.34", "8.8.8.8", "2606:4700:4700::1111"}) {
+            assertTrue(CoverCache.publicAddress(InetAddress.getByName(ip)), ip);
+        }
+    }
+
+    @Test
+    void publicUriOnlyAllowsHttpToPublicHosts() {
+        assertNotNull(CoverCache.publicUri("https://93.184.216.34/cover.jpg"));
+        assertNull(CoverCache.publicUri("http://169.254.169.254/latest/meta-data/"));
+        assertNull(CoverCache.publicUri("http://localhost:8080/actuator/health"));
+        assertNull(CoverCache.publicUri("http://[::1]/x.jpg"));
+        assertNull(CoverCache.publicUri("file:///etc/passwd"));
+        assertNull(CoverCache.publicUri("ftp://93.184.216.34/cover.jpg"));
+        assertNull(CoverCache.publicUri("http://user@93.184.216.34/cover.jpg"));
+        assertNull(CoverCache.publicUri("not a url"));
+    }
+
+    @Test
+    void fetchesOnceAndStoresEveryWidth() throws Exception {
+        serve("/a.png", png(800, 1200), 0);
+        CoverCache cache = cache(Long.MAX_VALUE, 16_000_000, InetAddress::isLoopbackAddress);
+        book(1L, origin + "/a.png");
+
+        CoverCache.Cover small = cache.get(1L, CoverCache.Size.SMALL);
+        CoverCache.Cover medium = cache.get(1L, CoverCache.Size.MEDIUM);
+        CoverCache.Cover large = cache.get(1L, CoverCache.Size.LARGE);
+
+        assertEquals(1, hits.get("/a.png").get());
+        assertEquals("127.0.0.1:" + server.getAddress().getPort(), hosts.get("/a.png"));
+        assertDimensions(small, 96, 144);
+        assertDimensions(medium, 200, 300);
+        assertDimensions(large, 400, 600);
+        assertEquals(small.etag(), large.etag());
+        assertEquals(Files.size(small.file()), small.length());
+    }
+
+    @Test
+    void smallSourcesAreNotUpscaled() throws Exception {
+        serve("/tiny.png", png(50, 80), 0);
+        CoverCache cache = cache(Long.MAX_VALUE, 16_000_000, InetAddress::isLoopbackAddress);
+        book(1L, origin + "/tiny.png");
+
+        assertDimensions(cache.get(1L, CoverCache.Size.LARGE), 50, 80);
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() throws Exception {
+        serve("/slow.png", png(400, 600), 300);
+        CoverCache cache = cache(Long.MAX_VALUE, 16_000_000, InetAddress::isLoopbackAddress);
+        book(1L, origin + "/slow.png");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<CoverCache.Cover>> covers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                CoverCache.Size size = CoverCache.Size.values()[i % 3];
+                covers.add(pool.submit(() -> {
+                    start.await();
+                    return cache.get(1L, size);
+                }));
+            }
+            start.countDown();
+            for (Future<CoverCache.Cover> cover : covers) {
+                assertTrue(cover.get(5, TimeUnit.SECONDS).cached());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, hits.get("/slow.png").get());
+    }
+
+    @Test
+    void leastRecentlyUsedCoversAreEvicted() throws Exception {
+        byte[] image = png(400, 600);
+        for (String path : List.of("/1.png", "/2.png", "/3.png")) {
+            serve(path, image, 0);
+        }
+        // The same image under three URLs gives three books with equally large files.
+        long perBook = 0;
+        CoverCache probe = new CoverCache(jdbc, Files.createDirectory(dir.resolve("probe")), Long.MAX_VALUE,
+                5_242_880, 16_000_000, Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofMinutes(10),
+                0.85f, 100, InetAddress::isLoopbackAddress);
+        book(1L, origin + "/1.png");
+        for (CoverCache.Size size : CoverCache.Size.values()) {
+            perBook += probe.get(1L, size).length();
+        }
+        CoverCache cache = cache(2 * perBook, 16_000_000, InetAddress::isLoopbackAddress);
+        book(2L, origin + "/2.png");
+        book(3L, origin + "/3.png");
+
+        List<CoverCache.Cover> first = all(cache, 1L);
+        List<CoverCache.Cover> second = all(cache, 2L);
+        all(cache, 1L);
+        all(cache, 3L);
+
+        for (CoverCache.Cover cover : first) {
+            assertTrue(Files.exists(cover.file()), cover.file().toString());
+        }
+        for (CoverCache.Cover cover : second) {
+            assertFalse(Files.exists(cover.file()), cover.file().toString());
+        }
+        assertTrue(cache.get(2L, CoverCache.Size.SMALL).cached());
+        assertEquals(2, hits.get("/2.png").get());
+        assertEquals(2, hits.get("/1.png").get());
+    }
+
+    @Test
+    void sourcesAbovePixelCapAreNotDecoded() throws Exception {
+        BufferedImage huge = new BufferedImage(3000, 3000, BufferedImage.TYPE_BYTE_BINARY);
+        serve("/huge.png", encode(huge), 0);
+        CoverCache cache = cache(Long.MAX_VALUE, 1_000_000, InetAddress::isLoopbackAddress);
+        book(1L, origin + "/huge.png");
+
+        CoverCache.Cover cover = cache.get(1L, CoverCache.Size.SMALL);
+
+        assertFalse(cover.cached());
+        assertEquals(origin + "/huge.png", cover.originUrl());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void redirectsAreFollowedAndEveryHopIsChecked() throws Exception {
+        serve("/a.png", png(200, 300), 0);
+        redirect("/moved", "/a.png");
+        redirect("/inward", "http://10.0.0.1/a.png");
+        CoverCache cache = cache(Long.MAX_VALUE, 16_000_000, InetAddress::isLoopbackAddress);
+        book(1L, origin + "/moved");
+        book(2L, origin + "/inward");
+
+        assertTrue(cache.get(1L, CoverCache.Size.SMALL).cached());
+        assertFalse(cache.get(2L, CoverCache.Size.SMALL).cached());
+        assertEquals(1, hits.get("/a.png").get());
+        assertEquals(1, hits.get("/inward").get());
+    }
+
+    @Test
+    void connectsOnlyToAddressesThatPassedTheCheck() throws Exception {
+        serve("/a.png", png(200, 300), 0);
+        // Like a name that re-resolves after being checked: get() and download() check the URL, and the address
+        // the client resolves to connect is the first one that fails.
+        AtomicInteger checks = new AtomicInteger();
+        Predicate<InetAddress> rebinding = address -> checks.getAndIncrement() < 2;
+        CoverCache cache = cache(Long.MAX_VALUE, 16_000_000, rebinding);
+        book(1L, origin + "/a.png");
+
+        CoverCache.Cover cover = cache.get(1L, CoverCache.Size.SMALL);
+
+        assertFalse(cover.cached());
+        assertEquals(3, checks.get());
+        assertNull(hits.get("/a.png"));
+    }
+
+    @Test
+    void controllerAnswersNotModifiedForTheCoverEtag() throws Exception {
+        serve("/a.png", png(400, 600), 0);
+        CoverCache cache = cache(Long.MAX_VALUE, 16_000_000, InetAddress::isLoopbackAddress);
+        book(1L, origin + "/a.png");
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new BookController(mock(BookService.class),
+                mock(CatalogVersion.class), mock(TrendingBooks.class), cache, Duration.ofSeconds(60), 10_000,
+                Duration.ofDays(7))).build();
+
+        CoverCache.Cover cover = cache.get(1L, CoverCache.Size.MEDIUM);
+        mvc.perform(get("/api/books/1/cover"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", cover.etag()))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(Files.readAllBytes(cover.file())));
+        mvc.perform(get("/api/books/1/cover").header("If-None-Match", cover.etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mvc.perform(get("/api/books/1/cover").header("If-None-Match", "\"1-0000000000000000\""))
+                .andExpect(status().isOk());
+        assertEquals(1, hits.get("/a.png").get());
+    }
+
+    private CoverCache cache(long maxBytes, long maxPixels, Predicate<InetAddress> policy) {
+        return new CoverCache(jdbc, dir, maxBytes, 5_242_880, maxPixels, Duration.ofSeconds(5), Duration.ofSeconds(10),
+                Duration.ofMinutes(10), 0.85f, 100, policy);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void book(Long id, String imageUrl) {
+        when(jdbc.query(anyString(), any(RowMapper.class), eq(id))).thenReturn(List.of(imageUrl));
+    }
+
+    private void serve(String path, byte[] body, long delayMs) {
+        server.createContext(path, exchange -> {
+            count(exchange);
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+    }
+
+    private void redirect(String path, String location) {
+        server.createContext(path, exchange -> {
+            count(exchange);
+            exchange.getResponseHeaders().set("Location", location);
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+    }
+
+    private void count(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        hosts.put(path, exchange.getRequestHeaders().getFirst("Host"));
+    }
+
+    private static List<CoverCache.Cover> all(CoverCache cache, Long bookId) {
+        List<CoverCache.Cover> covers = new ArrayList<>();
+        for (CoverCache.Size size : CoverCache.Size.values()) {
+            CoverCache.Cover cover = cache.get(bookId, size);
+            assertTrue(cover.cached());
+            covers.add(cover);
+        }
+        return covers;
+    }
+
+    private static void assertDimensions(CoverCache.Cover cover, int width, int height) throws IOException {
+        assertTrue(cover.cached());
+        BufferedImage image = ImageIO.read(cover.file().toFile());
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLUE);
+        g.fillRect(width / 4, height / 4, width / 2, height / 2);
+        g.dispose();
+        return encode(image);
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,145 @@
+package com.smartlib.backend.service;
+
+import com.smartlib.backend.dto.MyDashboardResponse;
+import com.smartlib.backend.dto.Versioned;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DashboardStreamsTest {
+    private final MyReadingService myReadingService = mock(MyReadingService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, CountDownLatch> stuck = new ConcurrentHashMap<>();
+    private final Map<Long, List<String>> received = new ConcurrentHashMap<>();
+    private DashboardStreams streams;
+    private long subscribing;
+
+    @AfterEach
+    void tearDown() {
+        stuck.values().forEach(CountDownLatch::countDown);
+        streams.destroy();
+    }
+
+    @Test
+    void stuckWriteDropsOnlyItsConnection() throws Exception {
+        streams = streams(Duration.ofMillis(200));
+        stuck.put(1L, new CountDownLatch(1));
+        streams.subscribe(subscriber(1L));
+        streams.subscribe(subscriber(2L));
+        waitFor(() -> received(2L).size() == 1);
+
+        long started = System.nanoTime();
+        streams.heartbeat();
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(500), "heartbeat must not block");
+        waitFor(() -> received(2L).size() == 2);
+        changed(2L);
+
+        waitFor(() -> registry.counter("smartlib.stream.dropped").count() == 1);
+        waitFor(() -> received(2L).size() == 3);
+        assertEquals(List.of("snapshot", "ping", "delta"), received(2L));
+        assertEquals(1.0, registry.get("smartlib.stream.connections").gauge().value());
+    }
+
+    @Test
+    void pendingDeltasCollapseIntoOneSnapshot() throws Exception {
+        streams = streams(Duration.ofSeconds(30));
+        CountDownLatch release = new CountDownLatch(1);
+        stuck.put(1L, release);
+        streams.subscribe(subscriber(1L));
+        waitFor(() -> received(1L).size() == 1);
+
+        for (int i = 0; i < 5; i++) {
+            changed(1L);
+            Thread.sleep(50);
+        }
+        release.countDown();
+
+        waitFor(() -> received(1L).size() == 2);
+        Thread.sleep(200);
+        // The first snapshot was stuck; five changes behind it left a single snapshot of the latest state.
+        assertEquals(List.of("snapshot", "snapshot"), received(1L));
+        assertEquals(0.0, registry.counter("smartlib.stream.dropped").count());
+    }
+
+    private DashboardStreams streams(Duration sendTimeout) {
+        when(myReadingService.getDashboardSummary(anyLong())).thenAnswer(inv -> {
+            MyDashboardResponse body = new MyDashboardResponse();
+            long v = version.incrementAndGet();
+            body.setMinutesReadToday((int) v);
+            return new Versioned<>(body, v);
+        });
+        return new DashboardStreams(myReadingService, registry, Duration.ofMinutes(30), 100, 5, 1, 2, sendTimeout) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                return new RecordingEmitter(subscribing);
+            }
+        };
+    }
+
+    private Long subscriber(long userId) {
+        subscribing = userId;
+        return userId;
+    }
+
+    private void changed(long userId) {
+        streams.onInvalidation(new CacheInvalidationEvent(InvalidationBus.READING, Long.toString(userId), false));
+    }
+
+    private List<String> received(long userId) {
+        return received.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>());
+    }
+
+    private static void waitFor(Check check) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!check.ok()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private interface Check {
+        boolean ok();
+    }
+
+    /** Records event names (or "ping"); the first write of a stuck user blocks until its latch opens. */
+    private final class RecordingEmitter extends SseEmitter {
+        private final long userId;
+
+        RecordingEmitter(long userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            String text = builder.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining());
+            received(userId).add(text.startsWith(":ping") ? "ping" : text.substring(6, text.indexOf('\n')));
+            CountDownLatch latch = stuck.remove(userId);
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
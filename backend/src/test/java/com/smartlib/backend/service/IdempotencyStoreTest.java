@@ -0,0 +1,179 @@
+package com.smartlib.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartlib.backend.dto.ReadingSessionResponse;
+import com.smartlib.backend.dto.Versioned;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+    private static final TypeReference<String> STRING = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IdempotencyStore memoryStore(int maxEntries) {
+        return new IdempotencyStore(objectMapper, mock(JdbcTemplate.class), mock(TransactionTemplate.class),
+                Duration.ofMinutes(10), maxEntries, false);
+    }
+
+    @Test
+    void repeatReturnsFirstResultWithoutRunningAgain() {
+        IdempotencyStore store = memoryStore(100);
+        AtomicInteger runs = new AtomicInteger();
+
+        String first = store.execute("s", "k", Map.of("a", 1), STRING, () -> "r" + runs.incrementAndGet());
+        String second = store.execute("s", "k", Map.of("a", 1), STRING, () -> "r" + runs.incrementAndGet());
+
+        assertEquals("r1", first);
+        assertEquals("r1", second);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void sameKeyWithDifferentRequestIsRejected() {
+        IdempotencyStore store = memoryStore(100);
+        store.execute("s", "k", Map.of("a", 1), STRING, () -> "r");
+
+        assertThrows(IllegalStateException.class, () -> store.execute("s", "k", Map.of("a", 2), STRING, () -> "x"));
+        assertEquals("y", store.execute("other", "k", Map.of("a", 2), STRING, () -> "y"));
+    }
+
+    @Test
+    void failedActionIsForgotten() {
+        IdempotencyStore store = memoryStore(100);
+
+        assertThrows(IllegalArgumentException.class, () -> store.execute("s", "k", "req", STRING, () -> {
+            throw new IllegalArgumentException("bad");
+        }));
+        assertEquals("ok", store.execute("s", "k", "req", STRING, () -> "ok"));
+    }
+
+    @Test
+    void invalidKeysAreRejected() {
+        IdempotencyStore store = memoryStore(100);
+
+        assertThrows(IllegalArgumentException.class, () -> store.execute("s", " ", "req", STRING, () -> "r"));
+        String tooLong = "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1);
+        assertThrows(IllegalArgumentException.class, () -> store.execute("s", tooLong, "req", STRING, () -> "r"));
+    }
+
+    @Test
+    void concurrentDuplicatesRunTheActionOnce() throws Exception {
+        IdempotencyStore store = memoryStore(100);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> store.execute("s", "k", "req", STRING, () -> {
+                    runs.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "r";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("r", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void oldestEntriesAreEvictedBeyondMaxEntries() {
+        IdempotencyStore store = memoryStore(2);
+        AtomicInteger runs = new AtomicInteger();
+
+        store.execute("s", "k1", "req", STRING, () -> "r" + runs.incrementAndGet());
+        store.execute("s", "k2", "req", STRING, () -> "r" + runs.incrementAndGet());
+        store.execute("s", "k3", "req", STRING, () -> "r" + runs.incrementAndGet());
+
+        assertEquals("r4", store.execute("s", "k1", "req", STRING, () -> "r" + runs.incrementAndGet()));
+        assertEquals("r3", store.execute("s", "k3", "req", STRING, () -> "r" + runs.incrementAndGet()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void durableStoreReplaysResultClaimedByAnotherNode() throws Exception {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        IdempotencyStore store = new IdempotencyStore(objectMapper, jdbc, tx, Duration.ofMinutes(10), 100, true);
+
+        ReadingSessionResponse stored = new ReadingSessionResponse();
+        stored.setId(42L);
+        stored.setMinutesRead(30);
+        Object request = Map.of("bookId", 7);
+        String fingerprint = sha256(objectMapper.writeValueAsBytes(request));
+        String json = objectMapper.writeValueAsString(new Versioned<>(stored, 9));
+        when(jdbc.update(anyString(), any(Object[].class))).thenReturn(0);
+        when(jdbc.query(anyString(), any(RowMapper.class), eq("sessions:u"), eq("k")))
+                .thenReturn(Collections.singletonList(new String[]{fingerprint, json}));
+
+        Versioned<ReadingSessionResponse> result = store.execute("sessions:u", "k", request,
+                new TypeReference<Versioned<ReadingSessionResponse>>() {}, () -> {
+                    throw new AssertionError("claimed by another node, must not run");
+                });
+
+        assertEquals(9, result.getVersion());
+        assertEquals(42L, result.getBody().getId());
+        assertEquals(30, result.getBody().getMinutesRead());
+        // Claimed elsewhere but no row to replay (pruned meanwhile): reported as a conflict, not run.
+        assertThrows(IllegalStateException.class, () -> store.execute("sessions:u", "k2", request, STRING, () -> "x"));
+    }
+
+    @Test
+    void durableStoreRunsAndRecordsWhenClaimed() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        when(jdbc.update(anyString(), any(Object[].class))).thenReturn(1);
+        IdempotencyStore store = new IdempotencyStore(objectMapper, jdbc, tx, Duration.ofMinutes(10), 100, true);
+
+        assertSame("r", store.execute("s", "k", "req", STRING, () -> "r"));
+        verify(jdbc).update(eq("UPDATE idempotency_keys SET response = ? WHERE scope = ? AND idempotency_key = ?"),
+                eq("\"r\""), eq("s"), eq("k"));
+        verify(jdbc, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
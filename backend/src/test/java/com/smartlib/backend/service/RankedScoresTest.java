@@ -0,0 +1,104 @@
+package com.smartlib.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankedScoresTest {
+
+    @Test
+    void equalScoresShareARank() {
+        RankedScores board = new RankedScores(1000);
+        board.set(1, 50);
+        board.set(2, 80);
+        board.set(3, 50);
+        board.set(4, 10);
+
+        assertEquals(1, board.rank(2));
+        assertEquals(2, board.rank(1));
+        assertEquals(2, board.rank(3));
+        assertEquals(4, board.rank(4));
+        assertEquals(0, board.rank(99));
+    }
+
+    @Test
+    void topIsBestFirstWithUserIdBreakingTies() {
+        RankedScores board = new RankedScores(1000);
+        board.set(3, 50);
+        board.set(1, 50);
+        board.set(2, 80);
+        board.set(4, 10);
+
+        assertEquals(List.of(new RankedScores.Entry(2, 80), new RankedScores.Entry(1, 50),
+                new RankedScores.Entry(3, 50)), board.top(3));
+        assertEquals(4, board.top(10).size());
+    }
+
+    @Test
+    void updatesMoveUsersAndZeroRemovesThem() {
+        RankedScores board = new RankedScores(1000);
+        board.set(1, 10);
+        board.set(2, 20);
+        board.set(1, 30);
+
+        assertEquals(1, board.rank(1));
+        assertEquals(2, board.rank(2));
+        assertEquals(List.of(new RankedScores.Entry(1, 30), new RankedScores.Entry(2, 20)), board.top(5));
+
+        board.set(1, 0);
+        assertEquals(0, board.rank(1));
+        assertEquals(0, board.score(1));
+        assertEquals(1, board.rank(2));
+        assertEquals(1, board.size());
+    }
+
+    @Test
+    void scoresAboveMaxOrderInTopButTieInRank() {
+        RankedScores board = new RankedScores(100);
+        board.set(1, 500);
+        board.set(2, 200);
+        board.set(3, 100);
+        board.set(4, 99);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), board.top(4).stream().map(RankedScores.Entry::userId).toList());
+        assertEquals(1, board.rank(1));
+        assertEquals(1, board.rank(2));
+        assertEquals(1, board.rank(3));
+        assertEquals(4, board.rank(4));
+    }
+
+    @Test
+    void ranksMatchACountOfHigherScores() {
+        RankedScores board = new RankedScores(500);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            long userId = random.nextInt(300);
+            long score = random.nextInt(10) == 0 ? 0 : random.nextInt(500);
+            board.set(userId, score);
+            if (score > 0) {
+                expected.put(userId, score);
+            } else {
+                expected.remove(userId);
+            }
+        }
+
+        assertEquals(expected.size(), board.size());
+        for (long userId = 0; userId < 300; userId++) {
+            Long score = expected.get(userId);
+            long want = score == null ? 0
+                    : 1 + expected.values().stream().filter(s -> s > score).count();
+            assertEquals(want, board.rank(userId), "rank of user " + userId);
+        }
+        List<RankedScores.Entry> top = board.top(20);
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).score() >= top.get(i).score());
+        }
+    }
+}
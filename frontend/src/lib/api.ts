@@ -34,6 +34,13 @@ async function parseError(res: Response): Promise<string> {
 
 export type AuthResponse = { token: string }
 
+export type CoverSize = 'small' | 'medium' | 'large'
+
+// Served from the backend's thumbnail cache instead of the remote image host.
+export function coverUrl(bookId: number, size: CoverSize = 'medium'): string {
+  return `${API_BASE}/api/books/${bookId}/cover?size=${size}`
+}
+
 export async function apiGet<T>(path: string, token?: string): Promise<T> {
   const res = await fetch(`${API_BASE}${path}`, {
     headers: token ? { Authorization: `Bearer ${token}` } : undefined
@@ -48,12 +55,28 @@ export async function apiGet<T>(path: string, token?: string): Promise<T> {
   return res.json() as Promise<T>
 }
 
-export async function apiPost<T>(path: string, body: unknown, token?: string): Promise<T> {
+export async function apiGetIfChanged<T>(path: string, token?: string): Promise<T | null> {
+  const res = await fetch(`${API_BASE}${path}`, {
+    headers: token ? { Authorization: `Bearer ${token}` } : undefined
+  })
+  if (res.status === 304) return null
+  if (!res.ok) {
+    if (isAuthFailure(res.status, path, Boolean(token))) {
+      emitAuthFailure()
+      throw new Error('Session expired. Please login again.')
+    }
+    throw new Error(await parseError(res))
+  }
+  return res.json() as Promise<T>
+}
+
+export async function apiPost<T>(path: string, body: unknown, token?: string, headers?: Record<string, string>): Promise<T> {
   const res = await fetch(`${API_BASE}${path}`, {
     method: 'POST',
     headers: {
       'Content-Type': 'application/json',
-      ...(token ? { Authorization: `Bearer ${token}` } : {})
+      ...(token ? { Authorization: `Bearer ${token}` } : {}),
+      ...headers
     },
     body: JSON.stringify(body)
   })
@@ -126,4 +149,69 @@ export async function apiDelete<T>(path: string, token?: string): Promise<T | un
   }
 }
 
+export type StreamEvent = { event: string; id?: string; data: string }
+
+// fetch-based Server-Sent Events client: EventSource cannot send the Authorization header.
+export function openEventStream(path: string, token: string, onEvent: (e: StreamEvent) => void): () => void {
+  const controller = new AbortController()
+  let retryMs = 1000
+
+  const dispatch = (block: string) => {
+    const out: StreamEvent = { event: 'message', data: '' }
+    const data: string[] = []
+    for (const line of block.split('\n')) {
+      if (line.startsWith(':')) continue
+      const sep = line.indexOf(':')
+      const field = sep < 0 ? line : line.slice(0, sep)
+      const value = sep < 0 ? '' : line.slice(sep + 1).replace(/^ /, '')
+      if (field === 'event') out.event = value
+      else if (field === 'id') out.id = value
+      else if (field === 'data') data.push(value)
+    }
+    if (data.length === 0) return
+    out.data = data.join('\n')
+    onEvent(out)
+  }
+
+  const run = async () => {
+    while (!controller.signal.aborted) {
+      try {
+        const res = await fetch(`${API_BASE}${path}`, {
+          headers: { Accept: 'text/event-stream', Authorization: `Bearer ${token}` },
+          signal: controller.signal
+        })
+        if (!res.ok || !res.body) {
+          if (isAuthFailure(res.status, path, true)) {
+            emitAuthFailure()
+            return
+          }
+          throw new Error(res.statusText)
+        }
+        retryMs = 1000
+        const reader = res.body.getReader()
+        const decoder = new TextDecoder()
+        let buffer = ''
+        for (;;) {
+          const { done, value } = await reader.read()
+          if (done) break
+          buffer += decoder.decode(value, { stream: true }).replace(/\r\n?/g, '\n')
+          let end = buffer.indexOf('\n\n')
+          while (end >= 0) {
+            dispatch(buffer.slice(0, end))
+            buffer = buffer.slice(end + 2)
+            end = buffer.indexOf('\n\n')
+          }
+        }
+      } catch {
+        if (controller.signal.aborted) return
+        retryMs = Math.min(retryMs * 2, 30000)
+      }
+      await new Promise((resolve) => window.setTimeout(resolve, retryMs))
+    }
+  }
+
+  run()
+  return () => controller.abort()
+}
+
 export { AUTH_FAIL_EVENT }
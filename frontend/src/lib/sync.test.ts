@@ -0,0 +1,43 @@
+import assert from 'node:assert/strict'
+import { test } from 'node:test'
+import { applyLibraryChanges, changesPath, type LibraryChanges } from './sync.ts'
+
+type Row = { id: number; title: string }
+
+const delta = (books: Row[], deletedIds: number[] = [], reset = false): LibraryChanges<Row> =>
+  ({ version: 2, reset, books, deletedIds })
+
+test('reset replaces the whole library', () => {
+  const current = [{ id: 1, title: 'a' }, { id: 2, title: 'b' }]
+  const books = [{ id: 3, title: 'c' }]
+  assert.deepEqual(applyLibraryChanges(current, delta(books, [1], true)), books)
+})
+
+test('changed rows move to the front with their new values', () => {
+  const current = [{ id: 1, title: 'a' }, { id: 2, title: 'b' }, { id: 3, title: 'c' }]
+  const result = applyLibraryChanges(current, delta([{ id: 2, title: 'b2' }, { id: 4, title: 'd' }]))
+  assert.deepEqual(result, [
+    { id: 2, title: 'b2' },
+    { id: 4, title: 'd' },
+    { id: 1, title: 'a' },
+    { id: 3, title: 'c' },
+  ])
+})
+
+test('deleted ids are dropped, unknown ones are ignored', () => {
+  const current = [{ id: 1, title: 'a' }, { id: 2, title: 'b' }]
+  assert.deepEqual(applyLibraryChanges(current, delta([], [2, 99])), [{ id: 1, title: 'a' }])
+})
+
+test('an empty delta keeps the library and does not mutate it', () => {
+  const current = [{ id: 1, title: 'a' }]
+  const result = applyLibraryChanges(current, delta([]))
+  assert.deepEqual(result, current)
+  assert.notEqual(result, current)
+})
+
+test('changesPath only adds the parameters it is given', () => {
+  assert.equal(changesPath(null), '/api/my/changes')
+  assert.equal(changesPath(0), '/api/my/changes?since=0')
+  assert.equal(changesPath(7, true), '/api/my/changes?since=7&dashboard=true')
+})
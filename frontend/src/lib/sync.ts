@@ -0,0 +1,21 @@
+export type LibraryChanges<T> = {
+  version: number
+  reset: boolean
+  books: T[]
+  deletedIds: number[]
+}
+
+export function changesPath(since: number | null, withDashboard = false): string {
+  const params = new URLSearchParams()
+  if (since !== null) params.set('since', String(since))
+  if (withDashboard) params.set('dashboard', 'true')
+  const query = params.toString()
+  return query ? `/api/my/changes?${query}` : '/api/my/changes'
+}
+
+export function applyLibraryChanges<T extends { id: number }>(current: T[], changes: LibraryChanges<T>): T[] {
+  if (changes.reset) return changes.books
+  const deleted = new Set(changes.deletedIds)
+  const updated = new Set(changes.books.map((b) => b.id))
+  return [...changes.books, ...current.filter((b) => !deleted.has(b.id) && !updated.has(b.id))]
+}
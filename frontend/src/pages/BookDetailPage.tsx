@@ -1,6 +1,6 @@
 import { useEffect, useState } from 'react'
 import { Link, useParams } from 'react-router-dom'
-import { apiGet, apiPost } from '../lib/api'
+import { apiGet, apiPost, coverUrl } from '../lib/api'
 import { useAuth } from '../lib/auth'
 
 type Book = {
@@ -64,7 +64,7 @@ export default function BookDetailPage() {
       <div className="detail-card">
         <div className="cover">
           {book.imageUrl ? (
-            <img src={book.imageUrl} alt={book.title} />
+            <img src={coverUrl(book.id, 'large')} alt={book.title} />
           ) : (
             <div className="cover-fallback">No Cover</div>
           )}
@@ -1,6 +1,6 @@
 import { useEffect, useMemo, useState } from 'react'
 import { Link } from 'react-router-dom'
-import { apiGet, apiPost } from '../lib/api'
+import { apiGet, apiPost, coverUrl } from '../lib/api'
 import { useAuth } from '../lib/auth'
 
 type Book = {
@@ -14,6 +14,14 @@ type Book = {
   availableCopies?: number
 }
 
+type TrendingBook = {
+  id: number
+  title: string
+  author: string
+  imageUrl?: string
+  score: number
+}
+
 type Page<T> = {
   content: T[]
   totalElements: number
@@ -26,6 +34,7 @@ export default function BooksPage() {
   const { token } = useAuth()
   const [q, setQ] = useState('')
   const [availableOnly, setAvailableOnly] = useState(false)
+  const [trending, setTrending] = useState(false)
   const [page, setPage] = useState(0)
   const [data, setData] = useState<Page<Book> | null>(null)
   const [loading, setLoading] = useState(false)
@@ -46,7 +55,16 @@ export default function BooksPage() {
     let ignore = false
     setLoading(true)
     setError(null)
-    apiGet<Page<Book>>(`/api/books?${query}`)
+    const request = trending
+      ? apiGet<TrendingBook[]>('/api/books/trending?limit=24').then((items): Page<Book> => ({
+          content: items,
+          totalElements: items.length,
+          totalPages: 1,
+          size: items.length,
+          number: 0
+        }))
+      : apiGet<Page<Book>>(`/api/books?${query}`)
+    request
       .then((res) => {
         if (!ignore) setData(res)
       })
@@ -59,7 +77,7 @@ export default function BooksPage() {
     return () => {
       ignore = true
     }
-  }, [query])
+  }, [query, trending])
 
   const addToMyLibrary = async (bookId: number) => {
     if (!token) {
@@ -94,6 +112,14 @@ export default function BooksPage() {
           />
           Only available
         </label>
+        <label className="checkbox">
+          <input
+            type="checkbox"
+            checked={trending}
+            onChange={(e) => { setTrending(e.target.checked); setPage(0) }}
+          />
+          Trending now
+        </label>
         <div className="meta">
           {data && <span>{data.totalElements} results</span>}
         </div>
@@ -107,7 +133,7 @@ export default function BooksPage() {
         {data?.content.map((b) => (
           <article key={b.id} className="card book-card">
             <div className="book-cover">
-              {b.imageUrl ? <img src={b.imageUrl} alt={b.title} /> : <div className="cover-fallback">No Cover</div>}
+              {b.imageUrl ? <img src={coverUrl(b.id)} alt={b.title} loading="lazy" /> : <div className="cover-fallback">No Cover</div>}
             </div>
             <div className="book-info">
               <div className="card-title">{b.title}</div>
@@ -130,7 +156,7 @@ export default function BooksPage() {
         )}
       </div>
 
-      {data && (
+      {data && !trending && (
         <div className="pager">
           <button onClick={() => setPage((p) => Math.max(0, p - 1))} disabled={page === 0}>
             Prev
@@ -1,5 +1,5 @@
 ﻿import { useState } from 'react'
-import { apiPost } from '../lib/api'
+import { apiPost, coverUrl } from '../lib/api'
 
 type SearchResult = {
   id: number
@@ -74,7 +74,7 @@ export default function HomePage() {
           {results.map((r) => (
             <div key={r.id} className="card book-card">
               <div className="book-cover">
-                {r.image_url ? <img src={r.image_url} alt={r.title} /> : <div className="cover-fallback">No Cover</div>}
+                {r.image_url ? <img src={coverUrl(r.id)} alt={r.title} loading="lazy" /> : <div className="cover-fallback">No Cover</div>}
               </div>
               <div className="book-info">
                 <div className="card-title">{r.title}</div>
@@ -1,7 +1,8 @@
-import { useCallback, useEffect, useState } from 'react'
+import { useCallback, useEffect, useMemo, useRef, useState } from 'react'
 import { Link } from 'react-router-dom'
-import { apiDelete, apiGet, apiPatch } from '../lib/api'
+import { apiDelete, apiGetIfChanged, apiPatch, coverUrl } from '../lib/api'
 import { useAuth } from '../lib/auth'
+import { applyLibraryChanges, changesPath, type LibraryChanges } from '../lib/sync'
 
 type ReadingStatus = 'TO_READ' | 'READING' | 'FINISHED' | 'DROPPED'
 type StatusFilter = 'ALL' | ReadingStatus
@@ -15,13 +16,9 @@ type MyBook = {
   status: ReadingStatus
   rating?: number
   progressPercent: number
-}
-
-type ReadingSession = {
-  id: number
-  bookId: number
-  minutesRead: number
-  pagesRead: number
+  totalMinutesRead: number
+  totalPagesRead: number
+  lastSessionDate?: string
 }
 
 const statusOptions: ReadingStatus[] = ['TO_READ', 'READING', 'FINISHED', 'DROPPED']
@@ -29,38 +26,39 @@ const statusOptions: ReadingStatus[] = ['TO_READ', 'READING', 'FINISHED', 'DROPP
 export default function MyLibraryPage() {
   const { token } = useAuth()
   const [filter, setFilter] = useState<StatusFilter>('ALL')
-  const [books, setBooks] = useState<MyBook[]>([])
-  const [sessionStatsByBookId, setSessionStatsByBookId] = useState<Record<number, { minutes: number; pages: number }>>({})
+  const [allBooks, setAllBooks] = useState<MyBook[]>([])
+  const versionRef = useRef<number | null>(null)
   const [loading, setLoading] = useState(false)
   const [busyBookId, setBusyBookId] = useState<number | null>(null)
   const [error, setError] = useState<string | null>(null)
   const [success, setSuccess] = useState<string | null>(null)
 
+  const books = useMemo(
+    () => (filter === 'ALL' ? allBooks : allBooks.filter((b) => b.status === filter)),
+    [allBooks, filter]
+  )
+
+  const sync = useCallback(async () => {
+    if (!token) return
+    const changes = await apiGetIfChanged<LibraryChanges<MyBook>>(changesPath(versionRef.current), token)
+    if (!changes) return
+    versionRef.current = changes.version
+    setAllBooks((prev) => applyLibraryChanges(prev, changes))
+  }, [token])
+
   const load = useCallback(async () => {
     if (!token) return
     setLoading(true)
     setError(null)
+    versionRef.current = null
     try {
-      const query = filter === 'ALL' ? '' : `?status=${filter}`
-      const [booksData, sessionsData] = await Promise.all([
-        apiGet<MyBook[]>(`/api/my/books${query}`, token),
-        apiGet<ReadingSession[]>('/api/my/sessions', token)
-      ])
-      setBooks(booksData)
-      const nextStats: Record<number, { minutes: number; pages: number }> = {}
-      for (const session of sessionsData) {
-        const key = session.bookId
-        if (!nextStats[key]) nextStats[key] = { minutes: 0, pages: 0 }
-        nextStats[key].minutes += session.minutesRead || 0
-        nextStats[key].pages += session.pagesRead || 0
-      }
-      setSessionStatsByBookId(nextStats)
+      await sync()
     } catch (e) {
       setError((e as Error).message)
     } finally {
       setLoading(false)
     }
-  }, [filter, token])
+  }, [sync, token])
 
   useEffect(() => {
     load()
@@ -73,7 +71,7 @@ export default function MyLibraryPage() {
     setSuccess(null)
     try {
       await apiPatch(`/api/my/books/${book.id}`, patch, token)
-      await load()
+      await sync()
       setSuccess(message)
     } catch (e) {
       setError((e as Error).message)
@@ -91,7 +89,7 @@ export default function MyLibraryPage() {
     setSuccess(null)
     try {
       await apiDelete(`/api/my/books/${book.id}`, token)
-      await load()
+      await sync()
       setSuccess('Book removed from your library.')
     } catch (e) {
       setError((e as Error).message)
@@ -151,7 +149,7 @@ export default function MyLibraryPage() {
         {books.map((book) => (
           <article key={book.id} className="card book-card">
             <div className="book-cover">
-              {book.imageUrl ? <img src={book.imageUrl} alt={book.title} /> : <div className="cover-fallback">No Cover</div>}
+              {book.imageUrl ? <img src={coverUrl(book.bookId)} alt={book.title} loading="lazy" /> : <div className="cover-fallback">No Cover</div>}
             </div>
             <div className="book-info">
               <div className="card-title">{book.title}</div>
@@ -176,7 +174,7 @@ export default function MyLibraryPage() {
                   Minutes read
                   <input
                     type="number"
-                    value={sessionStatsByBookId[book.bookId]?.minutes ?? 0}
+                    value={book.totalMinutesRead ?? 0}
                     readOnly
                   />
                 </label>
@@ -184,7 +182,7 @@ export default function MyLibraryPage() {
                   Pages read
                   <input
                     type="number"
-                    value={sessionStatsByBookId[book.bookId]?.pages ?? 0}
+                    value={book.totalPagesRead ?? 0}
                     readOnly
                   />
                 </label>
@@ -1,7 +1,8 @@
-import { useCallback, useEffect, useMemo, useState } from 'react'
+import { useCallback, useEffect, useMemo, useRef, useState } from 'react'
 import { Link } from 'react-router-dom'
-import { apiGet, apiPatch, apiPost, apiPut } from '../lib/api'
+import { apiGet, apiGetIfChanged, apiPatch, apiPost, apiPut, coverUrl, openEventStream } from '../lib/api'
 import { useAuth } from '../lib/auth'
+import { applyLibraryChanges, changesPath, type LibraryChanges } from '../lib/sync'
 
 type User = {
   username: string
@@ -21,6 +22,9 @@ type MyBook = {
   progressPercent: number
   startedAt?: string
   finishedAt?: string
+  totalMinutesRead: number
+  totalPagesRead: number
+  lastSessionDate?: string
 }
 
 type RecentSession = {
@@ -32,13 +36,6 @@ type RecentSession = {
   pagesRead: number
 }
 
-type ReadingSessionItem = {
-  id: number
-  bookId: number
-  minutesRead: number
-  pagesRead: number
-}
-
 type MonthlyCount = {
   month: string
   count: number
@@ -57,6 +54,17 @@ type Dashboard = {
   recentSessions: RecentSession[]
 }
 
+type MyHome = {
+  version: number
+  user: User
+  books: MyBook[]
+  dashboard: Dashboard
+}
+
+type MyChanges = LibraryChanges<MyBook> & {
+  dashboard?: Dashboard | null
+}
+
 type SearchResult = {
   id: number
   title: string
@@ -107,6 +115,11 @@ function todayIso(): string {
   return new Date().toISOString().slice(0, 10)
 }
 
+function newIdempotencyKey(): string {
+  if (typeof crypto !== 'undefined' && typeof crypto.randomUUID === 'function') return crypto.randomUUID()
+  return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`
+}
+
 function normalizeText(value?: string | null): string {
   return (value ?? '').normalize('NFC')
 }
@@ -128,50 +141,82 @@ export default function UserHomePage() {
   const [totalMinutesByBook, setTotalMinutesByBook] = useState<Record<number, number>>({})
   const [stopModalOpen, setStopModalOpen] = useState(false)
   const [stopCurrentPage, setStopCurrentPage] = useState('')
-  const [pendingStop, setPendingStop] = useState<{ myBookId: number; bookId: number } | null>(null)
+  const [pendingStop, setPendingStop] = useState<{ myBookId: number; bookId: number; idempotencyKey: string } | null>(null)
   const [elapsedSeconds, setElapsedSeconds] = useState(0)
   const [sessionMessage, setSessionMessage] = useState<string | null>(null)
   const [savingGoals, setSavingGoals] = useState(false)
   const [error, setError] = useState<string | null>(null)
+  const versionRef = useRef<number | null>(null)
+
+  const applyDashboard = useCallback((input?: Partial<Dashboard> | null) => {
+    const normalized = normalizeDashboard(input)
+    setDashboard(normalized)
+    setGoalBooks(normalized.booksPerMonthGoal)
+    setGoalMinutes(normalized.minutesPerDayGoal)
+  }, [])
 
   const loadPersonalData = useCallback(async () => {
     if (!token) return
     setLoading(true)
     setError(null)
     try {
-      const [user, books, dash, sessions] = await Promise.all([
-        apiGet<User>('/api/users/me', token),
-        apiGet<MyBook[]>('/api/my/books', token),
-        apiGet<Dashboard>('/api/my/dashboard', token),
-        apiGet<ReadingSessionItem[]>('/api/my/sessions', token)
-      ])
-      setMe(user)
-      setMyBooks(books)
-      const normalized = normalizeDashboard(dash)
-      setDashboard(normalized)
-      setGoalBooks(normalized.booksPerMonthGoal)
-      setGoalMinutes(normalized.minutesPerDayGoal)
-      const pageMap: Record<number, number> = {}
-      const minutesMap: Record<number, number> = {}
-      for (const s of sessions) {
-        const key = s.bookId
-        if (!key) continue
-        pageMap[key] = (pageMap[key] || 0) + (s.pagesRead || 0)
-        minutesMap[key] = (minutesMap[key] || 0) + (s.minutesRead || 0)
-      }
-      setLastPageByBook(pageMap)
-      setTotalMinutesByBook(minutesMap)
+      const home = await apiGet<MyHome>('/api/my/home', token)
+      versionRef.current = home.version
+      setMe(home.user)
+      setMyBooks(Array.isArray(home.books) ? home.books : [])
+      applyDashboard(home.dashboard)
     } catch (e) {
       setError((e as Error).message)
     } finally {
       setLoading(false)
     }
-  }, [token])
+  }, [applyDashboard, token])
+
+  const syncChanges = useCallback(async () => {
+    if (!token) return
+    const changes = await apiGetIfChanged<MyChanges>(changesPath(versionRef.current, true), token)
+    if (!changes) return
+    versionRef.current = changes.version
+    setMyBooks((prev) => applyLibraryChanges(prev, changes))
+    if (changes.dashboard) applyDashboard(changes.dashboard)
+  }, [applyDashboard, token])
 
   useEffect(() => {
     loadPersonalData()
   }, [loadPersonalData])
 
+  // Live updates from other tabs and devices: dashboard fields arrive as deltas, library rows via /changes.
+  useEffect(() => {
+    if (!token) return
+    return openEventStream('/api/my/stream', token, (e) => {
+      const version = Number(e.id)
+      if (e.event === 'snapshot') {
+        applyDashboard(JSON.parse(e.data) as Dashboard)
+      } else if (e.event === 'delta') {
+        const { version: _version, ...fields } = JSON.parse(e.data) as Partial<Dashboard> & { version: number }
+        setDashboard((prev) => ({ ...prev, ...fields }))
+        if (fields.booksPerMonthGoal !== undefined) setGoalBooks(fields.booksPerMonthGoal)
+        if (fields.minutesPerDayGoal !== undefined) setGoalMinutes(fields.minutesPerDayGoal)
+      } else {
+        return
+      }
+      if (versionRef.current !== null && version > versionRef.current) {
+        syncChanges().catch(() => undefined)
+      }
+    })
+  }, [applyDashboard, syncChanges, token])
+
+  useEffect(() => {
+    const pageMap: Record<number, number> = {}
+    const minutesMap: Record<number, number> = {}
+    for (const b of myBooks) {
+      pageMap[b.bookId] = b.totalPagesRead ?? 0
+      minutesMap[b.bookId] = b.totalMinutesRead ?? 0
+    }
+    setLastPageByBook(pageMap)
+    setTotalMinutesByBook(minutesMap)
+  }, [myBooks])
+
   useEffect(() => {
     if (activeSessionMyBookId === null) return
     const timerId = window.setInterval(() => {
@@ -207,7 +252,7 @@ export default function UserHomePage() {
     setError(null)
     try {
       await apiPatch(`/api/my/books/${id}`, payload, token)
-      await loadPersonalData()
+      await syncChanges()
     } catch (e) {
       setError((e as Error).message)
     } finally {
@@ -229,7 +274,7 @@ export default function UserHomePage() {
 
   const openStopSessionModal = (myBookId: number, bookId: number) => {
     const lastPage = lastPageByBook[bookId] ?? 0
-    setPendingStop({ myBookId, bookId })
+    setPendingStop({ myBookId, bookId, idempotencyKey: newIdempotencyKey() })
     setStopCurrentPage(String(lastPage))
     setStopModalOpen(true)
     setError(null)
@@ -262,15 +307,25 @@ export default function UserHomePage() {
     setSessionMessage(null)
     try {
       const minutesRead = Math.max(1, Math.round(elapsedSeconds / 60))
-      await apiPost('/api/my/sessions', {
+      const sessionBody = {
         bookId: pendingStop.bookId,
         sessionDate: todayIso(),
         minutesRead,
         pagesRead,
         note: 'Tracked with reading timer'
-      }, token)
+      }
+      const headers = { 'Idempotency-Key': pendingStop.idempotencyKey }
+      for (let attempt = 1; ; attempt++) {
+        try {
+          await apiPost('/api/my/sessions', sessionBody, token, headers)
+          break
+        } catch (e) {
+          // fetch rejects with TypeError on network failures; the same key makes the retry safe
+          if (!(e instanceof TypeError) || attempt >= 3) throw e
+        }
+      }
       await apiPatch(`/api/my/books/${pendingStop.myBookId}`, { status: 'READING' }, token)
-      await loadPersonalData()
+      await syncChanges()
       setLastPageByBook((prev) => ({ ...prev, [pendingStop.bookId]: currentPage }))
       setSessionMessage(`Session saved: ${minutesRead} minute(s), +${pagesRead} page(s).`)
     } catch (e) {
@@ -306,7 +361,7 @@ export default function UserHomePage() {
     setError(null)
     try {
       await apiPut('/api/my/goals', { booksPerMonth: goalBooks, minutesPerDay: goalMinutes }, token)
-      await loadPersonalData()
+      await syncChanges()
     } catch (e) {
       setError((e as Error).message)
     } finally {
@@ -408,7 +463,7 @@ export default function UserHomePage() {
           {grouped.reading.map((item) => (
             <div key={item.id} className="card book-card">
               <div className="book-cover">
-                {item.imageUrl ? <img src={item.imageUrl} alt={item.title} /> : <div className="cover-fallback">No Cover</div>}
+                {item.imageUrl ? <img src={coverUrl(item.bookId)} alt={item.title} loading="lazy" /> : <div className="cover-fallback">No Cover</div>}
               </div>
               <div className="book-info">
                 <div className="card-title">{normalizeText(item.title)}</div>
@@ -523,7 +578,7 @@ export default function UserHomePage() {
           {recommendations.map((r) => (
             <div key={r.id} className="card book-card">
               <div className="book-cover">
-                {r.image_url ? <img src={r.image_url} alt={r.title} /> : <div className="cover-fallback">No Cover</div>}
+                {r.image_url ? <img src={coverUrl(r.id)} alt={r.title} loading="lazy" /> : <div className="cover-fallback">No Cover</div>}
               </div>
               <div className="book-info">
                 <div className="card-title">{normalizeText(r.title)}</div>
@@ -532,7 +587,7 @@ export default function UserHomePage() {
                 </div>
                 <div className="card-desc">{r.description || 'No description available.'}</div>
                 <div className="loan-actions">
-                  <button onClick={() => apiPost('/api/my/books', { bookId: r.id, status: 'TO_READ' }, token).then(loadPersonalData).catch((e) => setError((e as Error).message))}>Add to queue</button>
+                  <button onClick={() => apiPost('/api/my/books', { bookId: r.id, status: 'TO_READ' }, token).then(syncChanges).catch((e) => setError((e as Error).message))}>Add to queue</button>
                   <Link to={`/books/${r.id}`} className="ghost">Details</Link>
                 </div>
               </div>
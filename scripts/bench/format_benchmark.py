@@ -0,0 +1,197 @@
+"""Compare response formats (JSON, CBOR, Smile, each with and without gzip) on the high-volume endpoints.
+
+For every endpoint and format it sends the same request sequentially and reports bytes on the wire, client latency
+and, with --pid, backend CPU time per request read from /proc/<pid>/stat (Linux). The CPU figure covers the whole
+request, so differences between formats are the serialization and compression cost. Seeds the catalog and one
+user's sessions first when there are fewer than asked for.
+"""
+import argparse
+import json
+import math
+import os
+import statistics
+import time
+import urllib.error
+import urllib.request
+import uuid
+from datetime import date, timedelta
+from typing import Dict, List, Optional, Tuple
+
+FORMATS = [
+    ("json", "application/json", False),
+    ("json+gzip", "application/json", True),
+    ("cbor", "application/cbor", False),
+    ("cbor+gzip", "application/cbor", True),
+    ("smile", "application/x-jackson-smile", False),
+    ("smile+gzip", "application/x-jackson-smile", True),
+]
+
+WORDS = ("reading habit library shelf chapter novel history science garden river winter summer light "
+         "memory journey city ocean mountain letter silence machine language story").split()
+
+
+def call(url: str, method: str = "GET", body: Optional[Dict] = None, headers: Optional[Dict] = None,
+         timeout: float = 30.0) -> Tuple[int, bytes, Dict[str, str]]:
+    data = None if body is None else json.dumps(body).encode("utf-8")
+    all_headers = {"Content-Type": "application/json"} if body is not None else {}
+    all_headers.update(headers or {})
+    req = urllib.request.Request(url, data=data, headers=all_headers, method=method)
+    try:
+        with urllib.request.urlopen(req, timeout=timeout) as resp:
+            # urllib does not decode Content-Encoding, so this is what went over the wire.
+            return resp.status, resp.read(), {k.lower(): v for k, v in resp.headers.items()}
+    except urllib.error.HTTPError as exc:
+        return exc.code, exc.read(), {k.lower(): v for k, v in exc.headers.items()}
+
+
+def sentence(i: int, words: int) -> str:
+    return " ".join(WORDS[(i * 7 + k * 3) % len(WORDS)] for k in range(words))
+
+
+def seed(args) -> Tuple[str, bool]:
+    status, raw, _ = call(f"{args.base_url}/api/books?size=1")
+    existing = json.loads(raw).get("totalElements", 0) if status == 200 else 0
+    for i in range(existing, args.seed_books):
+        call(f"{args.base_url}/api/books", "POST", {
+            "title": sentence(i, 4).title(),
+            "author": sentence(i + 1, 2).title(),
+            "isbn": f"978{i:010d}",
+            "description": sentence(i, 60),
+            "imageUrl": f"https://books.google.com/books/content?id=bench{i:06d}&printsec=frontcover&img=1&zoom=1",
+            "totalCopies": 3,
+            "availableCopies": 2,
+        })
+    status, raw, _ = call(f"{args.base_url}/api/books?size={args.seed_sessions_books}")
+    book_ids = [b["id"] for b in json.loads(raw)["content"]]
+
+    username = "fmt" + uuid.uuid4().hex[:8]
+    status, raw, _ = call(f"{args.base_url}/api/auth/register", "POST",
+                          {"username": username, "email": f"{username}@bench.local", "password": "bench-password"})
+    if status != 200:
+        raise SystemExit(f"register failed with HTTP {status}: {raw[:200]!r}")
+    token = json.loads(raw)["token"]
+    auth = {"Authorization": f"Bearer {token}"}
+    today = date.today()
+    for i in range(args.seed_sessions):
+        status, raw, _ = call(f"{args.base_url}/api/my/sessions", "POST", {
+            "bookId": book_ids[i % len(book_ids)],
+            "sessionDate": (today - timedelta(days=i % 60)).isoformat(),
+            "minutesRead": 10 + i % 50,
+            "pagesRead": 5 + i % 30,
+            "note": sentence(i, 8),
+        }, auth)
+        if status != 200:
+            # The bench profile's H2 cannot run the session upsert (ON CONFLICT ... DO UPDATE).
+            print(f"session seed failed with HTTP {status}, skipping my/sessions "
+                  f"(needs a PostgreSQL-backed backend)")
+            return token, False
+    return token, True
+
+
+def cpu_ms(pid: Optional[int]) -> Optional[float]:
+    if pid is None:
+        return None
+    with open(f"/proc/{pid}/stat", encoding="ascii") as fh:
+        fields = fh.read().rsplit(")", 1)[1].split()
+    # utime and stime are fields 14 and 15 of stat(5); the split drops the first two.
+    return (int(fields[11]) + int(fields[12])) * 1000.0 / os.sysconf("SC_CLK_TCK")
+
+
+def percentile(sorted_values: List[float], pct: float) -> float:
+    if not sorted_values:
+        return float("nan")
+    idx = min(len(sorted_values) - 1, max(0, math.ceil(pct / 100.0 * len(sorted_values)) - 1))
+    return sorted_values[idx]
+
+
+def measure(args, name: str, url: str, method: str, body: Optional[Dict], headers: Dict) -> List[Dict]:
+    def with_format(accept: str, gzip: bool) -> Dict:
+        h = dict(headers)
+        h["Accept"] = accept
+        if gzip:
+            h["Accept-Encoding"] = "gzip"
+        return h
+
+    # Warm every format up front, so the first one measured does not pay for the JIT.
+    for _ in range(args.warmup):
+        for _, accept, gzip in FORMATS:
+            call(url, method, body, with_format(accept, gzip), args.timeout)
+
+    rows = []
+    for fmt, accept, gzip in FORMATS:
+        h = with_format(accept, gzip)
+        latencies: List[float] = []
+        sizes: List[int] = []
+        encoding = content_type = ""
+        cpu_before = cpu_ms(args.pid)
+        for _ in range(args.requests):
+            started = time.perf_counter()
+            status, raw, resp_headers = call(url, method, body, h, args.timeout)
+            latencies.append((time.perf_counter() - started) * 1000.0)
+            if status != 200:
+                raise SystemExit(f"{name} {fmt}: HTTP {status}: {raw[:200]!r}")
+            sizes.append(len(raw))
+            encoding = resp_headers.get("content-encoding", "")
+            content_type = resp_headers.get("content-type", "")
+        cpu_after = cpu_ms(args.pid)
+        if not content_type.startswith(accept):
+            raise SystemExit(f"{name} {fmt}: asked for {accept}, got {content_type}")
+        latencies.sort()
+        rows.append({
+            "endpoint": name,
+            "format": fmt,
+            "content_encoding": encoding or "identity",
+            "bytes": round(statistics.fmean(sizes)),
+            "p50_ms": round(percentile(latencies, 50), 2),
+            "p95_ms": round(percentile(latencies, 95), 2),
+            "cpu_ms_per_request": None if cpu_before is None
+            else round((cpu_after - cpu_before) / args.requests, 3),
+        })
+    return rows
+
+
+def print_table(rows: List[Dict]) -> None:
+    print(f"{'endpoint':<18}{'format':<12}{'bytes':>10}{'vs json':>9}{'p50 ms':>9}{'p95 ms':>9}{'cpu ms/req':>12}")
+    baseline: Dict[str, int] = {}
+    for r in rows:
+        if r["format"] == "json":
+            baseline[r["endpoint"]] = r["bytes"]
+        ratio = r["bytes"] / baseline[r["endpoint"]] if baseline.get(r["endpoint"]) else float("nan")
+        cpu = "-" if r["cpu_ms_per_request"] is None else f"{r['cpu_ms_per_request']:.3f}"
+        print(f"{r['endpoint']:<18}{r['format']:<12}{r['bytes']:>10}{ratio:>9.2f}"
+              f"{r['p50_ms']:>9.2f}{r['p95_ms']:>9.2f}{cpu:>12}")
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--base-url", default="http://localhost:8080")
+    parser.add_argument("--pid", type=int, help="backend JVM pid, for CPU time per request (Linux only)")
+    parser.add_argument("--requests", type=int, default=300, help="measured requests per endpoint and format")
+    parser.add_argument("--warmup", type=int, default=100, help="warm-up rounds over all formats")
+    parser.add_argument("--page-size", type=int, default=100, help="GET /api/books page size")
+    parser.add_argument("--top-k", type=int, default=50, help="POST /api/search top_k")
+    parser.add_argument("--seed-books", type=int, default=500)
+    parser.add_argument("--seed-sessions", type=int, default=300)
+    parser.add_argument("--seed-sessions-books", type=int, default=20, help="distinct books the sessions use")
+    parser.add_argument("--skip-search", action="store_true", help="no AI service (or stub) is running")
+    parser.add_argument("--timeout", type=float, default=30.0)
+    parser.add_argument("--json", action="store_true")
+    args = parser.parse_args()
+
+    token, have_sessions = seed(args)
+    auth = {"Authorization": f"Bearer {token}"}
+    rows = measure(args, "books", f"{args.base_url}/api/books?size={args.page_size}", "GET", None, {})
+    if have_sessions:
+        rows += measure(args, "my/sessions", f"{args.base_url}/api/my/sessions", "GET", None, auth)
+    if not args.skip_search:
+        rows += measure(args, "search", f"{args.base_url}/api/search", "POST",
+                        {"query": "history of the river city", "top_k": args.top_k}, {})
+
+    if args.json:
+        print(json.dumps(rows, indent=2))
+    else:
+        print_table(rows)
+
+
+if __name__ == "__main__":
+    main()
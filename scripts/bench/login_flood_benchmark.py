@@ -0,0 +1,158 @@
+"""Measure catalog latency (GET /api/books) on its own and while a login flood hits /api/auth/login.
+
+The flood logs in as a registered user with a wrong password, so every attempt that gets past the throttle costs
+one BCrypt verification. Reports catalog p50/p95/p99 for both phases and the status mix of the flood.
+"""
+import argparse
+import json
+import math
+import statistics
+import threading
+import time
+import urllib.error
+import urllib.request
+import uuid
+from collections import Counter
+from concurrent.futures import ThreadPoolExecutor
+from typing import Dict, List, Optional
+
+
+def request(url: str, body: Optional[Dict], timeout: float) -> int:
+    data = None if body is None else json.dumps(body).encode("utf-8")
+    req = urllib.request.Request(url, data=data, headers={"Content-Type": "application/json"},
+                                 method="GET" if body is None else "POST")
+    try:
+        with urllib.request.urlopen(req, timeout=timeout) as resp:
+            resp.read()
+            return resp.status
+    except urllib.error.HTTPError as exc:
+        return exc.code
+
+
+def percentile(sorted_values: List[float], pct: float) -> float:
+    if not sorted_values:
+        return float("nan")
+    idx = min(len(sorted_values) - 1, max(0, math.ceil(pct / 100.0 * len(sorted_values)) - 1))
+    return sorted_values[idx]
+
+
+def catalog_phase(args, stop: threading.Event) -> Dict:
+    url = f"{args.base_url}/api/books?size={args.page_size}"
+    latencies: List[float] = []
+    errors = 0
+    lock = threading.Lock()
+
+    def worker():
+        nonlocal errors
+        while not stop.is_set():
+            started = time.perf_counter()
+            try:
+                status = request(url, None, args.timeout)
+            except (urllib.error.URLError, TimeoutError):
+                status = 0
+            elapsed = (time.perf_counter() - started) * 1000.0
+            with lock:
+                if status == 200:
+                    latencies.append(elapsed)
+                else:
+                    errors += 1
+
+    with ThreadPoolExecutor(max_workers=args.catalog_concurrency) as pool:
+        for _ in range(args.catalog_concurrency):
+            pool.submit(worker)
+        time.sleep(args.duration)
+        stop.set()
+    latencies.sort()
+    return {
+        "requests": len(latencies),
+        "errors": errors,
+        "p50_ms": round(percentile(latencies, 50), 2),
+        "p95_ms": round(percentile(latencies, 95), 2),
+        "p99_ms": round(percentile(latencies, 99), 2),
+        "mean_ms": round(statistics.fmean(latencies), 2) if latencies else None,
+    }
+
+
+def flood(args, username: str, stop: threading.Event, statuses: Counter, lock: threading.Lock) -> None:
+    url = f"{args.base_url}/api/auth/login"
+    body = {"username": username, "password": "wrong-password"}
+
+    # With --flood-rate each worker paces itself to its share of the target rate.
+    interval = args.flood_concurrency / args.flood_rate if args.flood_rate > 0 else 0.0
+
+    def worker():
+        next_at = time.perf_counter()
+        while not stop.is_set():
+            if interval:
+                next_at += interval
+                delay = next_at - time.perf_counter()
+                if delay > 0:
+                    time.sleep(delay)
+            try:
+                status = request(url, body, args.timeout)
+            except (urllib.error.URLError, TimeoutError):
+                status = 0
+            with lock:
+                statuses[status] += 1
+
+    threads = [threading.Thread(target=worker, daemon=True) for _ in range(args.flood_concurrency)]
+    for t in threads:
+        t.start()
+    for t in threads:
+        t.join()
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--base-url", default="http://localhost:8080")
+    parser.add_argument("--duration", type=float, default=15.0, help="seconds per phase")
+    parser.add_argument("--catalog-concurrency", type=int, default=4)
+    parser.add_argument("--flood-concurrency", type=int, default=64)
+    parser.add_argument("--flood-rate", type=float, default=0.0, help="login attempts per second (0 = as fast as possible)")
+    parser.add_argument("--page-size", type=int, default=20)
+    parser.add_argument("--timeout", type=float, default=30.0)
+    parser.add_argument("--json", action="store_true")
+    args = parser.parse_args()
+
+    username = "flood" + uuid.uuid4().hex[:8]
+    status = request(f"{args.base_url}/api/auth/register",
+                     {"username": username, "email": f"{username}@bench.local", "password": "correct-password"},
+                     args.timeout)
+    if status != 200:
+        raise SystemExit(f"register failed with HTTP {status}")
+
+    baseline = catalog_phase(args, threading.Event())
+
+    stop = threading.Event()
+    statuses: Counter = Counter()
+    lock = threading.Lock()
+    flooder = threading.Thread(target=flood, args=(args, username, stop, statuses, lock), daemon=True)
+    flooder.start()
+    under_flood = catalog_phase(args, stop)
+    flooder.join()
+
+    total = sum(statuses.values())
+    report = {
+        "baseline": baseline,
+        "under_flood": under_flood,
+        "flood": {
+            "concurrency": args.flood_concurrency,
+            "attempts": total,
+            "attempts_per_s": round(total / args.duration, 1),
+            "statuses": {str(k): v for k, v in sorted(statuses.items())},
+        },
+    }
+    if args.json:
+        print(json.dumps(report, indent=2))
+        return
+    print(f"target={args.base_url} duration={args.duration}s catalog_concurrency={args.catalog_concurrency}")
+    print(f"{'phase':>12} {'requests':>9} {'p50 ms':>9} {'p95 ms':>9} {'p99 ms':>9} {'errors':>7}")
+    for name, r in (("baseline", baseline), ("login flood", under_flood)):
+        print(f"{name:>12} {r['requests']:>9} {r['p50_ms']:>9} {r['p95_ms']:>9} {r['p99_ms']:>9} {r['errors']:>7}")
+    f = report["flood"]
+    print(f"flood: {f['attempts']} login attempts ({f['attempts_per_s']}/s) at concurrency {f['concurrency']}, "
+          f"statuses {f['statuses']}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,48 @@
+#!/usr/bin/env sh
+# Start the stub AI service and the backend on the in-memory "bench" profile, then compare response formats.
+# Usage: scripts/bench/run_format_bench.sh [format_benchmark.py options...]
+set -eu
+
+ROOT="$(cd "$(dirname "$0")/../.." && pwd)"
+STUB_PORT="${STUB_PORT:-8765}"
+BACKEND_PORT="${BACKEND_PORT:-8080}"
+LOG_DIR="${LOG_DIR:-$ROOT/backend/target/bench}"
+mkdir -p "$LOG_DIR"
+
+# No simulated model latency: only the backend's own work should differ between runs.
+python3 "$ROOT/scripts/bench/stub_ai_service.py" --port "$STUB_PORT" --base-latency-ms 0 --per-ef-latency-ms 0 \
+  >"$LOG_DIR/stub.log" 2>&1 &
+STUB_PID=$!
+
+(cd "$ROOT/backend" && SERVER_PORT="$BACKEND_PORT" AI_SERVICE_URL="http://127.0.0.1:$STUB_PORT" \
+  RATE_LIMIT_ENABLED=false \
+  mvn -q -Pbench spring-boot:run -Dspring-boot.run.profiles=bench >"$LOG_DIR/backend.log" 2>&1) &
+BACKEND_PID=$!
+
+cleanup() {
+  kill "$STUB_PID" 2>/dev/null || true
+  pkill -P "$BACKEND_PID" 2>/dev/null || true
+  kill "$BACKEND_PID" 2>/dev/null || true
+  pkill -f "spring-boot:run -Dspring-boot.run.profiles=bench" 2>/dev/null || true
+}
+trap cleanup EXIT INT TERM
+
+printf 'waiting for backend on :%s' "$BACKEND_PORT"
+for _ in $(seq 1 120); do
+  if curl -s -o /dev/null "http://127.0.0.1:$BACKEND_PORT/api/books"; then
+    echo " up"
+    break
+  fi
+  printf '.'
+  sleep 1
+done
+
+# spring-boot:run forks the application JVM; its CPU time is what the benchmark reads.
+JVM_PID="$(pgrep -f 'com.smartlib.backend.SmartLibApplication' | head -n 1 || true)"
+
+cd "$ROOT"
+if [ -n "$JVM_PID" ]; then
+  python3 scripts/bench/format_benchmark.py --base-url "http://127.0.0.1:$BACKEND_PORT" --pid "$JVM_PID" "$@"
+else
+  python3 scripts/bench/format_benchmark.py --base-url "http://127.0.0.1:$BACKEND_PORT" "$@"
+fi
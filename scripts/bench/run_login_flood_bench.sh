@@ -0,0 +1,38 @@
+#!/usr/bin/env sh
+# Start the backend on the in-memory "bench" profile and measure catalog latency during a login flood.
+# THROTTLE=off raises the per-IP/per-username budgets so every attempt reaches the hashing pool.
+# Usage: scripts/bench/run_login_flood_bench.sh [login_flood_benchmark.py options...]
+set -eu
+
+ROOT="$(cd "$(dirname "$0")/../.." && pwd)"
+BACKEND_PORT="${BACKEND_PORT:-8080}"
+LOG_DIR="${LOG_DIR:-$ROOT/backend/target/bench}"
+mkdir -p "$LOG_DIR"
+
+if [ "${THROTTLE:-on}" = "off" ]; then
+  export AUTH_THROTTLE_IP_CAPACITY=1000000 AUTH_THROTTLE_USERNAME_CAPACITY=1000000
+fi
+
+(cd "$ROOT/backend" && SERVER_PORT="$BACKEND_PORT" \
+  mvn -q -Pbench spring-boot:run -Dspring-boot.run.profiles=bench >"$LOG_DIR/backend.log" 2>&1) &
+BACKEND_PID=$!
+
+cleanup() {
+  pkill -P "$BACKEND_PID" 2>/dev/null || true
+  kill "$BACKEND_PID" 2>/dev/null || true
+  pkill -f "spring-boot:run -Dspring-boot.run.profiles=bench" 2>/dev/null || true
+}
+trap cleanup EXIT INT TERM
+
+printf 'waiting for backend on :%s' "$BACKEND_PORT"
+for _ in $(seq 1 120); do
+  if curl -s -o /dev/null "http://127.0.0.1:$BACKEND_PORT/api/books"; then
+    echo " up"
+    break
+  fi
+  printf '.'
+  sleep 1
+done
+
+cd "$ROOT"
+python3 scripts/bench/login_flood_benchmark.py --base-url "http://127.0.0.1:$BACKEND_PORT" "$@"
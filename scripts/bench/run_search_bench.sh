@@ -0,0 +1,39 @@
+#!/usr/bin/env sh
+# Start the stub AI service and the backend on the in-memory "bench" profile, then replay the query log.
+# Usage: scripts/bench/run_search_bench.sh [search_benchmark.py run options...]
+set -eu
+
+ROOT="$(cd "$(dirname "$0")/../.." && pwd)"
+STUB_PORT="${STUB_PORT:-8765}"
+BACKEND_PORT="${BACKEND_PORT:-8080}"
+LOG_DIR="${LOG_DIR:-$ROOT/backend/target/bench}"
+mkdir -p "$LOG_DIR"
+
+python3 "$ROOT/scripts/bench/stub_ai_service.py" --port "$STUB_PORT" >"$LOG_DIR/stub.log" 2>&1 &
+STUB_PID=$!
+
+(cd "$ROOT/backend" && SERVER_PORT="$BACKEND_PORT" AI_SERVICE_URL="http://127.0.0.1:$STUB_PORT" \
+  mvn -q -Pbench spring-boot:run -Dspring-boot.run.profiles=bench >"$LOG_DIR/backend.log" 2>&1) &
+BACKEND_PID=$!
+
+cleanup() {
+  kill "$STUB_PID" 2>/dev/null || true
+  pkill -P "$BACKEND_PID" 2>/dev/null || true
+  kill "$BACKEND_PID" 2>/dev/null || true
+  pkill -f "spring-boot:run -Dspring-boot.run.profiles=bench" 2>/dev/null || true
+}
+trap cleanup EXIT INT TERM
+
+printf 'waiting for backend on :%s' "$BACKEND_PORT"
+for _ in $(seq 1 120); do
+  if curl -s -o /dev/null -X POST -H 'Content-Type: application/json' \
+      -d '{"query":"warmup","top_k":1}' "http://127.0.0.1:$BACKEND_PORT/api/search"; then
+    echo " up"
+    break
+  fi
+  printf '.'
+  sleep 1
+done
+
+cd "$ROOT"
+python3 scripts/bench/search_benchmark.py run --url "http://127.0.0.1:$BACKEND_PORT/api/search" "$@"
@@ -0,0 +1,157 @@
+"""Replay a query log against /api/search (or ai_service /search) and report latency, throughput and recall@k.
+
+Query log: JSON lines with "query", optional "top_k" and optional "expected_ids" (ground truth).
+  run     replay the log at a given concurrency, optionally sweeping several ef_search values
+  record  query the target once per line (e.g. with a high ef_search) and write expected_ids
+"""
+import argparse
+import json
+import math
+import statistics
+import sys
+import time
+import urllib.error
+import urllib.request
+from concurrent.futures import ThreadPoolExecutor
+from typing import Dict, List, Optional
+
+
+def load_log(path: str) -> List[Dict]:
+    entries = []
+    with open(path, encoding="utf-8") as fh:
+        for line in fh:
+            line = line.strip()
+            if line:
+                entries.append(json.loads(line))
+    if not entries:
+        raise SystemExit(f"empty query log: {path}")
+    return entries
+
+
+def post_search(url: str, query: str, top_k: int, ef_search: Optional[int], extra: Dict, timeout: float):
+    body = {"query": query, "top_k": top_k, **extra}
+    if ef_search is not None:
+        body["ef_search"] = ef_search
+    req = urllib.request.Request(
+        url,
+        data=json.dumps(body).encode("utf-8"),
+        headers={"Content-Type": "application/json"},
+        method="POST",
+    )
+    with urllib.request.urlopen(req, timeout=timeout) as resp:
+        return json.loads(resp.read() or b"[]")
+
+
+def percentile(sorted_values: List[float], pct: float) -> float:
+    if not sorted_values:
+        return float("nan")
+    idx = min(len(sorted_values) - 1, max(0, math.ceil(pct / 100.0 * len(sorted_values)) - 1))
+    return sorted_values[idx]
+
+
+def run_once(args, entries: List[Dict], ef_search: Optional[int]) -> Dict:
+    extra = json.loads(args.extra) if args.extra else {}
+    total = len(entries) * args.repeat
+
+    def one(i: int):
+        entry = entries[i % len(entries)]
+        top_k = args.top_k or int(entry.get("top_k", 10))
+        started = time.perf_counter()
+        try:
+            results = post_search(args.url, entry["query"], top_k, ef_search, extra, args.timeout)
+        except (urllib.error.URLError, TimeoutError, ValueError) as exc:
+            return time.perf_counter() - started, None, str(exc)
+        elapsed = time.perf_counter() - started
+        expected = entry.get("expected_ids")
+        recall = None
+        if expected:
+            wanted = set(expected[:top_k])
+            got = {r.get("id") for r in results[:top_k]}
+            recall = len(wanted & got) / float(len(wanted))
+        return elapsed, recall, None
+
+    with ThreadPoolExecutor(max_workers=args.concurrency) as pool:
+        list(pool.map(one, range(min(args.warmup, total))))
+        wall_start = time.perf_counter()
+        outcomes = list(pool.map(one, range(total)))
+        wall = time.perf_counter() - wall_start
+
+    latencies = sorted(o[0] * 1000.0 for o in outcomes if o[2] is None)
+    recalls = [o[1] for o in outcomes if o[1] is not None]
+    errors = [o[2] for o in outcomes if o[2] is not None]
+    return {
+        "ef_search": ef_search,
+        "requests": total,
+        "errors": len(errors),
+        "first_error": errors[0] if errors else None,
+        "concurrency": args.concurrency,
+        "throughput_rps": round(len(latencies) / wall, 2) if wall > 0 else None,
+        "p50_ms": round(percentile(latencies, 50), 2),
+        "p95_ms": round(percentile(latencies, 95), 2),
+        "p99_ms": round(percentile(latencies, 99), 2),
+        "mean_ms": round(statistics.fmean(latencies), 2) if latencies else None,
+        "recall_at_k": round(statistics.fmean(recalls), 4) if recalls else None,
+    }
+
+
+def cmd_run(args) -> None:
+    entries = load_log(args.log)
+    ef_values = [int(v) for v in args.ef_search.split(",")] if args.ef_search else [None]
+    reports = [run_once(args, entries, ef) for ef in ef_values]
+    if args.json:
+        print(json.dumps(reports, indent=2))
+        return
+    print(f"target={args.url} queries={len(entries)} repeat={args.repeat} concurrency={args.concurrency}")
+    print(f"{'ef_search':>9} {'rps':>9} {'p50 ms':>9} {'p95 ms':>9} {'p99 ms':>9} {'recall@k':>9} {'errors':>7}")
+    for r in reports:
+        recall = "-" if r["recall_at_k"] is None else f"{r['recall_at_k']:.4f}"
+        ef = "default" if r["ef_search"] is None else str(r["ef_search"])
+        print(f"{ef:>9} {r['throughput_rps']:>9} {r['p50_ms']:>9} {r['p95_ms']:>9} {r['p99_ms']:>9} {recall:>9} {r['errors']:>7}")
+        if r["first_error"]:
+            print(f"  first error: {r['first_error']}", file=sys.stderr)
+
+
+def cmd_record(args) -> None:
+    entries = load_log(args.log)
+    ef = int(args.ef_search) if args.ef_search else None
+    with open(args.out, "w", encoding="utf-8") as out:
+        for entry in entries:
+            top_k = args.top_k or int(entry.get("top_k", 10))
+            results = post_search(args.url, entry["query"], top_k, ef, {}, args.timeout)
+            entry = dict(entry, top_k=top_k, expected_ids=[r["id"] for r in results])
+            out.write(json.dumps(entry, ensure_ascii=False) + "\n")
+    print(f"wrote ground truth for {len(entries)} queries to {args.out}")
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    sub = parser.add_subparsers(dest="command", required=True)
+
+    def common(p):
+        p.add_argument("--url", default="http://localhost:8080/api/search")
+        p.add_argument("--log", default="scripts/bench/queries.sample.jsonl")
+        p.add_argument("--top-k", type=int, default=0, help="override top_k from the log")
+        p.add_argument("--timeout", type=float, default=30.0)
+
+    run = sub.add_parser("run")
+    common(run)
+    run.add_argument("--concurrency", type=int, default=8)
+    run.add_argument("--repeat", type=int, default=5, help="replay the log this many times")
+    run.add_argument("--warmup", type=int, default=20)
+    run.add_argument("--ef-search", default="", help="comma separated values to sweep, e.g. 16,32,64,128")
+    run.add_argument("--extra", default="", help="extra JSON fields merged into every request body")
+    run.add_argument("--json", action="store_true")
+    run.set_defaults(func=cmd_run)
+
+    record = sub.add_parser("record")
+    common(record)
+    record.add_argument("--ef-search", default="256")
+    record.add_argument("--out", required=True)
+    record.set_defaults(func=cmd_record)
+
+    args = parser.parse_args()
+    args.func(args)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,142 @@
+"""Measure backend startup: time until the readiness URL answers 200, then the latency of the first requests.
+
+Each run starts the given command (its own process group), polls --ready-path, and once it is ready sends a short
+scripted sequence: register, the catalog, the dashboard and a search, first once ("first") and then --repeat more
+times ("warm", median). The process is stopped after each run. Reports per run and the median over runs.
+"""
+import argparse
+import json
+import os
+import re
+import signal
+import statistics
+import subprocess
+import time
+import urllib.error
+import urllib.request
+import uuid
+from typing import Dict, List, Optional, Tuple
+
+STARTED = re.compile(r"Started \w+ in ([0-9.]+) seconds")
+
+
+def call(url: str, method: str = "GET", body: Optional[Dict] = None, headers: Optional[Dict] = None,
+         timeout: float = 30.0) -> Tuple[int, bytes]:
+    data = None if body is None else json.dumps(body).encode("utf-8")
+    all_headers = {"Content-Type": "application/json"} if body is not None else {}
+    all_headers.update(headers or {})
+    req = urllib.request.Request(url, data=data, headers=all_headers, method=method)
+    try:
+        with urllib.request.urlopen(req, timeout=timeout) as resp:
+            return resp.status, resp.read()
+    except urllib.error.HTTPError as exc:
+        return exc.code, exc.read()
+
+
+def timed(url: str, method: str = "GET", body: Optional[Dict] = None, headers: Optional[Dict] = None) -> float:
+    started = time.perf_counter()
+    status, raw = call(url, method, body, headers)
+    elapsed = (time.perf_counter() - started) * 1000.0
+    if status >= 500:
+        raise RuntimeError(f"{method} {url}: HTTP {status}: {raw[:200]!r}")
+    return elapsed
+
+
+def one_run(args, log_path: str) -> Dict:
+    with open(log_path, "w", encoding="utf-8") as log:
+        started = time.perf_counter()
+        proc = subprocess.Popen(args.cmd, shell=True, stdout=log, stderr=subprocess.STDOUT, start_new_session=True)
+    try:
+        ready_ms = None
+        deadline = started + args.timeout
+        while time.perf_counter() < deadline:
+            if proc.poll() is not None:
+                raise RuntimeError(f"backend exited with {proc.returncode}, see {log_path}")
+            try:
+                status, _ = call(args.base_url + args.ready_path, timeout=2)
+                if status == 200:
+                    ready_ms = (time.perf_counter() - started) * 1000.0
+                    break
+            except (urllib.error.URLError, ConnectionError, TimeoutError):
+                pass
+            time.sleep(0.05)
+        if ready_ms is None:
+            raise RuntimeError(f"not ready after {args.timeout}s, see {log_path}")
+
+        base = args.base_url
+        username = "startup" + uuid.uuid4().hex[:8]
+        steps = {}
+        steps["register"] = timed(f"{base}/api/auth/register", "POST",
+                                  {"username": username, "email": f"{username}@bench.local",
+                                   "password": "startup-password"})
+        _, raw = call(f"{base}/api/auth/login", "POST", {"username": username, "password": "startup-password"})
+        auth = {"Authorization": "Bearer " + json.loads(raw)["token"]}
+        requests = {
+            "books": (f"{base}/api/books?size=20", "GET", None, None),
+            "dashboard": (f"{base}/api/my/dashboard", "GET", None, auth),
+            "search": (f"{base}/api/search", "POST", {"query": "history of the river city", "top_k": 10}, None),
+        }
+        if args.skip_search:
+            del requests["search"]
+        for name, (url, method, body, headers) in requests.items():
+            steps[name] = timed(url, method, body, headers)
+        warm = {}
+        for name, (url, method, body, headers) in requests.items():
+            warm[name] = statistics.median(timed(url, method, body, headers) for _ in range(args.repeat))
+    finally:
+        os.killpg(proc.pid, signal.SIGTERM)
+        try:
+            proc.wait(timeout=30)
+        except subprocess.TimeoutExpired:
+            os.killpg(proc.pid, signal.SIGKILL)
+            proc.wait()
+
+    with open(log_path, encoding="utf-8", errors="replace") as fh:
+        match = STARTED.search(fh.read())
+    return {
+        "spring_started_s": float(match.group(1)) if match else None,
+        "ready_ms": round(ready_ms),
+        "first_ms": {k: round(v, 1) for k, v in steps.items()},
+        "warm_ms": {k: round(v, 1) for k, v in warm.items()},
+    }
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--cmd", required=True, help="shell command that starts the backend")
+    parser.add_argument("--base-url", default="http://127.0.0.1:8080")
+    parser.add_argument("--ready-path", default="/actuator/health/readiness")
+    parser.add_argument("--runs", type=int, default=3)
+    parser.add_argument("--repeat", type=int, default=20, help="warm requests per endpoint after the first")
+    parser.add_argument("--timeout", type=float, default=180.0, help="seconds to wait for readiness")
+    parser.add_argument("--skip-search", action="store_true", help="no AI service (or stub) is running")
+    parser.add_argument("--log-dir", default="backend/target/bench")
+    parser.add_argument("--json", action="store_true")
+    args = parser.parse_args()
+
+    os.makedirs(args.log_dir, exist_ok=True)
+    runs = [one_run(args, os.path.join(args.log_dir, f"startup-{i}.log")) for i in range(args.runs)]
+
+    def med(values: List[Optional[float]]) -> Optional[float]:
+        values = [v for v in values if v is not None]
+        return round(statistics.median(values), 2) if values else None
+
+    summary = {
+        "spring_started_s": med([r["spring_started_s"] for r in runs]),
+        "ready_ms": med([r["ready_ms"] for r in runs]),
+        "first_ms": {k: med([r["first_ms"][k] for r in runs]) for k in runs[0]["first_ms"]},
+        "warm_ms": {k: med([r["warm_ms"][k] for r in runs]) for k in runs[0]["warm_ms"]},
+    }
+    if args.json:
+        print(json.dumps({"runs": runs, "median": summary}, indent=2))
+        return
+    for i, r in enumerate(runs):
+        print(f"run {i}: started {r['spring_started_s']}s, ready {r['ready_ms']} ms, "
+              f"first {r['first_ms']}, warm {r['warm_ms']}")
+    print(f"median: started {summary['spring_started_s']}s, ready {summary['ready_ms']} ms")
+    print(f"  first request ms: {summary['first_ms']}")
+    print(f"  warm request ms:  {summary['warm_ms']}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,164 @@
+"""Deterministic local stand-in for ai_service (/search, /embed, /health).
+
+No model and no database: the catalog is synthetic and embeddings are hashed bag-of-words
+vectors, so results and latency depend only on the request. ef_search is honoured the way
+an HNSW index would be - lower values are faster and may miss true neighbours - which makes
+recall/latency trade-offs measurable without pgvector.
+"""
+import argparse
+import hashlib
+import json
+import math
+import random
+import re
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+from typing import Dict, List
+
+DIM = 64
+TOKEN_RE = re.compile(r"\w+", re.UNICODE)
+
+WORDS = [
+    "java", "spring", "python", "data", "algorithm", "design", "system", "history", "viet", "nam",
+    "novel", "mystery", "detective", "love", "war", "science", "universe", "health", "cooking", "manga",
+    "business", "marketing", "invest", "stock", "habit", "mind", "psychology", "culture", "japan", "magic",
+]
+
+
+def embed(text: str) -> List[float]:
+    vec = [0.0] * DIM
+    for token in TOKEN_RE.findall(text.lower()):
+        h = int.from_bytes(hashlib.blake2b(token.encode("utf-8"), digest_size=8).digest(), "big")
+        vec[h % DIM] += 1.0 if (h >> 63) == 0 else -1.0
+    norm = math.sqrt(sum(v * v for v in vec))
+    return [v / norm for v in vec] if norm > 0 else vec
+
+
+def build_catalog(size: int, seed: int) -> List[Dict]:
+    rng = random.Random(seed)
+    books = []
+    for i in range(1, size + 1):
+        title = " ".join(rng.choice(WORDS) for _ in range(3)).title()
+        description = " ".join(rng.choice(WORDS) for _ in range(20))
+        books.append({
+            "id": i,
+            "google_books_id": f"stub-{i}",
+            "title": title,
+            "author": f"Author {rng.randint(1, size // 10 + 1)}",
+            "description": description,
+            "image_url": "",
+            "published_date": str(1990 + rng.randint(0, 34)),
+            "vector": embed(f"{title} {description}"),
+        })
+    return books
+
+
+class StubState:
+    def __init__(self, args):
+        self.catalog = build_catalog(args.catalog_size, args.seed)
+        self.base_latency_ms = args.base_latency_ms
+        self.per_ef_latency_ms = args.per_ef_latency_ms
+        self.ef_default = args.ef_default
+        self.ef_max = args.ef_max
+
+    def search(self, query: str, top_k: int, ef_search) -> List[Dict]:
+        ef = ef_search if ef_search is not None else max(self.ef_default, top_k * 4)
+        ef = max(top_k, min(ef, self.ef_max))
+        q = embed(query)
+        scored = sorted(
+            ((sum(a * b for a, b in zip(q, book["vector"])), book) for book in self.catalog),
+            key=lambda item: (-item[0], item[1]["id"]),
+        )
+        # Approximate search: each true neighbour beyond the first few is found with a
+        # probability that grows with ef_search, seeded by the query so runs are repeatable.
+        rng = random.Random(f"{query}|{ef}")
+        found_probability = 1.0 - math.exp(-4.0 * ef / float(self.ef_max))
+        results = []
+        for rank, (similarity, book) in enumerate(scored):
+            if len(results) >= top_k:
+                break
+            if rank >= 3 and rng.random() > found_probability:
+                continue
+            distance = 1.0 - similarity
+            results.append({
+                key: book[key]
+                for key in ("id", "google_books_id", "title", "author", "description", "image_url", "published_date")
+            } | {"score": 1.0 / (1.0 + distance)})
+        time.sleep((self.base_latency_ms + self.per_ef_latency_ms * ef) / 1000.0)
+        return results
+
+
+def make_handler(state: StubState):
+    class Handler(BaseHTTPRequestHandler):
+        def log_message(self, fmt, *args):
+            pass
+
+        def _send(self, status: int, body, headers: Dict = None) -> None:
+            payload = json.dumps(body).encode("utf-8")
+            self.send_response(status)
+            self.send_header("Content-Type", "application/json")
+            for name, value in (headers or {}).items():
+                self.send_header(name, value)
+            self.send_header("Content-Length", str(len(payload)))
+            self.end_headers()
+            self.wfile.write(payload)
+
+        def _read_json(self) -> Dict:
+            if "chunked" in self.headers.get("Transfer-Encoding", "").lower():
+                data = b""
+                while True:
+                    size = int(self.rfile.readline().split(b";")[0].strip() or b"0", 16)
+                    if size == 0:
+                        self.rfile.readline()
+                        break
+                    data += self.rfile.read(size)
+                    self.rfile.readline()
+            else:
+                data = self.rfile.read(int(self.headers.get("Content-Length", "0")))
+            return json.loads(data or b"{}")
+
+        def do_GET(self):
+            if self.path == "/health":
+                self._send(200, {"status": "ok", "stub": True})
+            else:
+                self._send(404, {"detail": "not found"})
+
+        def do_POST(self):
+            body = self._read_json()
+            if self.path == "/search":
+                query = (body.get("query") or "").strip()
+                if not query:
+                    self._send(400, {"detail": "query is empty"})
+                    return
+                started = time.perf_counter()
+                results = state.search(query, int(body.get("top_k", 10)), body.get("ef_search"))
+                # Like ai_service: the time of the (simulated) vector query, which the backend tunes on.
+                vector_ms = f"{(time.perf_counter() - started) * 1000:.3f}"
+                self._send(200, results, {"X-Vector-Query-Ms": vector_ms})
+            elif self.path == "/embed":
+                self._send(200, [embed(text) for text in body.get("texts", [])])
+            else:
+                self._send(404, {"detail": "not found"})
+
+    return Handler
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--host", default="127.0.0.1")
+    parser.add_argument("--port", type=int, default=8765)
+    parser.add_argument("--catalog-size", type=int, default=2000)
+    parser.add_argument("--seed", type=int, default=42)
+    parser.add_argument("--base-latency-ms", type=float, default=5.0)
+    parser.add_argument("--per-ef-latency-ms", type=float, default=0.05)
+    parser.add_argument("--ef-default", type=int, default=64)
+    parser.add_argument("--ef-max", type=int, default=256)
+    args = parser.parse_args()
+
+    server = ThreadingHTTPServer((args.host, args.port), make_handler(StubState(args)))
+    print(f"stub ai_service on http://{args.host}:{args.port} ({args.catalog_size} books)")
+    server.serve_forever()
+
+
+if __name__ == "__main__":
+    main()
@@ -1,4 +1,5 @@
 ﻿import os
+import sys
 import time
 import re
 from typing import Dict, List
@@ -418,59 +419,16 @@ if __name__ == "__main__":
         "Naruto",
     ]
 
-    # Tao bang neu chua co (chay 1 lan cho chac)
+    # Schema (extension vector, bang books, index HNSW) do backend tao bang Flyway migrations
     conn = get_db_connection()
     if conn:
         cur = conn.cursor()
-        # Dam bao extension vector da bat
-        cur.execute("CREATE EXTENSION IF NOT EXISTS vector;")
-        # Tao bang books
-        cur.execute(
-            """
-            CREATE TABLE IF NOT EXISTS books (
-                id SERIAL PRIMARY KEY,
-                google_books_id TEXT,
-                title TEXT NOT NULL,
-                author TEXT,
-                description TEXT,
-                image_url TEXT,
-                published_date TEXT,
-                isbn TEXT,
-                total_copies INTEGER,
-                available_copies INTEGER,
-                embedding vector(384) -- Vector 384 chieu cho MiniLM
-            );
-            """
-        )
-        # Index for faster vector search
-        cur.execute(
-            """
-            CREATE INDEX IF NOT EXISTS books_embedding_hnsw
-            ON books USING hnsw (embedding vector_cosine_ops);
-            """
-        )
-        cur.execute("CREATE INDEX IF NOT EXISTS books_isbn_idx ON books (isbn);")
-        # Dam bao co cot google_books_id va unique constraint
-        cur.execute("ALTER TABLE books ADD COLUMN IF NOT EXISTS google_books_id TEXT;")
-        cur.execute("ALTER TABLE books ADD COLUMN IF NOT EXISTS isbn TEXT;")
-        cur.execute("ALTER TABLE books ADD COLUMN IF NOT EXISTS total_copies INTEGER;")
-        cur.execute("ALTER TABLE books ADD COLUMN IF NOT EXISTS available_copies INTEGER;")
-        cur.execute(
-            """
-            DO $$
-            BEGIN
-                IF NOT EXISTS (
-                    SELECT 1 FROM pg_constraint WHERE conname = 'books_google_books_id_key'
-                ) THEN
-                    ALTER TABLE books ADD CONSTRAINT books_google_books_id_key UNIQUE (google_books_id);
-                END IF;
-            END $$;
-            """
-        )
-        conn.commit()
+        cur.execute("SELECT to_regclass('public.books') IS NOT NULL;")
+        has_books = cur.fetchone()[0]
         cur.close()
         conn.close()
-        print("Checked/created table 'books'.")
+        if not has_books:
+            sys.exit("Table 'books' not found: start the backend once so its migrations create the schema.")
 
     # Bat dau cao
     isbn_only = os.getenv("ISBN_FROM_SEARCH") == "1"